@@ -1,6 +1,8 @@
 package com.simplesdental.product.config;
 
+import com.simplesdental.product.util.JwtPrincipal;
 import com.simplesdental.product.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -29,31 +31,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // One parse verifies signature and expiration and yields every claim used below
+            JwtPrincipal principal = null;
             try {
-                username = jwtUtil.extractUsername(token);
-            } catch (Exception e) {
+                principal = jwtUtil.parseToken(authHeader.substring(7));
+            } catch (JwtException | IllegalArgumentException e) {
                 logger.warn("Unable to get JWT Token or JWT Token has expired");
             }
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(token, username)) {
-                Long userId = jwtUtil.extractUserId(token);
-                String role = jwtUtil.extractRole(token);
 
+            if (principal != null && principal.username() != null && principal.role() != null) {
                 List<SimpleGrantedAuthority> authorities = Collections.singletonList(
-                    new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())
+                    new SimpleGrantedAuthority("ROLE_" + principal.role().toUpperCase())
                 );
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                    username, null, authorities);
+                    principal.username(), null, authorities);
 
-                authToken.setDetails(userId);
+                authToken.setDetails(principal.userId());
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
@@ -1,5 +1,8 @@
 package com.simplesdental.product.config;
 
+import com.simplesdental.product.service.CategoryReferenceSync;
+import com.simplesdental.product.service.ProductCacheService;
+import com.simplesdental.product.service.ProductCodeIndex;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -7,6 +10,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -49,4 +54,17 @@ public class RedisConfig {
                 )
                 .build();
     }
-}
\ No newline at end of file
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       CategoryReferenceSync categoryReferenceSync,
+                                                                       ProductCacheService productCacheService,
+                                                                       ProductCodeIndex productCodeIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(categoryReferenceSync, new ChannelTopic(CategoryReferenceSync.CHANNEL));
+        container.addMessageListener(productCacheService, new ChannelTopic(ProductCacheService.CHANNEL));
+        container.addMessageListener(productCodeIndex, new ChannelTopic(ProductCodeIndex.CHANNEL));
+        return container;
+    }
+}
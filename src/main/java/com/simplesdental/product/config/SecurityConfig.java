@@ -1,5 +1,6 @@
 package com.simplesdental.product.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -33,9 +34,16 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
+                        // Async re-dispatch of an already authorized request (streaming responses)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Public endpoints
                         .requestMatchers("/auth/login").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+
+                        // Metrics endpoints - admin only
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                         // Authentication endpoints
                         .requestMatchers("/auth/context").authenticated()
@@ -49,8 +57,10 @@ public class SecurityConfig {
 
                         // Products endpoints - GET for all authenticated, CUD for admin only
                         .requestMatchers("GET", "/api/products/**", "/api/v2/products/**").authenticated()
+                        .requestMatchers("POST", "/api/v2/products/lookup").authenticated()
                         .requestMatchers("POST", "/api/products/**", "/api/v2/products/**").hasRole("ADMIN")
                         .requestMatchers("PUT", "/api/products/**", "/api/v2/products/**").hasRole("ADMIN")
+                        .requestMatchers("PATCH", "/api/v2/products/**").hasRole("ADMIN")
                         .requestMatchers("DELETE", "/api/products/**", "/api/v2/products/**").hasRole("ADMIN")
 
                         // Categories endpoints - GET for all authenticated, CUD for admin only
@@ -1,11 +1,19 @@
 package com.simplesdental.product.controller;
 
 import com.simplesdental.product.dto.CategoryResponseDTO;
+import com.simplesdental.product.dto.CategoryTreeDTO;
 import com.simplesdental.product.dto.ErrorResponse;
+import com.simplesdental.product.dto.KeysetPageResponse;
+import com.simplesdental.product.dto.ProductResponseDTOV2;
 import com.simplesdental.product.dto.SuccessResponseDTO;
-import com.simplesdental.product.mapper.CategoryMapper;
+import com.simplesdental.product.mapper.ProductMapperV2;
 import com.simplesdental.product.model.Category;
+import com.simplesdental.product.repository.CountMode;
+import com.simplesdental.product.repository.ProductFilter;
+import com.simplesdental.product.service.CatalogGenerationService;
 import com.simplesdental.product.service.CategoryService;
+import com.simplesdental.product.service.ProductService;
+import com.simplesdental.product.util.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,6 +23,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,10 +31,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -35,64 +47,201 @@ public class CategoryController {
     private static final Logger logger = LoggerFactory.getLogger(CategoryController.class);
 
     private final CategoryService categoryService;
-    private final CategoryMapper categoryMapper;
+    private final CatalogGenerationService catalogGenerationService;
+    private final ProductService productService;
+    private final ProductMapperV2 productMapper;
 
     @Autowired
-    public CategoryController(CategoryService categoryService, CategoryMapper categoryMapper) {
+    public CategoryController(CategoryService categoryService, CatalogGenerationService catalogGenerationService,
+                              ProductService productService, ProductMapperV2 productMapper) {
         this.categoryService = categoryService;
-        this.categoryMapper = categoryMapper;
+        this.catalogGenerationService = catalogGenerationService;
+        this.productService = productService;
+        this.productMapper = productMapper;
     }
 
     @GetMapping
     @Operation(summary = "Busca todas as categorias",
-            description = "Retorna uma lista paginada de todas as categorias com seus produtos associados")
+            description = "Retorna uma lista paginada de todas as categorias com seus produtos associados. " +
+                    "O parâmetro count define como o total é obtido: exact, window, estimated ou none. " +
+                    "A resposta traz um ETag fraco da geração do catálogo; com If-None-Match correspondente retorna 304")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
                     description = "Lista de categorias retornada com sucesso",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = Page.class)))
     })
-    public Page<CategoryResponseDTO> getAllCategories(
+    public Slice<CategoryResponseDTO> getAllCategories(
             @Parameter(description = "Número da página (começando em 0)", example = "0") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Quantidade de itens por página", example = "20") @RequestParam(defaultValue = "20") int size,
             @Parameter(description = "Campo para ordenação", example = "id") @RequestParam(defaultValue = "id") String sortBy,
-            @Parameter(description = "Direção da ordenação (asc ou desc)", example = "asc") @RequestParam(defaultValue = "asc") String sortDir) {
+            @Parameter(description = "Direção da ordenação (asc ou desc)", example = "asc") @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Modo de contagem do total (exact, window, estimated ou none)", example = "exact") @RequestParam(defaultValue = "exact") String count,
+            WebRequest webRequest) {
+
+        logger.info("Fetching categories - page: {}, size: {}, sortBy: {}, sortDir: {}, count: {}", page, size, sortBy, sortDir, count);
 
-        logger.info("Fetching categories - page: {}, size: {}, sortBy: {}, sortDir: {}", page, size, sortBy, sortDir);
+        String eTag = catalogGenerationService.listingETag();
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            logger.info("Categories not modified (ETag {})", eTag);
+            return null;
+        }
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ?
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
 
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<CategoryResponseDTO> result = categoryService.findAllWithProducts(pageable)
-                .map(categoryMapper::toDTO);
+        Slice<CategoryResponseDTO> result = categoryService.findAllSummaries(pageable, CountMode.fromParam(count));
+
+        logger.info("Found {} categories in page {}, hasNext: {}", result.getNumberOfElements(), result.getNumber(), result.hasNext());
+        return result;
+    }
+
+    @GetMapping("/tree")
+    @Operation(summary = "Árvore de categorias",
+            description = "Retorna a hierarquia completa (ou até maxDepth níveis abaixo das raízes) em uma única consulta, " +
+                    "com a contagem de produtos de cada categoria e de toda a sua subárvore. " +
+                    "A resposta traz um ETag fraco da geração do catálogo; com If-None-Match correspondente retorna 304")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Árvore retornada com sucesso"),
+            @ApiResponse(responseCode = "304",
+                    description = "Árvore não modificada")
+    })
+    public List<CategoryTreeDTO> getCategoryTree(
+            @Parameter(description = "Níveis abaixo das raízes (todos quando omitido)", example = "2")
+            @RequestParam(required = false) Integer maxDepth,
+            WebRequest webRequest) {
+        logger.info("Fetching category tree - maxDepth: {}", maxDepth);
+        checkMaxDepth(maxDepth);
+
+        String eTag = catalogGenerationService.listingETag();
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            logger.info("Category tree not modified (ETag {})", eTag);
+            return null;
+        }
+        return categoryService.findTree(maxDepth);
+    }
+
+    @GetMapping("/{id}/subtree")
+    @Operation(summary = "Subárvore de uma categoria",
+            description = "Retorna a categoria com todas as suas subcategorias (ou até maxDepth níveis abaixo dela), " +
+                    "em uma única consulta por intervalo do caminho materializado")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Subárvore retornada com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CategoryTreeDTO.class))),
+            @ApiResponse(responseCode = "404",
+                    description = "Categoria não encontrada")
+    })
+    public ResponseEntity<?> getCategorySubtree(
+            @Parameter(description = "ID da categoria raiz da subárvore", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Níveis abaixo da categoria (todos quando omitido)", example = "2")
+            @RequestParam(required = false) Integer maxDepth) {
+        logger.info("Fetching subtree of category {} - maxDepth: {}", id, maxDepth);
+        checkMaxDepth(maxDepth);
+
+        Optional<CategoryTreeDTO> subtree = categoryService.findSubtree(id, maxDepth);
+        if (subtree.isEmpty()) {
+            logger.warn("Category not found for subtree with id: {}", id);
+            ErrorResponse error = new ErrorResponse(404, "Not Found", "Categoria não encontrada", "/api/categories/" + id + "/subtree");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        return ResponseEntity.ok(subtree.get());
+    }
+
+    @GetMapping("/{id}/products")
+    @Operation(summary = "Produtos de uma categoria",
+            description = "Lista os produtos da categoria por cursor (keyset): envie o nextCursor da resposta em after para " +
+                    "obter a página seguinte. Filtro opcional por status. Ordenação por id (servida na ordem de " +
+                    "idx_products_category_id / idx_products_status_category), name ou price. Retorna apenas as linhas " +
+                    "dos produtos, sem carregar a categoria; uma categoria inexistente resulta em página vazia.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Produtos retornados com sucesso"),
+            @ApiResponse(responseCode = "400",
+                    description = "Cursor, ordenação ou tamanho de página inválidos")
+    })
+    public KeysetPageResponse<ProductResponseDTOV2> getCategoryProducts(
+            @Parameter(description = "ID da categoria", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Filtrar por status (ativo/inativo)") @RequestParam(required = false) Boolean status,
+            @Parameter(description = "Cursor retornado em nextCursor pela página anterior") @RequestParam(required = false) String after,
+            @Parameter(description = "Tamanho da página", example = "20") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Campo para ordenação (id, name ou price)", example = "id") @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Direção da ordenação (asc ou desc)", example = "asc") @RequestParam(defaultValue = "asc") String sortDir) {
+        logger.info("Fetching products of category {} - status: {}, size: {}, sortBy: {}, sortDir: {}", id, status, size, sortBy, sortDir);
+
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        ProductFilter filter = new ProductFilter(status, List.of(id), null, null, null, null);
 
-        logger.info("Found {} categories in page {} of {}", result.getNumberOfElements(), result.getNumber(), result.getTotalPages());
+        KeysetPageResponse<ProductResponseDTOV2> result = productService
+                .findReadModelsAfter(filter, sortBy, direction, after, size)
+                .map(productMapper::toDTO);
+
+        logger.info("Found {} products of category {}, hasNext: {}", result.content().size(), id, result.hasNext());
         return result;
     }
 
+    @GetMapping("/{id}/subtree/products")
+    @Operation(summary = "Produtos de uma subárvore",
+            description = "Lista paginada dos produtos da categoria e de todas as suas subcategorias, em uma única consulta. " +
+                    "Ordenação por id, name, price ou code. Uma categoria inexistente resulta em página vazia.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Produtos retornados com sucesso"),
+            @ApiResponse(responseCode = "400",
+                    description = "Parâmetros de paginação ou ordenação inválidos")
+    })
+    public Slice<ProductResponseDTOV2> getSubtreeProducts(
+            @Parameter(description = "ID da categoria raiz da subárvore", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Número da página (começando em 0)", example = "0") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Quantidade de itens por página", example = "20") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Campo para ordenação", example = "id") @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Direção da ordenação (asc ou desc)", example = "asc") @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Modo de contagem do total (exact, window, estimated ou none)", example = "none") @RequestParam(defaultValue = "none") String count) {
+        logger.info("Fetching products of category subtree {} - page: {}, size: {}, sortBy: {}", id, page, size, sortBy);
+
+        Sort sort = sortDir.equalsIgnoreCase("desc") ?
+                Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        Pageable pageable = PageRequest.of(page, size, sort);
+
+        return productService.findReadModelsInSubtree(id, pageable, CountMode.fromParam(count)).map(productMapper::toDTO);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Busca categoria por ID",
-            description = "Retorna uma categoria específica com todos os produtos associados")
+            description = "Retorna uma categoria específica com todos os produtos associados. " +
+                    "A resposta traz um ETag forte; com If-None-Match correspondente retorna 304")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
                     description = "Categoria encontrada",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = CategoryResponseDTO.class))),
+            @ApiResponse(responseCode = "304",
+                    description = "Categoria não modificada"),
             @ApiResponse(responseCode = "404",
                     description = "Categoria não encontrada")
     })
     public ResponseEntity<?> getCategoryById(
             @Parameter(description = "ID da categoria", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest webRequest) {
         logger.info("Fetching category by id: {}", id);
 
-        Optional<Category> categoryOpt = categoryService.findByIdWithProducts(id);
+        Optional<CategoryResponseDTO> categoryOpt = categoryService.findSummaryById(id);
         if (categoryOpt.isPresent()) {
-            Category category = categoryOpt.get();
+            CategoryResponseDTO category = categoryOpt.get();
+            if (category.eTag() != null && webRequest.checkNotModified(category.eTag())) {
+                logger.info("Category {} not modified", id);
+                return null;
+            }
             logger.info("Category found: {}", category.getName());
-            return ResponseEntity.ok(categoryMapper.toDTO(category));
+            return ResponseEntity.ok(category);
         } else {
             logger.warn("Category not found with id: {}", id);
             ErrorResponse error = new ErrorResponse(404, "Not Found", "Categoria não encontrada", "/api/categories/" + id);
@@ -130,7 +279,10 @@ public class CategoryController {
 
     @PutMapping("/{id}")
     @Operation(summary = "Atualiza uma categoria",
-            description = "Atualiza todos os dados de uma categoria existente. Apenas administradores podem atualizar categorias.",
+            description = "Atualiza todos os dados de uma categoria existente. Com If-Match, só atualiza se a categoria " +
+                    "ainda estiver na versão do ETag informado; caso contrário retorna 412. Sem parentId no corpo a " +
+                    "categoria mantém o pai atual; parentId null a move para a raiz. A resposta traz o novo ETag. " +
+                    "Apenas administradores podem atualizar categorias.",
             security = @SecurityRequirement(name = "bearerAuth"))
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
@@ -139,24 +291,25 @@ public class CategoryController {
                             schema = @Schema(implementation = Category.class))),
             @ApiResponse(responseCode = "404",
                     description = "Categoria não encontrada"),
+            @ApiResponse(responseCode = "412",
+                    description = "If-Match não corresponde à versão atual da categoria"),
             @ApiResponse(responseCode = "400",
                     description = "Dados inválidos fornecidos")
     })
     public ResponseEntity<?> updateCategory(
             @Parameter(description = "ID da categoria", required = true, example = "1")
             @PathVariable Long id,
+            @Parameter(description = "ETag obtido na leitura da categoria")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Parameter(description = "Novos dados da categoria", required = true)
             @Valid @RequestBody Category category) {
         logger.info("Updating category with id: {}", id);
 
-        Optional<Category> categoryOpt = categoryService.findById(id);
-        if (categoryOpt.isPresent()) {
-            Category existingCategory = categoryOpt.get();
-            existingCategory.setName(category.getName());
-            existingCategory.setDescription(category.getDescription());
-            Category updatedCategory = categoryService.save(existingCategory);
-            logger.info("Category updated successfully: {}", updatedCategory.getName());
-            return ResponseEntity.ok(updatedCategory);
+        // One conditional UPDATE; a stale If-Match surfaces as PreconditionFailedException (412)
+        Optional<Category> updated = categoryService.update(id, category, ETags.ifMatchVersions(ifMatch));
+        if (updated.isPresent()) {
+            logger.info("Category updated successfully: {}", updated.get().getName());
+            return ResponseEntity.ok().eTag(updated.get().eTag()).body(updated.get());
         } else {
             logger.warn("Category not found for update with id: {}", id);
             ErrorResponse error = new ErrorResponse(404, "Not Found", "Categoria não encontrada", "/api/categories/" + id);
@@ -166,24 +319,28 @@ public class CategoryController {
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Deleta uma categoria",
-            description = "Remove uma categoria do sistema. Apenas administradores podem deletar categorias.",
+            description = "Remove uma categoria do sistema. Com If-Match, só remove se a categoria ainda estiver na versão " +
+                    "do ETag informado; caso contrário retorna 412. Apenas administradores podem deletar categorias.",
             security = @SecurityRequirement(name = "bearerAuth"))
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204",
                     description = "Categoria deletada com sucesso"),
             @ApiResponse(responseCode = "404",
-                    description = "Categoria não encontrada")
+                    description = "Categoria não encontrada"),
+            @ApiResponse(responseCode = "400",
+                    description = "Categoria possui produtos ou subcategorias"),
+            @ApiResponse(responseCode = "412",
+                    description = "If-Match não corresponde à versão atual da categoria")
     })
     public ResponseEntity<?> deleteCategory(
             @Parameter(description = "ID da categoria", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "ETag obtido na leitura da categoria")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Deleting category with id: {}", id);
 
-        Optional<Category> categoryOpt = categoryService.findById(id);
-        if (categoryOpt.isPresent()) {
-            Category category = categoryOpt.get();
-            categoryService.deleteById(id);
-            logger.info("Category deleted successfully: {}", category.getName());
+        if (categoryService.deleteById(id, ETags.ifMatchVersions(ifMatch))) {
+            logger.info("Category deleted successfully: {}", id);
             SuccessResponseDTO response = new SuccessResponseDTO("Categoria deletada com sucesso");
             return ResponseEntity.ok(response);
         } else {
@@ -192,4 +349,10 @@ public class CategoryController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
         }
     }
-}
\ No newline at end of file
+
+    private void checkMaxDepth(Integer maxDepth) {
+        if (maxDepth != null && maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth deve ser maior ou igual a zero");
+        }
+    }
+}
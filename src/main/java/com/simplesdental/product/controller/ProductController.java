@@ -2,11 +2,16 @@ package com.simplesdental.product.controller;
 
 import com.simplesdental.product.dto.ErrorResponse;
 import com.simplesdental.product.dto.ProductCreateRequest;
+import com.simplesdental.product.dto.ProductReadModel;
 import com.simplesdental.product.dto.ProductResponseDTO;
 import com.simplesdental.product.dto.SuccessResponseDTO;
 import com.simplesdental.product.mapper.ProductMapper;
 import com.simplesdental.product.model.Product;
+import com.simplesdental.product.repository.CountMode;
+import com.simplesdental.product.service.CatalogGenerationService;
+import com.simplesdental.product.service.ListingResponseCache;
 import com.simplesdental.product.service.ProductService;
+import com.simplesdental.product.util.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,7 +20,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,10 +30,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/products")
@@ -37,17 +47,26 @@ public class ProductController {
 
     private final ProductService productService;
     private final ProductMapper productMapper;
+    private final CatalogGenerationService catalogGenerationService;
+    private final ListingResponseCache listingResponseCache;
 
     @Autowired
-    public ProductController(ProductService productService, ProductMapper productMapper) {
+    public ProductController(ProductService productService, ProductMapper productMapper,
+                             CatalogGenerationService catalogGenerationService,
+                             ListingResponseCache listingResponseCache) {
         this.productService = productService;
         this.productMapper = productMapper;
+        this.catalogGenerationService = catalogGenerationService;
+        this.listingResponseCache = listingResponseCache;
     }
 
     @GetMapping
     @Operation(
             summary = "Listar todos os produtos V1",
-            description = "Retorna uma lista paginada de produtos com códigos no formato PROD-XXX"
+            description = "Retorna uma lista paginada de produtos com códigos no formato PROD-XXX. " +
+                    "O parâmetro count define como o total é obtido: exact (COUNT separado), window (mesma consulta), " +
+                    "estimated (estimativa do planner) ou none (sem total, apenas indicador de próxima página). " +
+                    "A resposta traz um ETag fraco da geração do catálogo; com If-None-Match correspondente retorna 304"
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -56,30 +75,101 @@ public class ProductController {
                     content = @Content(schema = @Schema(implementation = Page.class))
             )
     })
-    public Page<ProductResponseDTO> getAllProducts(
+    public Slice<ProductResponseDTO> getAllProducts(
             @Parameter(description = "Número da página (começando em 0)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "20") int size,
             @Parameter(description = "Campo para ordenação") @RequestParam(defaultValue = "id") String sortBy,
-            @Parameter(description = "Direção da ordenação (asc/desc)") @RequestParam(defaultValue = "asc") String sortDir) {
+            @Parameter(description = "Direção da ordenação (asc/desc)") @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Modo de contagem do total (exact/window/estimated/none)") @RequestParam(defaultValue = "exact") String count,
+            WebRequest webRequest,
+            HttpServletResponse response) throws IOException {
 
-        logger.info("Fetching products - page: {}, size: {}, sortBy: {}, sortDir: {}", page, size, sortBy, sortDir);
+        logger.info("Fetching products - page: {}, size: {}, sortBy: {}, sortDir: {}, count: {}", page, size, sortBy, sortDir, count);
+
+        String eTag = catalogGenerationService.listingETag();
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            logger.info("Products not modified (ETag {})", eTag);
+            return null;
+        }
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ?
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
 
         Pageable pageable = PageRequest.of(page, size, sort);
+        CountMode countMode = CountMode.fromParam(count);
+
+        String cacheKey = listingResponseCache.key("v1", eTag, pageable, countMode);
+        if (cacheKey != null) {
+            byte[] body = listingResponseCache.get(cacheKey, () -> productService.findAllReadModels(pageable, countMode)
+                    .map(productMapper::toDTO));
+            listingResponseCache.write(body, response);
+            logger.info("Served products page {} from listing cache ({} bytes)", page, body.length);
+            return null;
+        }
 
-        Page<ProductResponseDTO> result = productService.findAllWithCategory(pageable)
+        Slice<ProductResponseDTO> result = productService.findAllReadModels(pageable, countMode)
                 .map(productMapper::toDTO);
 
-        logger.info("Found {} products in page {} of {}", result.getNumberOfElements(), result.getNumber(), result.getTotalPages());
+        logger.info("Found {} products in page {}, hasNext: {}", result.getNumberOfElements(), result.getNumber(), result.hasNext());
         return result;
     }
 
+    @GetMapping("/by-code/{code}")
+    @Operation(
+            summary = "Buscar produto por código V1",
+            description = "Retorna o produto com o código informado no formato PROD-XXX. " +
+                    "Códigos inexistentes são respondidos sem consulta ao banco. " +
+                    "A resposta traz um ETag forte; com If-None-Match correspondente retorna 304"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Produto encontrado",
+                    content = @Content(schema = @Schema(implementation = ProductResponseDTO.class))
+            ),
+            @ApiResponse(responseCode = "304", description = "Produto não modificado"),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Produto não encontrado",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Código fora do formato PROD-XXX",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<?> getProductByCode(
+            @Parameter(description = "Código do produto no formato PROD-XXX", example = "PROD-001") @PathVariable String code,
+            WebRequest webRequest) {
+        logger.debug("Fetching product by code: {}", code);
+        Integer parsedCode = parseCodeFromV1(code);
+        if (parsedCode == null) {
+            throw new IllegalArgumentException("Informe o código do produto");
+        }
+
+        Optional<ProductReadModel> productOpt = productService.findReadModelByCode(parsedCode);
+        if (productOpt.isPresent()) {
+            ProductReadModel product = productOpt.get();
+            if (product.eTag() != null && webRequest.checkNotModified(product.eTag())) {
+                logger.info("Product with code {} not modified", code);
+                return null;
+            }
+            logger.info("Product found: {}", product.name());
+            return ResponseEntity.ok(productMapper.toDTO(product));
+        } else {
+            // Unknown codes are the bulk of integration traffic; keep them out of the default log level
+            logger.debug("Product not found with code: {}", code);
+            ErrorResponse error = new ErrorResponse(404, "Not Found", "Produto não encontrado", "/api/products/by-code/" + code);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+    }
+
     @GetMapping("/{id}")
     @Operation(
             summary = "Buscar produto por ID V1",
-            description = "Retorna um produto específico por ID com código no formato PROD-XXX"
+            description = "Retorna um produto específico por ID com código no formato PROD-XXX. " +
+                    "A resposta traz um ETag forte; com If-None-Match correspondente retorna 304"
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -87,6 +177,7 @@ public class ProductController {
                     description = "Produto encontrado",
                     content = @Content(schema = @Schema(implementation = ProductResponseDTO.class))
             ),
+            @ApiResponse(responseCode = "304", description = "Produto não modificado"),
             @ApiResponse(
                     responseCode = "404",
                     description = "Produto não encontrado",
@@ -94,13 +185,18 @@ public class ProductController {
             )
     })
     public ResponseEntity<?> getProductById(
-            @Parameter(description = "ID do produto") @PathVariable Long id) {
+            @Parameter(description = "ID do produto") @PathVariable Long id,
+            WebRequest webRequest) {
         logger.info("Fetching product by id: {}", id);
 
-        Optional<Product> productOpt = productService.findByIdWithCategory(id);
+        Optional<ProductReadModel> productOpt = productService.findReadModelById(id);
         if (productOpt.isPresent()) {
-            Product product = productOpt.get();
-            logger.info("Product found: {}", product.getName());
+            ProductReadModel product = productOpt.get();
+            if (product.eTag() != null && webRequest.checkNotModified(product.eTag())) {
+                logger.info("Product {} not modified", id);
+                return null;
+            }
+            logger.info("Product found: {}", product.name());
             return ResponseEntity.ok(productMapper.toDTO(product));
         } else {
             logger.warn("Product not found with id: {}", id);
@@ -152,7 +248,9 @@ public class ProductController {
     @PutMapping("/{id}")
     @Operation(
             summary = "Atualizar produto V1",
-            description = "Atualiza um produto existente com código no formato PROD-XXX. Apenas administradores podem atualizar produtos.",
+            description = "Atualiza um produto existente com código no formato PROD-XXX. Com If-Match, só atualiza se o produto " +
+                    "ainda estiver na versão do ETag informado; caso contrário retorna 412. Sem code no corpo o produto " +
+                    "mantém o código atual. A resposta traz o novo ETag. Apenas administradores podem atualizar produtos.",
             security = @SecurityRequirement(name = "bearerAuth")
     )
     @ApiResponses(value = {
@@ -166,6 +264,11 @@ public class ProductController {
                     description = "Produto não encontrado",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match não corresponde à versão atual do produto",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
             @ApiResponse(
                     responseCode = "400",
                     description = "Dados de entrada inválidos",
@@ -174,22 +277,17 @@ public class ProductController {
     })
     public ResponseEntity<?> updateProduct(
             @Parameter(description = "ID do produto") @PathVariable Long id,
+            @Parameter(description = "ETag obtido na leitura do produto; a alteração só é aplicada se ainda for a versão atual")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody ProductCreateRequest request) {
         logger.info("Updating product with id: {}", id);
 
-        Optional<Product> productOpt = productService.findById(id);
-        if (productOpt.isPresent()) {
-            Product existingProduct = productOpt.get();
-            existingProduct.setName(request.getName());
-            existingProduct.setDescription(request.getDescription());
-            existingProduct.setPrice(request.getPrice());
-            existingProduct.setStatus(request.getStatus());
-            existingProduct.setCode(parseCodeFromV1(request.getCode()));
-            existingProduct.setCategory(request.getCategory());
-
-            Product updatedProduct = productService.save(existingProduct);
-            logger.info("Product updated successfully: {}", updatedProduct.getName());
-            return ResponseEntity.ok(productMapper.toDTO(updatedProduct));
+        // One conditional UPDATE, as in V2; a stale If-Match surfaces as PreconditionFailedException (412)
+        Optional<ProductReadModel> updated = productService.patch(id,
+                productMapper.toPatch(request, parseCodeFromV1(request.getCode())), ETags.ifMatchVersions(ifMatch));
+        if (updated.isPresent()) {
+            logger.info("Product updated successfully: {}", updated.get().name());
+            return ResponseEntity.ok().eTag(updated.get().eTag()).body(productMapper.toDTO(updated.get()));
         } else {
             logger.warn("Product not found for update with id: {}", id);
             ErrorResponse error = new ErrorResponse(404, "Not Found", "Produto não encontrado", "/api/products/" + id);
@@ -200,7 +298,8 @@ public class ProductController {
     @DeleteMapping("/{id}")
     @Operation(
             summary = "Excluir produto V1",
-            description = "Remove um produto do sistema. Apenas administradores podem excluir produtos.",
+            description = "Remove um produto do sistema. Com If-Match, só remove se o produto ainda estiver na versão " +
+                    "do ETag informado; caso contrário retorna 412. Apenas administradores podem excluir produtos.",
             security = @SecurityRequirement(name = "bearerAuth")
     )
     @ApiResponses(value = {
@@ -212,17 +311,21 @@ public class ProductController {
                     responseCode = "404",
                     description = "Produto não encontrado",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match não corresponde à versão atual do produto",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             )
     })
     public ResponseEntity<?> deleteProduct(
-            @Parameter(description = "ID do produto") @PathVariable Long id) {
+            @Parameter(description = "ID do produto") @PathVariable Long id,
+            @Parameter(description = "ETag obtido na leitura do produto; a alteração só é aplicada se ainda for a versão atual")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Deleting product with id: {}", id);
 
-        Optional<Product> productOpt = productService.findById(id);
-        if (productOpt.isPresent()) {
-            Product product = productOpt.get();
-            productService.deleteById(id);
-            logger.info("Product deleted successfully: {}", product.getName());
+        if (productService.deleteById(id, ETags.ifMatchVersions(ifMatch))) {
+            logger.info("Product deleted successfully: {}", id);
             SuccessResponseDTO response = new SuccessResponseDTO("Produto deletado com sucesso");
             return ResponseEntity.ok(response);
         } else {
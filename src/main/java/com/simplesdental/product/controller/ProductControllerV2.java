@@ -1,12 +1,32 @@
 package com.simplesdental.product.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.simplesdental.product.dto.ErrorResponse;
+import com.simplesdental.product.dto.KeysetPageResponse;
+import com.simplesdental.product.dto.ProductFacetsDTO;
+import com.simplesdental.product.dto.ProductBatchRequestDTO;
+import com.simplesdental.product.dto.ProductBatchResponseDTOV2;
+import com.simplesdental.product.dto.ProductBulkResponseDTO;
 import com.simplesdental.product.dto.ProductCreateRequestV2;
+import com.simplesdental.product.dto.ProductDeleteResponseDTO;
+import com.simplesdental.product.dto.ProductImportStatusDTO;
+import com.simplesdental.product.dto.ProductReadModel;
 import com.simplesdental.product.dto.ProductResponseDTOV2;
+import com.simplesdental.product.dto.ProductSuggestionDTO;
 import com.simplesdental.product.dto.SuccessResponseDTO;
 import com.simplesdental.product.mapper.ProductMapperV2;
 import com.simplesdental.product.model.Product;
+import com.simplesdental.product.repository.CountMode;
+import com.simplesdental.product.repository.ProductFilter;
+import com.simplesdental.product.service.CatalogGenerationService;
+import com.simplesdental.product.service.ProductBulkService;
+import com.simplesdental.product.service.ListingResponseCache;
+import com.simplesdental.product.service.ProductExportService;
+import com.simplesdental.product.service.ProductFacetService;
+import com.simplesdental.product.service.ProductImportService;
 import com.simplesdental.product.service.ProductService;
+import com.simplesdental.product.service.ProductSuggestService;
+import com.simplesdental.product.util.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,18 +35,34 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/v2/products")
@@ -35,51 +71,376 @@ public class ProductControllerV2 {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductControllerV2.class);
 
+    private static final int MAX_BATCH_GET_IDS = 100;
+    private static final int MAX_BATCH_LOOKUP_IDS = 1000;
+
     private final ProductService productService;
     private final ProductMapperV2 productMapper;
+    private final ProductExportService productExportService;
+    private final CatalogGenerationService catalogGenerationService;
+    private final ListingResponseCache listingResponseCache;
+    private final ProductFacetService productFacetService;
+    private final ProductSuggestService productSuggestService;
+    private final ProductBulkService productBulkService;
+    private final ProductImportService productImportService;
 
     @Autowired
-    public ProductControllerV2(ProductService productService, ProductMapperV2 productMapper) {
+    public ProductControllerV2(ProductService productService, ProductMapperV2 productMapper,
+                               ProductExportService productExportService,
+                               CatalogGenerationService catalogGenerationService,
+                               ListingResponseCache listingResponseCache,
+                               ProductFacetService productFacetService,
+                               ProductSuggestService productSuggestService,
+                               ProductBulkService productBulkService,
+                               ProductImportService productImportService) {
         this.productService = productService;
         this.productMapper = productMapper;
+        this.productExportService = productExportService;
+        this.catalogGenerationService = catalogGenerationService;
+        this.listingResponseCache = listingResponseCache;
+        this.productFacetService = productFacetService;
+        this.productSuggestService = productSuggestService;
+        this.productBulkService = productBulkService;
+        this.productImportService = productImportService;
     }
 
     @GetMapping
     @Operation(
             summary = "Listar todos os produtos V2",
-            description = "Retorna uma lista paginada de produtos com códigos inteiros"
+            description = "Retorna uma lista paginada de produtos com códigos inteiros. Com pagination=keyset (ou informando after), " +
+                    "a paginação é feita por cursor: o custo de qualquer página é o mesmo da primeira e a resposta traz nextCursor em vez de totalPages. " +
+                    "No modo keyset, sortBy aceita id, name ou price. No modo offset, o parâmetro count define como o total é obtido: " +
+                    "exact, window, estimated ou none. Filtros opcionais (status, categoryIds, minPrice/maxPrice, minCode/maxCode) " +
+                    "são combinados com E; com filtros, sortBy aceita apenas id, name, price ou code. " +
+                    "A resposta traz um ETag fraco da geração do catálogo; com If-None-Match correspondente retorna 304."
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Lista de produtos retornada com sucesso",
                     content = @Content(schema = @Schema(implementation = Page.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Cursor inválido, filtro inválido ou ordenação não suportada",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             )
     })
-    public Page<ProductResponseDTOV2> getAllProducts(
+    public ResponseEntity<?> getAllProducts(
             @Parameter(description = "Número da página (começando em 0)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "20") int size,
             @Parameter(description = "Campo para ordenação") @RequestParam(defaultValue = "id") String sortBy,
-            @Parameter(description = "Direção da ordenação (asc/desc)") @RequestParam(defaultValue = "asc") String sortDir) {
+            @Parameter(description = "Direção da ordenação (asc/desc)") @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Modo de paginação (offset/keyset)") @RequestParam(defaultValue = "offset") String pagination,
+            @Parameter(description = "Cursor retornado em nextCursor pela página anterior (modo keyset)") @RequestParam(required = false) String after,
+            @Parameter(description = "Modo de contagem do total no modo offset (exact/window/estimated/none)") @RequestParam(defaultValue = "exact") String count,
+            @Parameter(description = "Filtrar por status ativo/inativo") @RequestParam(required = false) Boolean status,
+            @Parameter(description = "Filtrar por IDs de categoria (separados por vírgula)") @RequestParam(required = false) List<Long> categoryIds,
+            @Parameter(description = "Preço mínimo (inclusive)") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Preço máximo (inclusive)") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Código mínimo (inclusive)") @RequestParam(required = false) Integer minCode,
+            @Parameter(description = "Código máximo (inclusive)") @RequestParam(required = false) Integer maxCode,
+            WebRequest webRequest,
+            HttpServletResponse response) throws IOException {
+
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        ProductFilter filter = new ProductFilter(status, categoryIds, minPrice, maxPrice, minCode, maxCode);
+
+        String eTag = catalogGenerationService.listingETag();
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            logger.info("Product V2 - Products not modified (ETag {})", eTag);
+            return null;
+        }
+
+        if (after != null || pagination.equalsIgnoreCase("keyset")) {
+            logger.info("Product V2 - Fetching products by cursor - size: {}, sortBy: {}, sortDir: {}, filter: {}", size, sortBy, sortDir, filter);
+
+            KeysetPageResponse<ProductResponseDTOV2> result = productService
+                    .findReadModelsAfter(filter, sortBy, direction, after, size)
+                    .map(productMapper::toDTO);
+
+            logger.info("Product V2 - Found {} products by cursor, hasNext: {}", result.content().size(), result.hasNext());
+            return ResponseEntity.ok(result);
+        }
+
+        logger.info("Product V2 - Fetching products - page: {}, size: {}, sortBy: {}, sortDir: {}, count: {}, filter: {}", page, size, sortBy, sortDir, count, filter);
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+        CountMode countMode = CountMode.fromParam(count);
+
+        // Only the unfiltered pages are hot enough to be worth keeping encoded
+        String cacheKey = filter.isEmpty() ? listingResponseCache.key("v2", eTag, pageable, countMode) : null;
+        if (cacheKey != null) {
+            byte[] body = listingResponseCache.get(cacheKey, () -> productService.findReadModels(filter, pageable, countMode)
+                    .map(productMapper::toDTO));
+            listingResponseCache.write(body, response);
+            logger.info("Product V2 - Served products page {} from listing cache ({} bytes)", page, body.length);
+            return null;
+        }
+
+        Slice<ProductResponseDTOV2> result = productService.findReadModels(filter, pageable, countMode)
+                .map(productMapper::toDTO);
+
+        logger.info("Product V2 - Found {} products in page {}, hasNext: {}", result.getNumberOfElements(), result.getNumber(), result.hasNext());
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/search")
+    @Operation(
+            summary = "Buscar produtos por texto V2",
+            description = "Busca textual em nome e descrição (português, com radicalização), ordenada por relevância. " +
+                    "Aceita a sintaxe de busca web: aspas para frases, OR e - para excluir termos. " +
+                    "Filtros opcionais por categoria e status. Por padrão não calcula o total (count=none)."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Resultados da busca",
+                    content = @Content(schema = @Schema(implementation = Page.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Termo de busca ausente ou longo demais",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public Slice<ProductResponseDTOV2> searchProducts(
+            @Parameter(description = "Termo de busca", example = "notebook i7") @RequestParam String q,
+            @Parameter(description = "Filtrar por ID da categoria") @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "Filtrar por status ativo/inativo") @RequestParam(required = false) Boolean status,
+            @Parameter(description = "Número da página (começando em 0)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Modo de contagem do total (exact/window/estimated/none)") @RequestParam(defaultValue = "none") String count,
+            WebRequest webRequest) {
 
-        logger.info("Product V2 - Fetching products - page: {}, size: {}, sortBy: {}, sortDir: {}", page, size, sortBy, sortDir);
+        logger.info("Product V2 - Searching products - q: {}, categoryId: {}, status: {}, page: {}, size: {}", q, categoryId, status, page, size);
 
-        Sort sort = sortDir.equalsIgnoreCase("desc") ?
-                Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        String eTag = catalogGenerationService.listingETag();
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            logger.info("Product V2 - Search not modified (ETag {})", eTag);
+            return null;
+        }
 
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "relevance").and(Sort.by("id")));
 
-        Page<ProductResponseDTOV2> result = productService.findAllWithCategory(pageable)
+        Slice<ProductResponseDTOV2> result = productService.search(q, categoryId, status, pageable, CountMode.fromParam(count))
                 .map(productMapper::toDTO);
 
-        logger.info("Product V2 - Found {} products in page {} of {}", result.getNumberOfElements(), result.getNumber(), result.getTotalPages());
+        logger.info("Product V2 - Search returned {} products in page {}, hasNext: {}", result.getNumberOfElements(), result.getNumber(), result.hasNext());
         return result;
     }
 
+    @GetMapping("/suggest")
+    @Operation(
+            summary = "Sugerir produtos pelo nome V2",
+            description = "Autocompletar: retorna produtos cujo nome contém o prefixo (sem diferenciar maiúsculas), " +
+                    "primeiro os que começam com ele e depois por similaridade. Prefixos curtos são servidos de cache."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Sugestões retornadas com sucesso"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Prefixo ausente ou longo demais, ou limite inválido",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public List<ProductSuggestionDTO> suggestProducts(
+            @Parameter(description = "Início do nome digitado", example = "note") @RequestParam String prefix,
+            @Parameter(description = "Quantidade máxima de sugestões (até 20)") @RequestParam(defaultValue = "10") int limit) {
+        logger.debug("Product V2 - Suggesting products - prefix: {}, limit: {}", prefix, limit);
+        return productSuggestService.suggest(prefix, limit);
+    }
+
+    @GetMapping("/facets")
+    @Operation(
+            summary = "Contagens por categoria, status e faixa de preço V2",
+            description = "Retorna, para os mesmos filtros da listagem, o total de produtos e as contagens por categoria, " +
+                    "por status e por faixa de preço, calculadas em uma única consulta. As faixas são definidas por priceBuckets " +
+                    "(limites crescentes separados por vírgula; n limites geram n + 1 faixas). " +
+                    "O resultado fica em cache até a próxima alteração no catálogo e traz o mesmo ETag fraco da listagem."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Contagens calculadas com sucesso",
+                    content = @Content(schema = @Schema(implementation = ProductFacetsDTO.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Filtro ou faixas de preço inválidos",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ProductFacetsDTO getProductFacets(
+            @Parameter(description = "Filtrar por status ativo/inativo") @RequestParam(required = false) Boolean status,
+            @Parameter(description = "Filtrar por IDs de categoria (separados por vírgula)") @RequestParam(required = false) List<Long> categoryIds,
+            @Parameter(description = "Preço mínimo (inclusive)") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Preço máximo (inclusive)") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Código mínimo (inclusive)") @RequestParam(required = false) Integer minCode,
+            @Parameter(description = "Código máximo (inclusive)") @RequestParam(required = false) Integer maxCode,
+            @Parameter(description = "Limites das faixas de preço, em ordem crescente", example = "100,500,1000") @RequestParam(required = false) List<BigDecimal> priceBuckets,
+            WebRequest webRequest) {
+
+        ProductFilter filter = new ProductFilter(status, categoryIds, minPrice, maxPrice, minCode, maxCode);
+        logger.info("Product V2 - Fetching facets - filter: {}, priceBuckets: {}", filter, priceBuckets);
+
+        String eTag = catalogGenerationService.listingETag();
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            logger.info("Product V2 - Facets not modified (ETag {})", eTag);
+            return null;
+        }
+
+        ProductFacetsDTO facets = productFacetService.facets(filter, priceBuckets);
+
+        logger.info("Product V2 - Facets computed - total: {}, categories: {}", facets.total(), facets.categories().size());
+        return facets;
+    }
+
+    @GetMapping("/export")
+    @Operation(
+            summary = "Exportar catálogo completo V2",
+            description = "Transmite todos os produtos (com nome da categoria), ordenados por ID, em NDJSON (uma linha JSON por produto) " +
+                    "ou CSV. A resposta é enviada à medida que as linhas são lidas do banco, sem paginação. " +
+                    "Com Accept-Encoding: gzip, a resposta é comprimida."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportação em andamento"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Formato inválido",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @Parameter(description = "Formato (ndjson/csv)") @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        ProductExportService.Format exportFormat = ProductExportService.Format.fromParam(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        logger.info("Product V2 - Exporting products - format: {}, gzip: {}", exportFormat, gzip);
+
+        StreamingResponseBody body = out -> {
+            try {
+                long rows;
+                if (gzip) {
+                    GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                    rows = productExportService.export(exportFormat, compressed);
+                    compressed.finish();
+                } else {
+                    rows = productExportService.export(exportFormat, out);
+                }
+                logger.info("Product V2 - Exported {} products", rows);
+            } catch (IOException e) {
+                // Client disconnected: the cursor is already closed, there is nobody left to answer
+                logger.info("Product V2 - Export aborted by client: {}", e.getMessage());
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + exportFormat.getExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(
+            summary = "Buscar produtos por lista de IDs V2",
+            description = "Retorna vários produtos em uma única requisição (ex.: ?ids=1,2,3), na ordem dos IDs solicitados. " +
+                    "IDs inexistentes são listados em missingIds. Máximo de " + MAX_BATCH_GET_IDS + " IDs; para listas maiores use POST /lookup."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Produtos encontrados",
+                    content = @Content(schema = @Schema(implementation = ProductBatchResponseDTOV2.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Lista de IDs vazia ou acima do limite",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ProductBatchResponseDTOV2 getProductsByIds(
+            @Parameter(description = "IDs dos produtos separados por vírgula") @RequestParam List<Long> ids) {
+        return findBatch(ids, MAX_BATCH_GET_IDS);
+    }
+
+    @PostMapping("/lookup")
+    @Operation(
+            summary = "Buscar produtos por lista de IDs (corpo da requisição) V2",
+            description = "Variante de GET ?ids= para listas longas. Retorna os produtos na ordem dos IDs e os IDs inexistentes em missingIds."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Produtos encontrados",
+                    content = @Content(schema = @Schema(implementation = ProductBatchResponseDTOV2.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Lista de IDs vazia ou acima do limite",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ProductBatchResponseDTOV2 lookupProducts(@Valid @RequestBody ProductBatchRequestDTO request) {
+        return findBatch(request.getIds(), MAX_BATCH_LOOKUP_IDS);
+    }
+
+    @GetMapping("/by-code/{code}")
+    @Operation(
+            summary = "Buscar produto por código V2",
+            description = "Retorna o produto com o código inteiro informado. " +
+                    "Códigos inexistentes são respondidos sem consulta ao banco. " +
+                    "A resposta traz um ETag forte; com If-None-Match correspondente retorna 304"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Produto encontrado",
+                    content = @Content(schema = @Schema(implementation = ProductResponseDTOV2.class))
+            ),
+            @ApiResponse(responseCode = "304", description = "Produto não modificado"),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Produto não encontrado",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<?> getProductByCode(
+            @Parameter(description = "Código do produto (inteiro)", example = "150") @PathVariable Integer code,
+            WebRequest webRequest) {
+        logger.debug("Product V2 - Fetching product by code: {}", code);
+
+        Optional<ProductReadModel> productOpt = productService.findReadModelByCode(code);
+        if (productOpt.isPresent()) {
+            ProductReadModel product = productOpt.get();
+            if (product.eTag() != null && webRequest.checkNotModified(product.eTag())) {
+                logger.info("Product V2 - Product with code {} not modified", code);
+                return null;
+            }
+            logger.info("Product V2 - Product found: {}", product.name());
+            return ResponseEntity.ok(productMapper.toDTO(product));
+        } else {
+            // Unknown codes are the bulk of integration traffic; keep them out of the default log level
+            logger.debug("Product V2 - Product not found with code: {}", code);
+            ErrorResponse error = new ErrorResponse(404, "Not Found", "Produto não encontrado", "/api/v2/products/by-code/" + code);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+    }
+
     @GetMapping("/{id}")
     @Operation(
             summary = "Buscar produto por ID V2",
-            description = "Retorna um produto específico por ID com código inteiro"
+            description = "Retorna um produto específico por ID com código inteiro. " +
+                    "A resposta traz um ETag forte; com If-None-Match correspondente retorna 304"
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -87,6 +448,7 @@ public class ProductControllerV2 {
                     description = "Produto encontrado",
                     content = @Content(schema = @Schema(implementation = ProductResponseDTOV2.class))
             ),
+            @ApiResponse(responseCode = "304", description = "Produto não modificado"),
             @ApiResponse(
                     responseCode = "404",
                     description = "Produto não encontrado",
@@ -94,13 +456,18 @@ public class ProductControllerV2 {
             )
     })
     public ResponseEntity<?> getProductById(
-            @Parameter(description = "ID do produto") @PathVariable Long id) {
+            @Parameter(description = "ID do produto") @PathVariable Long id,
+            WebRequest webRequest) {
         logger.info("Product V2 - Fetching product by id: {}", id);
 
-        Optional<Product> productOpt = productService.findByIdWithCategory(id);
+        Optional<ProductReadModel> productOpt = productService.findReadModelById(id);
         if (productOpt.isPresent()) {
-            Product product = productOpt.get();
-            logger.info("Product V2 - Product found: {}", product.getName());
+            ProductReadModel product = productOpt.get();
+            if (product.eTag() != null && webRequest.checkNotModified(product.eTag())) {
+                logger.info("Product V2 - Product {} not modified", id);
+                return null;
+            }
+            logger.info("Product V2 - Product found: {}", product.name());
             return ResponseEntity.ok(productMapper.toDTO(product));
         } else {
             logger.warn("Product V2 - Product not found with id: {}", id);
@@ -149,10 +516,110 @@ public class ProductControllerV2 {
         }
     }
 
+    @PostMapping("/bulk")
+    @Operation(
+            summary = "Criar ou atualizar produtos em lote V2",
+            description = "Recebe uma lista de produtos e faz upsert pelo código: códigos novos são criados, existentes são atualizados. " +
+                    "Todos os itens são validados antes de qualquer gravação; se algum for inválido, nada é gravado e a resposta " +
+                    "traz os erros de cada item. A gravação usa lotes JDBC em uma única transação. " +
+                    "Apenas administradores podem importar produtos.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Lote gravado; resultado por item",
+                    content = @Content(schema = @Schema(implementation = ProductBulkResponseDTO.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Lote vazio, grande demais ou com itens inválidos (nenhum item gravado)",
+                    content = @Content(schema = @Schema(implementation = ProductBulkResponseDTO.class))
+            )
+    })
+    public ResponseEntity<ProductBulkResponseDTO> bulkUpsertProducts(@RequestBody List<ProductCreateRequestV2> request) {
+        logger.info("Product V2 - Bulk upsert of {} products", request.size());
+
+        ProductBulkResponseDTO result = productBulkService.upsert(request);
+        if (result.invalid() > 0) {
+            return ResponseEntity.badRequest().body(result);
+        }
+
+        logger.info("Product V2 - Bulk upsert done - created: {}, updated: {}", result.created(), result.updated());
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/imports")
+    @Operation(
+            summary = "Importar catálogo de arquivo CSV ou NDJSON V2",
+            description = "Recebe o arquivo no corpo da requisição (Content-Type text/csv ou application/x-ndjson) e o processa " +
+                    "em segundo plano: cada linha é validada e carregada via COPY em uma tabela temporária, depois aplicada aos " +
+                    "produtos com um único upsert pelo código. Aceita o formato gerado por /export; no CSV as colunas são " +
+                    "identificadas pelo cabeçalho (name, description, price, status, code, categoryId). Linhas inválidas, " +
+                    "códigos repetidos (prevalece a última ocorrência) e categorias inexistentes são rejeitados sem interromper " +
+                    "a importação. Acompanhe pelo recurso retornado em Location. Apenas administradores podem importar produtos.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Arquivo recebido e importação enfileirada",
+                    content = @Content(schema = @Schema(implementation = ProductImportStatusDTO.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Tipo de conteúdo não suportado, arquivo vazio ou maior que o limite",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<ProductImportStatusDTO> importProducts(
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body) throws IOException {
+        ProductExportService.Format format = ProductExportService.Format.fromMediaType(contentType);
+        logger.info("Product V2 - Receiving {} import", format);
+
+        ProductImportStatusDTO status = productImportService.submit(format, body);
+        logger.info("Product V2 - Import {} queued with {} bytes", status.id(), status.bytesTotal());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v2/products/imports/" + status.id()))
+                .body(status);
+    }
+
+    @GetMapping("/imports/{id}")
+    @Operation(
+            summary = "Consultar importação V2",
+            description = "Retorna a situação de uma importação: progresso pela fração do arquivo lida, linhas lidas por segundo, " +
+                    "linhas rejeitadas (com uma amostra dos motivos) e, ao concluir, produtos criados e atualizados"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Situação da importação",
+                    content = @Content(schema = @Schema(implementation = ProductImportStatusDTO.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Importação não encontrada",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<?> getImport(
+            @Parameter(description = "ID da importação", example = "1") @PathVariable Long id) {
+        Optional<ProductImportStatusDTO> status = productImportService.findStatus(id);
+        if (status.isEmpty()) {
+            logger.warn("Product V2 - Import not found with id: {}", id);
+            ErrorResponse error = new ErrorResponse(404, "Not Found", "Importação não encontrada", "/api/v2/products/imports/" + id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        return ResponseEntity.ok(status.get());
+    }
+
     @PutMapping("/{id}")
     @Operation(
             summary = "Atualizar produto V2",
-            description = "Atualiza um produto existente com código inteiro. Apenas administradores podem atualizar produtos.",
+            description = "Atualiza um produto existente com código inteiro, em um único UPDATE. Com If-Match, a alteração " +
+                    "só é aplicada se o produto ainda estiver na versão do ETag informado; caso contrário retorna 412. " +
+                    "Apenas administradores podem atualizar produtos.",
             security = @SecurityRequirement(name = "bearerAuth")
     )
     @ApiResponses(value = {
@@ -166,41 +633,90 @@ public class ProductControllerV2 {
                     description = "Produto não encontrado",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match não corresponde à versão atual do produto",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
             @ApiResponse(
                     responseCode = "400",
-                    description = "Dados de entrada inválidos",
+                    description = "Dados de entrada inválidos, categoria inexistente ou código já utilizado",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             )
     })
     public ResponseEntity<?> updateProduct(
             @Parameter(description = "ID do produto") @PathVariable Long id,
+            @Parameter(description = "ETag obtido na leitura do produto; a alteração só é aplicada se ainda for a versão atual")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody ProductCreateRequestV2 request) {
         logger.info("Product V2 - Updating product with id: {}", id);
 
-        Optional<Product> productOpt = productService.findById(id);
-        if (productOpt.isPresent()) {
-            Product existingProduct = productOpt.get();
-            existingProduct.setName(request.getName());
-            existingProduct.setDescription(request.getDescription());
-            existingProduct.setPrice(request.getPrice());
-            existingProduct.setStatus(request.getStatus());
-            existingProduct.setCode(request.getCode());
-            existingProduct.setCategory(request.getCategory());
-
-            Product updatedProduct = productService.save(existingProduct);
-            logger.info("Product V2 - Product updated successfully: {}", updatedProduct.getName());
-            return ResponseEntity.ok(productMapper.toDTO(updatedProduct));
-        } else {
+        Optional<ProductReadModel> updated = productService.patch(id, productMapper.toPatch(request),
+                ETags.ifMatchVersions(ifMatch));
+        if (updated.isEmpty()) {
             logger.warn("Product V2 - Product not found for update with id: {}", id);
             ErrorResponse error = new ErrorResponse(404, "Not Found", "Produto não encontrado", "/api/v2/products/" + id);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
         }
+        logger.info("Product V2 - Product updated successfully: {}", updated.get().name());
+        return ResponseEntity.ok().eTag(updated.get().eTag()).body(productMapper.toDTO(updated.get()));
+    }
+
+    @PatchMapping("/{id}")
+    @Operation(
+            summary = "Atualizar parcialmente produto V2",
+            description = "Aplica um JSON merge patch (RFC 7396, application/merge-patch+json) ao produto: apenas os campos " +
+                    "enviados são alterados e null remove a descrição. Campos aceitos: name, description, price, status, code " +
+                    "e categoryId (ou category.id). A alteração é feita em um único UPDATE, sem leitura prévia do produto; " +
+                    "com If-Match, só é aplicada se o produto ainda estiver na versão do ETag informado (senão 412). " +
+                    "Apenas administradores podem atualizar produtos.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Produto atualizado com sucesso",
+                    content = @Content(schema = @Schema(implementation = ProductResponseDTOV2.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Produto não encontrado",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match não corresponde à versão atual do produto",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Campo inválido, categoria inexistente ou código já utilizado",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<?> patchProduct(
+            @Parameter(description = "ID do produto") @PathVariable Long id,
+            @Parameter(description = "ETag obtido na leitura do produto; a alteração só é aplicada se ainda for a versão atual")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody JsonNode patch) {
+        logger.info("Product V2 - Patching product with id: {}", id);
+
+        Optional<ProductReadModel> patched = productService.patch(id, productMapper.toPatch(patch),
+                ETags.ifMatchVersions(ifMatch));
+        if (patched.isEmpty()) {
+            logger.warn("Product V2 - Product not found for patch with id: {}", id);
+            ErrorResponse error = new ErrorResponse(404, "Not Found", "Produto não encontrado", "/api/v2/products/" + id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        logger.info("Product V2 - Product patched successfully: {}", patched.get().name());
+        return ResponseEntity.ok().eTag(patched.get().eTag()).body(productMapper.toDTO(patched.get()));
     }
 
     @DeleteMapping("/{id}")
     @Operation(
             summary = "Excluir produto V2",
-            description = "Remove um produto do sistema. Apenas administradores podem excluir produtos.",
+            description = "Remove um produto do sistema. Com If-Match, só remove se o produto ainda estiver na versão " +
+                    "do ETag informado; caso contrário retorna 412. Apenas administradores podem excluir produtos.",
             security = @SecurityRequirement(name = "bearerAuth")
     )
     @ApiResponses(value = {
@@ -213,17 +729,21 @@ public class ProductControllerV2 {
                     responseCode = "404",
                     description = "Produto não encontrado",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match não corresponde à versão atual do produto",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             )
     })
     public ResponseEntity<?> deleteProduct(
-            @Parameter(description = "ID do produto") @PathVariable Long id) {
+            @Parameter(description = "ID do produto") @PathVariable Long id,
+            @Parameter(description = "ETag obtido na leitura do produto; a alteração só é aplicada se ainda for a versão atual")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Product V2 - Deleting product with id: {}", id);
 
-        Optional<Product> productOpt = productService.findById(id);
-        if (productOpt.isPresent()) {
-            Product product = productOpt.get();
-            productService.deleteById(id);
-            logger.info("Product V2 - Product deleted successfully: {}", product.getName());
+        if (productService.deleteById(id, ETags.ifMatchVersions(ifMatch))) {
+            logger.info("Product V2 - Product deleted successfully: {}", id);
             SuccessResponseDTO response = new SuccessResponseDTO("Produto excluído com sucesso");
             return ResponseEntity.ok(response);
         } else {
@@ -232,4 +752,99 @@ public class ProductControllerV2 {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
         }
     }
+
+    @DeleteMapping(params = "ids")
+    @Operation(
+            summary = "Excluir produtos por lista de IDs V2",
+            description = "Exclui vários produtos em um único comando (ex.: ?ids=1,2,3). IDs inexistentes são listados em missingIds. " +
+                    "Máximo de " + MAX_BATCH_LOOKUP_IDS + " IDs. Apenas administradores podem excluir produtos.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Produtos excluídos",
+                    content = @Content(schema = @Schema(implementation = ProductDeleteResponseDTO.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Lista de IDs vazia ou acima do limite",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ProductDeleteResponseDTO deleteProductsByIds(
+            @Parameter(description = "IDs dos produtos separados por vírgula") @RequestParam List<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.isEmpty() || requested.size() > MAX_BATCH_LOOKUP_IDS) {
+            throw new IllegalArgumentException("Informe entre 1 e " + MAX_BATCH_LOOKUP_IDS + " IDs");
+        }
+        logger.info("Product V2 - Deleting {} products by id", requested.size());
+
+        List<Long> deleted = productService.deleteByIds(requested);
+        requested.removeAll(Set.copyOf(deleted));
+
+        logger.info("Product V2 - Deleted {} products, {} missing", deleted.size(), requested.size());
+        return new ProductDeleteResponseDTO(deleted.size(), List.copyOf(requested));
+    }
+
+    @DeleteMapping
+    @Operation(
+            summary = "Excluir produtos por filtro V2",
+            description = "Exclui em um único comando todos os produtos que atendem aos filtros (status, categoryIds, " +
+                    "minPrice/maxPrice, minCode/maxCode, combinados com E). Ao menos um filtro é obrigatório. " +
+                    "Apenas administradores podem excluir produtos.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Produtos excluídos",
+                    content = @Content(schema = @Schema(implementation = ProductDeleteResponseDTO.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Nenhum filtro informado ou filtro inválido",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ProductDeleteResponseDTO deleteProductsMatching(
+            @Parameter(description = "Filtrar por status ativo/inativo") @RequestParam(required = false) Boolean status,
+            @Parameter(description = "Filtrar por IDs de categoria (separados por vírgula)") @RequestParam(required = false) List<Long> categoryIds,
+            @Parameter(description = "Preço mínimo (inclusive)") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Preço máximo (inclusive)") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Código mínimo (inclusive)") @RequestParam(required = false) Integer minCode,
+            @Parameter(description = "Código máximo (inclusive)") @RequestParam(required = false) Integer maxCode) {
+        ProductFilter filter = new ProductFilter(status, categoryIds, minPrice, maxPrice, minCode, maxCode);
+        logger.info("Product V2 - Deleting products matching filter: {}", filter);
+
+        List<Long> deleted = productService.deleteMatching(filter);
+
+        logger.info("Product V2 - Deleted {} products matching filter", deleted.size());
+        return new ProductDeleteResponseDTO(deleted.size(), List.of());
+    }
+
+    private ProductBatchResponseDTOV2 findBatch(List<Long> ids, int maxIds) {
+        // Duplicates are resolved once but keep the position of their first occurrence
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.isEmpty() || requested.size() > maxIds) {
+            throw new IllegalArgumentException("Informe entre 1 e " + maxIds + " IDs");
+        }
+        logger.info("Product V2 - Fetching {} products by id", requested.size());
+
+        Map<Long, ProductReadModel> found = productService.findReadModelsByIds(requested);
+
+        List<ProductResponseDTOV2> content = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requested) {
+            ProductReadModel product = found.get(id);
+            if (product != null) {
+                content.add(productMapper.toDTO(product));
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        logger.info("Product V2 - Found {} products, {} missing", content.size(), missingIds.size());
+        return new ProductBatchResponseDTOV2(content, missingIds);
+    }
 }
\ No newline at end of file
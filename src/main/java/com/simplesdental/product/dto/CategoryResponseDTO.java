@@ -1,5 +1,8 @@
 package com.simplesdental.product.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.simplesdental.product.util.ETags;
+
 public class CategoryResponseDTO {
 
     private Long id;
@@ -7,6 +10,9 @@ public class CategoryResponseDTO {
     private String description;
     private Integer productCount;
 
+    @JsonIgnore
+    private Long version;
+
     public CategoryResponseDTO() {
     }
 
@@ -17,6 +23,11 @@ public class CategoryResponseDTO {
         this.productCount = productCount;
     }
 
+    public CategoryResponseDTO(Long id, String name, String description, Integer productCount, Long version) {
+        this(id, name, description, productCount);
+        this.version = version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -48,4 +59,20 @@ public class CategoryResponseDTO {
     public void setProductCount(Integer productCount) {
         this.productCount = productCount;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Strong ETag: the category row version plus the product count, the only part of the
+     * representation that changes without touching the category row.
+     */
+    public String eTag() {
+        return ETags.strong(version, productCount);
+    }
 }
@@ -0,0 +1,28 @@
+package com.simplesdental.product.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A category node of the hierarchy with its children, ordered by name.
+ *
+ * @param productCount        products directly in this category
+ * @param subtreeProductCount products in this category and all its descendants
+ */
+@Schema(description = "Categoria com suas subcategorias")
+public record CategoryTreeDTO(Long id,
+                              String name,
+                              String description,
+                              Long parentId,
+                              int depth,
+                              int productCount,
+                              int subtreeProductCount,
+                              List<CategoryTreeDTO> children) {
+
+    public CategoryTreeDTO(Long id, String name, String description, Long parentId, int depth, int productCount,
+                           int subtreeProductCount) {
+        this(id, name, description, parentId, depth, productCount, subtreeProductCount, new ArrayList<>());
+    }
+}
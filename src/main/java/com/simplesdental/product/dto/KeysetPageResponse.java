@@ -0,0 +1,26 @@
+package com.simplesdental.product.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Schema(description = "Página baseada em cursor (keyset), sem contagem total")
+public record KeysetPageResponse<T>(
+        @Schema(description = "Itens da página")
+        List<T> content,
+
+        @Schema(description = "Tamanho solicitado da página", example = "20")
+        int size,
+
+        @Schema(description = "Indica se existe uma próxima página", example = "true")
+        boolean hasNext,
+
+        @Schema(description = "Cursor opaco para buscar a próxima página (parâmetro after)", example = "bmFtZTpBU0M6MTI6Tm90ZWJvb2sgQUJD")
+        String nextCursor
+) {
+
+    public <R> KeysetPageResponse<R> map(Function<? super T, ? extends R> mapper) {
+        return new KeysetPageResponse<>(content.stream().<R>map(mapper).toList(), size, hasNext, nextCursor);
+    }
+}
@@ -0,0 +1,31 @@
+package com.simplesdental.product.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Lista de IDs para busca de produtos em lote")
+public class ProductBatchRequestDTO {
+
+    @NotEmpty
+    @Size(max = 1000)
+    @Schema(description = "IDs dos produtos, na ordem desejada de retorno", example = "[1, 2, 3]")
+    private List<@NotNull Long> ids;
+
+    public ProductBatchRequestDTO() {}
+
+    public ProductBatchRequestDTO(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
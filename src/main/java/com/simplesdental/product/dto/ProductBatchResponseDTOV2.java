@@ -0,0 +1,14 @@
+package com.simplesdental.product.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Resultado da busca de produtos em lote V2")
+public record ProductBatchResponseDTOV2(
+        @Schema(description = "Produtos encontrados, na ordem dos IDs solicitados")
+        List<ProductResponseDTOV2> content,
+
+        @Schema(description = "IDs solicitados que não existem", example = "[42]")
+        List<Long> missingIds
+) {}
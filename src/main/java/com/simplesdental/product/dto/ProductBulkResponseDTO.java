@@ -0,0 +1,44 @@
+package com.simplesdental.product.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Resultado da importação em lote de produtos")
+public record ProductBulkResponseDTO(
+        @Schema(description = "Quantidade de produtos criados", example = "120")
+        int created,
+
+        @Schema(description = "Quantidade de produtos com código já existente, atualizados", example = "4880")
+        int updated,
+
+        @Schema(description = "Quantidade de itens rejeitados na validação (nenhum item é gravado se houver algum)", example = "0")
+        int invalid,
+
+        @Schema(description = "Resultado de cada item, na ordem do envio")
+        List<Item> items
+) {
+
+    public enum Outcome {
+        CREATED, UPDATED, INVALID
+    }
+
+    @Schema(description = "Resultado de um item do lote")
+    public record Item(
+            @Schema(description = "Posição do item no lote (começando em 0)", example = "0")
+            int index,
+
+            @Schema(description = "Código do produto", example = "150")
+            Integer code,
+
+            @Schema(description = "ID do produto gravado (nulo quando inválido)", example = "1")
+            Long id,
+
+            @Schema(description = "Resultado do item (nulo para itens válidos de um lote rejeitado)", example = "CREATED")
+            Outcome outcome,
+
+            @Schema(description = "Erros de validação do item")
+            List<ErrorResponse.ValidationError> errors
+    ) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.simplesdental.product.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Resultado da exclusão de produtos em lote V2")
+public record ProductDeleteResponseDTO(
+        @Schema(description = "Quantidade de produtos excluídos", example = "3")
+        int deleted,
+
+        @Schema(description = "IDs solicitados que não existiam (vazio na exclusão por filtro)", example = "[42]")
+        List<Long> missingIds
+) {}
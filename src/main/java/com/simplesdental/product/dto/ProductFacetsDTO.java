@@ -0,0 +1,58 @@
+package com.simplesdental.product.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Schema(description = "Contagens de produtos por categoria, status e faixa de preço para um conjunto de filtros")
+public record ProductFacetsDTO(
+        @Schema(description = "Total de produtos que atendem aos filtros", example = "42")
+        long total,
+
+        @Schema(description = "Contagem por categoria (apenas categorias com produtos)")
+        List<CategoryFacet> categories,
+
+        @Schema(description = "Contagem por status")
+        StatusFacet status,
+
+        @Schema(description = "Contagem por faixa de preço, na ordem das faixas")
+        List<PriceBucketFacet> priceBuckets
+) {
+
+    @Schema(description = "Contagem de produtos de uma categoria")
+    public record CategoryFacet(
+            @Schema(description = "ID da categoria (nulo para produtos sem categoria)", example = "1")
+            Long id,
+
+            @Schema(description = "Nome da categoria", example = "Eletrônicos")
+            String name,
+
+            @Schema(description = "Quantidade de produtos", example = "12")
+            long count
+    ) {
+    }
+
+    @Schema(description = "Contagem de produtos ativos e inativos")
+    public record StatusFacet(
+            @Schema(description = "Quantidade de produtos ativos", example = "40")
+            long active,
+
+            @Schema(description = "Quantidade de produtos inativos", example = "2")
+            long inactive
+    ) {
+    }
+
+    @Schema(description = "Contagem de produtos em uma faixa de preço [min, max)")
+    public record PriceBucketFacet(
+            @Schema(description = "Preço mínimo (inclusive); nulo na primeira faixa", example = "100.00")
+            BigDecimal min,
+
+            @Schema(description = "Preço máximo (exclusive); nulo na última faixa", example = "250.00")
+            BigDecimal max,
+
+            @Schema(description = "Quantidade de produtos", example = "7")
+            long count
+    ) {
+    }
+}
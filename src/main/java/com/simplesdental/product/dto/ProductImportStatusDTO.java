@@ -0,0 +1,59 @@
+package com.simplesdental.product.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Schema(description = "Status de um job de importação de produtos")
+public record ProductImportStatusDTO(
+        @Schema(description = "ID do job de importação", example = "1")
+        Long id,
+
+        @Schema(description = "Formato do arquivo", example = "CSV", allowableValues = {"CSV", "NDJSON"})
+        String format,
+
+        @Schema(description = "Situação do job", example = "RUNNING",
+                allowableValues = {"QUEUED", "RUNNING", "MERGING", "COMPLETED", "FAILED"})
+        String status,
+
+        @Schema(description = "Fração do arquivo já lida, de 0 a 1", example = "0.42")
+        double progress,
+
+        @Schema(description = "Tamanho do arquivo em bytes", example = "104857600")
+        long bytesTotal,
+
+        @Schema(description = "Bytes do arquivo já lidos", example = "44040192")
+        long bytesRead,
+
+        @Schema(description = "Linhas de dados lidas até agora", example = "420000")
+        long rowsRead,
+
+        @Schema(description = "Linhas lidas por segundo desde o início do job", example = "35000.0")
+        double rowsPerSecond,
+
+        @Schema(description = "Linhas rejeitadas (validação, código repetido no arquivo ou categoria inexistente)", example = "12")
+        long rowsRejected,
+
+        @Schema(description = "Produtos criados (preenchido ao concluir)", example = "1200")
+        long rowsCreated,
+
+        @Schema(description = "Produtos existentes atualizados (preenchido ao concluir)", example = "418788")
+        long rowsUpdated,
+
+        @Schema(description = "Amostra das linhas rejeitadas, com o motivo")
+        List<String> rejections,
+
+        @Schema(description = "Motivo da falha, quando o status é FAILED")
+        String error,
+
+        @Schema(description = "Momento em que o arquivo foi recebido")
+        LocalDateTime createdAt,
+
+        @Schema(description = "Início do processamento")
+        LocalDateTime startedAt,
+
+        @Schema(description = "Fim do processamento")
+        LocalDateTime finishedAt
+) {
+}
@@ -0,0 +1,45 @@
+package com.simplesdental.product.dto;
+
+import com.simplesdental.product.model.Product;
+import com.simplesdental.product.util.ETags;
+
+import java.math.BigDecimal;
+
+/**
+ * Version-agnostic, immutable read model of a product with its category name.
+ * Stored in the product cache and rendered by both {@code ProductMapper} and {@code ProductMapperV2}.
+ * {@code version} and {@code categoryVersion} are the optimistic-lock versions of the two rows the
+ * representation is built from; together they form the strong ETag.
+ */
+public record ProductReadModel(
+        Long id,
+        String name,
+        String description,
+        BigDecimal price,
+        Boolean status,
+        Integer code,
+        Long categoryId,
+        String categoryName,
+        Long version,
+        Long categoryVersion
+) {
+
+    public String eTag() {
+        return ETags.strong(version, categoryVersion);
+    }
+
+    public static ProductReadModel from(Product product) {
+        return new ProductReadModel(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getStatus(),
+                product.getCode(),
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.getCategory() != null ? product.getCategory().getName() : null,
+                product.getVersion(),
+                product.getCategory() != null ? product.getCategory().getVersion() : null
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package com.simplesdental.product.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Sugestão de produto para autocompletar pelo nome")
+public record ProductSuggestionDTO(
+        @Schema(description = "ID único do produto", example = "1")
+        Long id,
+
+        @Schema(description = "Nome do produto", example = "iPhone 15 Pro")
+        String name
+) {
+}
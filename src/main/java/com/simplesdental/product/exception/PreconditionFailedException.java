@@ -0,0 +1,11 @@
+package com.simplesdental.product.exception;
+
+/**
+ * The {@code If-Match} version of a conditional write no longer matches the stored row.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
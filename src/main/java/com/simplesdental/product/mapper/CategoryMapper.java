@@ -12,13 +12,13 @@ public class CategoryMapper {
             return null;
         }
 
-        Integer productCount = category.getProducts() != null ? category.getProducts().size() : 0;
-
+        // The denormalized column: never initializes the products collection
         return new CategoryResponseDTO(
                 category.getId(),
                 category.getName(),
                 category.getDescription(),
-                productCount
+                category.getProductCount() != null ? category.getProductCount() : 0,
+                category.getVersion()
         );
     }
 }
\ No newline at end of file
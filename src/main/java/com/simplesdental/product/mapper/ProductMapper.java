@@ -1,9 +1,15 @@
 package com.simplesdental.product.mapper;
 
+import com.simplesdental.product.dto.ProductCreateRequest;
+import com.simplesdental.product.dto.ProductReadModel;
 import com.simplesdental.product.dto.ProductResponseDTO;
 import com.simplesdental.product.model.Product;
+import com.simplesdental.product.repository.ProductPatch;
 import org.springframework.stereotype.Component;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 @Component
 public class ProductMapper {
 
@@ -24,6 +30,40 @@ public class ProductMapper {
         );
     }
 
+    public ProductResponseDTO toDTO(ProductReadModel model) {
+        if (model == null) {
+            return null;
+        }
+
+        return new ProductResponseDTO(
+                model.id(),
+                model.name(),
+                model.description(),
+                model.price(),
+                model.status(),
+                formatCodeForV1(model.code()),
+                model.categoryId(),
+                model.categoryName()
+        );
+    }
+
+    /**
+     * A V1 PUT as a patch of every field. {@code code} is the request's PROD-XXX code already parsed; without one
+     * the product keeps its current code.
+     */
+    public ProductPatch toPatch(ProductCreateRequest request, Integer code) {
+        Map<ProductPatch.Field, Object> changes = new EnumMap<>(ProductPatch.Field.class);
+        changes.put(ProductPatch.Field.NAME, request.getName());
+        changes.put(ProductPatch.Field.DESCRIPTION, request.getDescription());
+        changes.put(ProductPatch.Field.PRICE, request.getPrice());
+        changes.put(ProductPatch.Field.STATUS, request.getStatus());
+        if (code != null) {
+            changes.put(ProductPatch.Field.CODE, code);
+        }
+        changes.put(ProductPatch.Field.CATEGORY_ID, request.getCategory() != null ? request.getCategory().getId() : null);
+        return new ProductPatch(changes);
+    }
+
     private String formatCodeForV1(Integer code) {
         if (code == null) {
             return null;
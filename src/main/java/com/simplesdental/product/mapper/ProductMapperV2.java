@@ -1,9 +1,17 @@
 package com.simplesdental.product.mapper;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.simplesdental.product.dto.ProductCreateRequestV2;
+import com.simplesdental.product.dto.ProductReadModel;
 import com.simplesdental.product.dto.ProductResponseDTOV2;
 import com.simplesdental.product.model.Product;
+import com.simplesdental.product.repository.ProductPatch;
 import org.springframework.stereotype.Component;
 
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
 @Component
 public class ProductMapperV2 {
 
@@ -23,4 +31,93 @@ public class ProductMapperV2 {
             product.getCategory() != null ? product.getCategory().getName() : null
         );
     }
-}
\ No newline at end of file
+
+    public ProductResponseDTOV2 toDTO(ProductReadModel model) {
+        if (model == null) {
+            return null;
+        }
+
+        return new ProductResponseDTOV2(
+            model.id(),
+            model.name(),
+            model.description(),
+            model.price(),
+            model.status(),
+            model.code(),
+            model.categoryId(),
+            model.categoryName()
+        );
+    }
+
+    /**
+     * A PUT is a patch of every field: the full replacement then runs as the same single UPDATE.
+     */
+    public ProductPatch toPatch(ProductCreateRequestV2 request) {
+        Map<ProductPatch.Field, Object> changes = new EnumMap<>(ProductPatch.Field.class);
+        changes.put(ProductPatch.Field.NAME, request.getName());
+        changes.put(ProductPatch.Field.DESCRIPTION, request.getDescription());
+        changes.put(ProductPatch.Field.PRICE, request.getPrice());
+        changes.put(ProductPatch.Field.STATUS, request.getStatus());
+        changes.put(ProductPatch.Field.CODE, request.getCode());
+        changes.put(ProductPatch.Field.CATEGORY_ID, request.getCategory() != null ? request.getCategory().getId() : null);
+        return new ProductPatch(changes);
+    }
+
+    /**
+     * Reads a JSON merge patch (RFC 7396) against the V2 product representation: members present are set,
+     * {@code null} removes (only allowed for description). The category may be given as {@code categoryId}
+     * or, as in create requests, {@code category.id}.
+     */
+    public ProductPatch toPatch(JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Corpo do PATCH deve ser um objeto JSON");
+        }
+
+        Map<ProductPatch.Field, Object> changes = new EnumMap<>(ProductPatch.Field.class);
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            JsonNode value = entry.getValue();
+            switch (entry.getKey()) {
+                case "name" -> changes.put(ProductPatch.Field.NAME, text(entry.getKey(), value));
+                case "description" -> changes.put(ProductPatch.Field.DESCRIPTION, text(entry.getKey(), value));
+                case "price" -> {
+                    check(entry.getKey(), value, value.isNumber());
+                    changes.put(ProductPatch.Field.PRICE, value.isNull() ? null : value.decimalValue());
+                }
+                case "status" -> {
+                    check(entry.getKey(), value, value.isBoolean());
+                    changes.put(ProductPatch.Field.STATUS, value.isNull() ? null : value.booleanValue());
+                }
+                case "code" -> {
+                    check(entry.getKey(), value, value.isIntegralNumber() && value.canConvertToInt());
+                    changes.put(ProductPatch.Field.CODE, value.isNull() ? null : value.intValue());
+                }
+                case "categoryId" -> changes.put(ProductPatch.Field.CATEGORY_ID, categoryId(entry.getKey(), value));
+                case "category" -> {
+                    check(entry.getKey(), value, value.isObject());
+                    changes.put(ProductPatch.Field.CATEGORY_ID, value.isNull() ? null : categoryId("category.id", value.path("id")));
+                }
+                case "id", "categoryName" -> throw new IllegalArgumentException("Campo não pode ser alterado: " + entry.getKey());
+                default -> throw new IllegalArgumentException("Campo desconhecido: " + entry.getKey());
+            }
+        }
+        return new ProductPatch(changes);
+    }
+
+    private static String text(String field, JsonNode value) {
+        check(field, value, value.isTextual());
+        return value.isNull() ? null : value.textValue();
+    }
+
+    private static Long categoryId(String field, JsonNode value) {
+        check(field, value, value.isIntegralNumber() && value.canConvertToLong());
+        return value.isNull() ? null : value.longValue();
+    }
+
+    private static void check(String field, JsonNode value, boolean validType) {
+        if (!value.isNull() && !validType) {
+            throw new IllegalArgumentException("Valor inválido para o campo " + field);
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.simplesdental.product.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.simplesdental.product.util.ETags;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
@@ -32,10 +37,82 @@ public class Category {
     @Schema(description = "Descrição da categoria", example = "Produtos eletrônicos e tecnológicos")
     private String description;
 
+    @Version
+    @JsonIgnore
+    private Long version;
+
+    @Column(name = "parent_id")
+    @Schema(description = "ID da categoria pai (nulo para categorias raiz)", example = "1")
+    private Long parentId;
+
+    // Whether a request body carried parentId at all, so a PUT without it keeps the current parent
+    @Transient
+    @JsonIgnore
+    private boolean parentIdPresent;
+
+    // Path, depth and subtree count are maintained by the V14 triggers from parent_id
+    @Column(insertable = false, updatable = false, columnDefinition = "TEXT")
+    @JsonIgnore
+    private String path;
+
+    @Column(insertable = false, updatable = false)
+    @JsonIgnore
+    private Integer depth;
+
+    @Column(name = "subtree_product_count", insertable = false, updatable = false)
+    @JsonIgnore
+    private Integer subtreeProductCount;
+
+    // Maintained by triggers on products (V13); never written from here
+    @Column(name = "product_count", insertable = false, updatable = false)
+    @JsonIgnore
+    private Integer productCount;
+
     @OneToMany(mappedBy = "category")
     @JsonIgnoreProperties({"category"})
     private List<Product> products;
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Strong ETag, built like {@code CategoryResponseDTO#eTag()}: the row version plus the product count.
+     */
+    public String eTag() {
+        return ETags.strong(version, productCount);
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+        this.parentIdPresent = true;
+    }
+
+    @JsonIgnore
+    public boolean isParentIdPresent() {
+        return parentIdPresent;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Integer getDepth() {
+        return depth;
+    }
+
+    public Integer getSubtreeProductCount() {
+        return subtreeProductCount;
+    }
+
     public Long getId() {
         return id;
     }
@@ -60,6 +137,14 @@ public class Category {
         this.description = description;
     }
 
+    public Integer getProductCount() {
+        return productCount;
+    }
+
+    public void setProductCount(Integer productCount) {
+        this.productCount = productCount;
+    }
+
     public List<Product> getProducts() {
         return products;
     }
@@ -1,5 +1,6 @@
 package com.simplesdental.product.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
@@ -9,7 +10,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -22,8 +25,14 @@ import java.math.BigDecimal;
 @Schema(description = "Entidade produto do sistema")
 public class Product {
 
+    public static final String ID_SEQUENCE = "products_id_seq";
+
+    // Must match the INCREMENT BY of the sequence (V11); each nextval reserves this many ids
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     @Schema(description = "ID único do produto", example = "1")
     private Long id;
 
@@ -48,6 +57,10 @@ public class Product {
     @Schema(description = "Código numérico do produto", example = "123")
     private Integer code;
 
+    @Version
+    @JsonIgnore
+    private Long version;
+
     @NotNull
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "category_id")
@@ -55,6 +68,14 @@ public class Product {
     @Schema(description = "Categoria do produto", implementation = Category.class)
     private Category category;
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Long getId() {
         return id;
     }
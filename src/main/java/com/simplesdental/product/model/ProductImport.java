@@ -0,0 +1,184 @@
+package com.simplesdental.product.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background product import job (see {@code ProductImportService}); rows are counted as the file is read.
+ */
+@Entity
+@Table(name = "product_imports")
+public class ProductImport {
+
+    public enum Status {
+        QUEUED, RUNNING, MERGING, COMPLETED, FAILED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String format;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private Long bytesTotal = 0L;
+
+    private Long bytesRead = 0L;
+
+    private Long rowsRead = 0L;
+
+    private Long rowsRejected = 0L;
+
+    private Long rowsCreated = 0L;
+
+    private Long rowsUpdated = 0L;
+
+    @Column(columnDefinition = "TEXT")
+    private String rejections;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    // Refreshed by the instance holding the job until it finishes
+    private LocalDateTime heartbeatAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    public void setBytesTotal(Long bytesTotal) {
+        this.bytesTotal = bytesTotal;
+    }
+
+    public Long getBytesRead() {
+        return bytesRead;
+    }
+
+    public void setBytesRead(Long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    public Long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(Long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public Long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(Long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public Long getRowsCreated() {
+        return rowsCreated;
+    }
+
+    public void setRowsCreated(Long rowsCreated) {
+        this.rowsCreated = rowsCreated;
+    }
+
+    public Long getRowsUpdated() {
+        return rowsUpdated;
+    }
+
+    public void setRowsUpdated(Long rowsUpdated) {
+        this.rowsUpdated = rowsUpdated;
+    }
+
+    public String getRejections() {
+        return rejections;
+    }
+
+    public void setRejections(String rejections) {
+        this.rejections = rejections;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+}
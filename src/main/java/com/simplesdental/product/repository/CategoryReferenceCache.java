@@ -0,0 +1,149 @@
+package com.simplesdental.product.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds every category's id, name and version in an immutable in-process map so product read paths can
+ * resolve them without joining {@code categories}. The map is loaded at startup and replaced as a whole
+ * on reload; readers always see one complete snapshot. Reloads are triggered by category writes (locally
+ * and, through {@code CategoryReferenceSync}, on other nodes), by a lookup of an unknown id, and once the
+ * snapshot is older than {@code app.category.reference.refresh-ms} as a safety net for missed notifications.
+ * <p>
+ * Each snapshot records the shared category generation it was loaded at. Read paths call
+ * {@link #ensureCurrent()} once per query, so a node that has not yet received the pub/sub message still
+ * reloads before building read models that could end up in the shared caches.
+ */
+@Repository
+public class CategoryReferenceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryReferenceCache.class);
+
+    private static final long MISS_RELOAD_INTERVAL_MS = 1000;
+
+    private volatile Snapshot snapshot;
+
+    // Shared category generation; -1 when unknown. Without a source only the other triggers apply.
+    private volatile LongSupplier generationSource;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.category.reference.refresh-ms:300000}")
+    private long refreshIntervalMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Loaded on first use instead
+            logger.warn("Category reference cache - Startup load failed", e);
+        }
+    }
+
+    /**
+     * @return the category, or null when it does not exist even after a reload
+     */
+    public CategoryRef get(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Snapshot current = current();
+        CategoryRef category = current.categories().get(id);
+        if (category == null && System.currentTimeMillis() - current.loadedAt() >= MISS_RELOAD_INTERVAL_MS) {
+            // Created on another node and not yet announced; throttled so lookups of missing ids cannot flood the table
+            category = reloadIfUnchanged(current).categories().get(id);
+        }
+        return category;
+    }
+
+    public boolean contains(Long id) {
+        return get(id) != null;
+    }
+
+    public void setGenerationSource(LongSupplier generationSource) {
+        this.generationSource = generationSource;
+    }
+
+    /**
+     * Reloads when the shared category generation is ahead of the one the snapshot was loaded at.
+     */
+    public void ensureCurrent() {
+        LongSupplier source = generationSource;
+        if (source == null) {
+            return;
+        }
+        long generation = source.getAsLong();
+        Snapshot current = snapshot;
+        if (generation >= 0 && (current == null || current.generation() < generation)) {
+            reloadIfBehind(generation);
+        }
+    }
+
+    public Map<Long, CategoryRef> all() {
+        return current().categories();
+    }
+
+    /**
+     * Reads the whole table and swaps the snapshot in.
+     */
+    public synchronized void reload() {
+        // Read before the table: the snapshot then holds at least every write that generation covers
+        LongSupplier source = generationSource;
+        long generation = source != null ? source.getAsLong() : -1L;
+        if (generation < 0) {
+            generation = snapshot != null ? snapshot.generation() : -1L;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager
+                .createNativeQuery("SELECT id, name, version FROM categories")
+                .getResultList();
+        Map<Long, CategoryRef> categories = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            Long id = ((Number) row[0]).longValue();
+            categories.put(id, new CategoryRef(id, (String) row[1], row[2] != null ? ((Number) row[2]).longValue() : null));
+        }
+        snapshot = new Snapshot(Map.copyOf(categories), System.currentTimeMillis(), generation);
+        logger.debug("Category reference cache - Loaded {} categories at generation {}", categories.size(), generation);
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() - current.loadedAt() >= refreshIntervalMs) {
+            current = reloadIfUnchanged(current);
+        }
+        return current;
+    }
+
+    // Callers that raced on the same stale snapshot share a single reload
+    private synchronized Snapshot reloadIfUnchanged(Snapshot seen) {
+        if (snapshot == seen) {
+            reload();
+        }
+        return snapshot;
+    }
+
+    private synchronized void reloadIfBehind(long generation) {
+        Snapshot current = snapshot;
+        if (current == null || current.generation() < generation) {
+            reload();
+        }
+    }
+
+    public record CategoryRef(Long id, String name, Long version) {}
+
+    private record Snapshot(Map<Long, CategoryRef> categories, long loadedAt, long generation) {}
+}
@@ -1,24 +1,50 @@
 package com.simplesdental.product.repository;
 
+import com.simplesdental.product.dto.CategoryResponseDTO;
 import com.simplesdental.product.model.Category;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long> {
+public interface CategoryRepository extends JpaRepository<Category, Long>, CategoryRepositoryCustom {
 
     @Query("SELECT c FROM Category c LEFT JOIN FETCH c.products")
     List<Category> findAllWithProducts();
 
+    /**
+     * Single-statement delete, without loading the entity first.
+     *
+     * @return number of deleted rows (0 when the category does not exist)
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Category c WHERE c.id = :id")
+    int deleteDirectlyById(Long id);
+
+    /**
+     * Like {@link #deleteDirectlyById} but only while the category is at one of {@code versions} (not empty).
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Category c WHERE c.id = :id AND c.version IN :versions")
+    int deleteDirectlyByIdAndVersionIn(Long id, Collection<Long> versions);
+
     @Query("SELECT c FROM Category c LEFT JOIN FETCH c.products")
     Page<Category> findAllWithProducts(Pageable pageable);
 
     @Query("SELECT c FROM Category c LEFT JOIN FETCH c.products WHERE c.id = :id")
     Optional<Category> findByIdWithProducts(Long id);
-}
\ No newline at end of file
+
+    @Query("SELECT new com.simplesdental.product.dto.CategoryResponseDTO(c.id, c.name, c.description, c.productCount, c.version) " +
+            "FROM Category c WHERE c.id = :id")
+    Optional<CategoryResponseDTO> findSummaryById(Long id);
+}
@@ -0,0 +1,51 @@
+package com.simplesdental.product.repository;
+
+import com.simplesdental.product.dto.CategoryResponseDTO;
+import com.simplesdental.product.dto.CategoryTreeDTO;
+import com.simplesdental.product.model.Category;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CategoryRepositoryCustom {
+
+    /**
+     * Paged category rows with their product count, aggregated in SQL with real LIMIT/OFFSET.
+     * Never loads {@code Product} entities; the total is resolved according to {@code countMode}.
+     */
+    Slice<CategoryResponseDTO> findAllSummaries(Pageable pageable, CountMode countMode);
+
+    /**
+     * Flat hierarchy rows, parents before children and siblings by name, in one query: the whole tree when
+     * {@code rootId} is null, otherwise the subtree of {@code rootId} (a range scan over the path index, empty
+     * when it does not exist). {@code maxDepth} (optional) limits the levels below the root.
+     */
+    List<CategoryTreeDTO> findTreeRows(Long rootId, Integer maxDepth);
+
+    /**
+     * Writes the name, description and (only when the request carried it) the parent of {@code changes} to category
+     * {@code id} with one {@code UPDATE ... RETURNING} statement, bumping the version, and returns the updated
+     * category, or empty when it does not exist. A missing parent or a cycle fails on the V14 constraints.
+     *
+     * @param expectedVersions when not null (and not empty), the row is only updated if its version is one of them;
+     *                         a stale version is indistinguishable from a missing category in the result
+     */
+    Optional<Category> update(Long id, Category changes, Collection<Long> expectedVersions);
+
+    /**
+     * Recomputes the denormalized {@code product_count} and {@code subtree_product_count} of up to {@code limit} categories with id greater than
+     * {@code afterId}, in id order and in one transaction, rewriting only the counts that drifted.
+     */
+    CountRepair repairProductCounts(long afterId, int limit);
+
+    /**
+     * @param lastId   last category id of the chunk, or null when there were no more categories
+     * @param checked  categories recounted
+     * @param repaired categories whose count was wrong
+     */
+    record CountRepair(Long lastId, int checked, int repaired) {
+    }
+}
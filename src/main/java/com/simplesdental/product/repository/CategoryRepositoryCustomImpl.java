@@ -0,0 +1,143 @@
+package com.simplesdental.product.repository;
+
+import com.simplesdental.product.dto.CategoryResponseDTO;
+import com.simplesdental.product.dto.CategoryTreeDTO;
+import com.simplesdental.product.model.Category;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class CategoryRepositoryCustomImpl implements CategoryRepositoryCustom {
+
+    private static final PagedQuery<CategoryResponseDTO> CATEGORY_SUMMARIES = new PagedQuery<>(
+            false,
+            "c.id, c.name, c.description, c.productCount",
+            "FROM Category c",
+            "SELECT COUNT(c) FROM Category c",
+            "categories",
+            Map.of(),
+            "c",
+            Map.of("id", "c.id",
+                    "name", "c.name",
+                    "description", "c.description",
+                    "productCount", "c.productCount"),
+            row -> new CategoryResponseDTO(
+                    (Long) row[0],
+                    (String) row[1],
+                    (String) row[2],
+                    ((Number) row[3]).intValue()));
+
+    private static final String TREE_SELECT = "SELECT c.id, c.name, c.description, c.parent_id, c.depth, c.product_count, " +
+            "c.subtree_product_count FROM categories c";
+
+    // Parents (lower depth) come before their children, siblings by name
+    private static final String TREE_ORDER = " ORDER BY c.depth, c.name, c.id";
+
+    // Locks the chunk first: product writes in flight on these categories (their count trigger holds the row)
+    // commit before the recount, and later ones wait for it and apply their delta on top of the repaired value
+    private static final String LOCK_CHUNK_SQL = "SELECT id FROM categories WHERE id > :afterId ORDER BY id LIMIT :limit FOR UPDATE";
+
+    // Runs with a new snapshot (READ COMMITTED), taken after the locks: sees every write that held them. Product
+    // writes lock every ancestor of their category, so the subtree counts are covered by the same locks
+    private static final String REPAIR_CHUNK_SQL = "UPDATE categories c SET product_count = x.n, subtree_product_count = x.subtree_n " +
+            "FROM (SELECT c2.id, (SELECT count(*) FROM products p WHERE p.category_id = c2.id) AS n, " +
+            "(SELECT count(*) FROM categories d JOIN products p ON p.category_id = d.id " +
+            "WHERE " + CategoryTree.subtreeOf("d", "c2") + ") AS subtree_n " +
+            "FROM categories c2 WHERE c2.id IN (:ids)) x " +
+            "WHERE c.id = x.id AND (c.product_count <> x.n OR c.subtree_product_count <> x.subtree_n)";
+
+    private static final String UPDATE_SQL = "UPDATE categories SET name = :name, description = :description%s, " +
+            "version = version + 1 WHERE id = :id%s " +
+            "RETURNING id, name, description, version, parent_id, path, depth, subtree_product_count, product_count";
+
+    private final PagedQueryExecutor pagedQueryExecutor;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CategoryRepositoryCustomImpl(PagedQueryExecutor pagedQueryExecutor) {
+        this.pagedQueryExecutor = pagedQueryExecutor;
+    }
+
+    @Override
+    public Slice<CategoryResponseDTO> findAllSummaries(Pageable pageable, CountMode countMode) {
+        return pagedQueryExecutor.execute(CATEGORY_SUMMARIES, pageable, countMode);
+    }
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public CountRepair repairProductCounts(long afterId, int limit) {
+        List<Number> ids = entityManager.createNativeQuery(LOCK_CHUNK_SQL)
+                .setParameter("afterId", afterId)
+                .setParameter("limit", limit)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return new CountRepair(null, 0, 0);
+        }
+        int repaired = entityManager.createNativeQuery(REPAIR_CHUNK_SQL)
+                .setParameter("ids", ids.stream().map(Number::longValue).toList())
+                .executeUpdate();
+        return new CountRepair(ids.get(ids.size() - 1).longValue(), ids.size(), repaired);
+    }
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public Optional<Category> update(Long id, Category changes, Collection<Long> expectedVersions) {
+        Query query = entityManager.createNativeQuery(UPDATE_SQL.formatted(
+                changes.isParentIdPresent() ? ", parent_id = :parentId" : "",
+                expectedVersions != null ? " AND version IN (:versions)" : ""), Category.class);
+        query.setParameter("id", id)
+                .setParameter("name", changes.getName())
+                .setParameter("description", changes.getDescription());
+        if (changes.isParentIdPresent()) {
+            query.setParameter("parentId", changes.getParentId());
+        }
+        if (expectedVersions != null) {
+            query.setParameter("versions", expectedVersions);
+        }
+        List<Category> updated = query.getResultList();
+        return updated.stream().findFirst();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CategoryTreeDTO> findTreeRows(Long rootId, Integer maxDepth) {
+        StringBuilder sql = new StringBuilder(TREE_SELECT);
+        if (rootId != null) {
+            sql.append(" JOIN categories r ON r.id = :rootId AND ").append(CategoryTree.subtreeOf("c", "r"));
+            if (maxDepth != null) {
+                sql.append(" WHERE c.depth <= r.depth + :maxDepth");
+            }
+        } else if (maxDepth != null) {
+            sql.append(" WHERE c.depth <= :maxDepth");
+        }
+        Query query = entityManager.createNativeQuery(sql.append(TREE_ORDER).toString());
+        if (rootId != null) {
+            query.setParameter("rootId", rootId);
+        }
+        if (maxDepth != null) {
+            query.setParameter("maxDepth", maxDepth);
+        }
+        List<Object[]> rows = query.getResultList();
+        return rows.stream()
+                .map(row -> new CategoryTreeDTO(
+                        ((Number) row[0]).longValue(),
+                        (String) row[1],
+                        (String) row[2],
+                        row[3] != null ? ((Number) row[3]).longValue() : null,
+                        ((Number) row[4]).intValue(),
+                        ((Number) row[5]).intValue(),
+                        ((Number) row[6]).intValue()))
+                .toList();
+    }
+}
@@ -0,0 +1,19 @@
+package com.simplesdental.product.repository;
+
+/**
+ * SQL for the materialized category paths of V14 ({@code '/1/5/12/'}, root first). Paths use the "C"
+ * collation, so a subtree is one contiguous range of {@code idx_categories_path}: every path starting with
+ * the root path sorts between it and the same path with its trailing {@code '/'} replaced by {@code '0'}.
+ */
+final class CategoryTree {
+
+    private CategoryTree() {
+    }
+
+    /**
+     * Predicate matching the categories {@code alias} in the subtree of {@code rootAlias}, root included.
+     */
+    static String subtreeOf(String alias, String rootAlias) {
+        return alias + ".path >= " + rootAlias + ".path AND " + alias + ".path < left(" + rootAlias + ".path, -1) || '0'";
+    }
+}
@@ -0,0 +1,32 @@
+package com.simplesdental.product.repository;
+
+/**
+ * How the total element count of a paged listing is obtained.
+ */
+public enum CountMode {
+
+    /** Separate COUNT query, exact total (default behaviour). */
+    EXACT,
+
+    /** Total computed in the same round-trip with {@code count(*) over()}. */
+    WINDOW,
+
+    /** Planner estimate from {@code pg_class.reltuples}, refreshed periodically. */
+    ESTIMATED,
+
+    /** No total at all: a slice with a hasNext flag. */
+    NONE;
+
+    public static CountMode fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return EXACT;
+        }
+        return switch (value.trim().toLowerCase()) {
+            case "exact" -> EXACT;
+            case "window" -> WINDOW;
+            case "estimated" -> ESTIMATED;
+            case "none" -> NONE;
+            default -> throw new IllegalArgumentException("Modo de contagem inválido: " + value + " (use exact, window, estimated ou none)");
+        };
+    }
+}
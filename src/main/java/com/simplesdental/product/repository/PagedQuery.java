@@ -0,0 +1,27 @@
+package com.simplesdental.product.repository;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Description of a paged read query that {@link PagedQueryExecutor} can run under any {@link CountMode}.
+ *
+ * @param nativeQuery   whether the clauses are SQL (true) or JPQL (false)
+ * @param select        select list, without the SELECT keyword
+ * @param from          FROM clause including joins and WHERE, without ORDER BY
+ * @param countQuery    full query returning the exact total
+ * @param estimateTable table whose planner estimate is a valid total, or null when the query filters rows
+ * @param parameters    named parameters shared by the data and count queries
+ * @param alias         root alias used to qualify sort properties when {@code sortColumns} is null
+ * @param sortColumns   whitelist mapping sort properties to columns, or null to accept any property of the alias
+ * @param rowMapper     converts one result row (select items in order) into the result type
+ */
+public record PagedQuery<T>(boolean nativeQuery,
+                            String select,
+                            String from,
+                            String countQuery,
+                            String estimateTable,
+                            Map<String, Object> parameters,
+                            String alias,
+                            Map<String, String> sortColumns,
+                            Function<Object[], T> rowMapper) {}
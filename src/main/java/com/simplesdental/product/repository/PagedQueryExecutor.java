@@ -0,0 +1,151 @@
+package com.simplesdental.product.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a {@link PagedQuery} with the total obtained according to a {@link CountMode}.
+ * EXACT, WINDOW and ESTIMATED return a {@code Page}; NONE returns a {@code Slice}.
+ */
+@Component
+public class PagedQueryExecutor {
+
+    private static final Pattern PROPERTY = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)*");
+
+    private final TableRowEstimator tableRowEstimator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public PagedQueryExecutor(TableRowEstimator tableRowEstimator) {
+        this.tableRowEstimator = tableRowEstimator;
+    }
+
+    public <T> Slice<T> execute(PagedQuery<T> query, Pageable pageable, CountMode countMode) {
+        String orderBy = orderBy(query, pageable.getSort());
+
+        switch (countMode) {
+            case WINDOW:
+                return executeWindowed(query, orderBy, pageable);
+            case NONE: {
+                List<T> rows = fetch(query, query.select(), orderBy, pageable.getOffset(), pageable.getPageSize() + 1);
+                boolean hasNext = rows.size() > pageable.getPageSize();
+                return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+            }
+            case ESTIMATED: {
+                long estimate = query.estimateTable() != null ? tableRowEstimator.estimateRowCount(query.estimateTable()) : -1L;
+                if (estimate >= 0) {
+                    List<T> rows = fetch(query, query.select(), orderBy, pageable.getOffset(), pageable.getPageSize());
+                    return new PageImpl<>(rows, pageable, estimate);
+                }
+                // No usable estimate (filtered query or never analyzed table): fall back to an exact count
+                return executeExact(query, orderBy, pageable);
+            }
+            default:
+                return executeExact(query, orderBy, pageable);
+        }
+    }
+
+    public long count(PagedQuery<?> query) {
+        Query countQuery = query.nativeQuery()
+                ? entityManager.createNativeQuery(query.countQuery())
+                : entityManager.createQuery(query.countQuery());
+        query.parameters().forEach(countQuery::setParameter);
+        return ((Number) countQuery.getSingleResult()).longValue();
+    }
+
+    private <T> Slice<T> executeExact(PagedQuery<T> query, String orderBy, Pageable pageable) {
+        List<T> rows = fetch(query, query.select(), orderBy, pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(query));
+    }
+
+    private <T> Slice<T> executeWindowed(PagedQuery<T> query, String orderBy, Pageable pageable) {
+        List<Object[]> rows = fetchRows(query, query.select() + ", COUNT(*) OVER()", orderBy,
+                pageable.getOffset(), pageable.getPageSize());
+
+        if (rows.isEmpty()) {
+            // Past the last page the window yields nothing; only the first page can infer an empty total
+            long total = pageable.getOffset() == 0 ? 0 : count(query);
+            return new PageImpl<>(List.of(), pageable, total);
+        }
+
+        List<T> content = new ArrayList<>(rows.size());
+        int countIndex = rows.get(0).length - 1;
+        for (Object[] row : rows) {
+            Object[] selected = new Object[countIndex];
+            System.arraycopy(row, 0, selected, 0, countIndex);
+            content.add(query.rowMapper().apply(selected));
+        }
+        long total = ((Number) rows.get(0)[countIndex]).longValue();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private <T> List<T> fetch(PagedQuery<T> query, String select, String orderBy, long offset, int limit) {
+        List<Object[]> rows = fetchRows(query, select, orderBy, offset, limit);
+        List<T> content = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            content.add(query.rowMapper().apply(row));
+        }
+        return content;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> fetchRows(PagedQuery<?> query, String select, String orderBy, long offset, int limit) {
+        String statement = "SELECT " + select + " " + query.from() + orderBy;
+        Query dataQuery = query.nativeQuery()
+                ? entityManager.createNativeQuery(statement)
+                : entityManager.createQuery(statement);
+        query.parameters().forEach(dataQuery::setParameter);
+        dataQuery.setFirstResult(Math.toIntExact(offset));
+        dataQuery.setMaxResults(limit);
+
+        List<Object> results = dataQuery.getResultList();
+        List<Object[]> rows = new ArrayList<>(results.size());
+        for (Object result : results) {
+            rows.add(result instanceof Object[] row ? row : new Object[]{result});
+        }
+        return rows;
+    }
+
+    private String orderBy(PagedQuery<?> query, Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        StringBuilder clause = new StringBuilder(" ORDER BY ");
+        boolean first = true;
+        for (Sort.Order order : sort) {
+            if (!first) {
+                clause.append(", ");
+            }
+            clause.append(sortColumn(query, order.getProperty())).append(order.isAscending() ? " ASC" : " DESC");
+            first = false;
+        }
+        return clause.toString();
+    }
+
+    private String sortColumn(PagedQuery<?> query, String property) {
+        if (query.sortColumns() != null) {
+            String column = query.sortColumns().get(property);
+            if (column == null) {
+                throw new IllegalArgumentException("Campo de ordenação não suportado: " + property);
+            }
+            return column;
+        }
+        if (!PROPERTY.matcher(property).matches()) {
+            throw new IllegalArgumentException("Campo de ordenação inválido: " + property);
+        }
+        return query.alias() + "." + property;
+    }
+}
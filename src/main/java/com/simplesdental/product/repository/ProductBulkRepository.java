@@ -0,0 +1,117 @@
+package com.simplesdental.product.repository;
+
+import com.simplesdental.product.dto.ProductCreateRequestV2;
+import com.simplesdental.product.model.Product;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based product upsert by code over plain JDBC batches. Ids for new rows are reserved from the product
+ * sequence in blocks of {@link Product#ID_ALLOCATION_SIZE}, the same pooled scheme Hibernate uses, so one
+ * {@code nextval} covers many inserts and the batch never waits on generated keys.
+ */
+@Repository
+public class ProductBulkRepository {
+
+    private static final String EXISTING_SQL = "SELECT code, id FROM products WHERE code = ANY(?)";
+
+    private static final String NEXTVAL_SQL = "SELECT nextval('" + Product.ID_SEQUENCE + "') FROM generate_series(1, ?)";
+
+    // Unchanged rows are skipped: no new row version, no version bump, no change notification
+    private static final String UPSERT_SQL = "INSERT INTO products (id, name, description, price, status, code, category_id, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0) " +
+            "ON CONFLICT (code) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description, " +
+            "price = EXCLUDED.price, status = EXCLUDED.status, category_id = EXCLUDED.category_id, version = products.version + 1 " +
+            "WHERE (products.name, products.description, products.price, products.status, products.category_id) " +
+            "IS DISTINCT FROM (EXCLUDED.name, EXCLUDED.description, EXCLUDED.price, EXCLUDED.status, EXCLUDED.category_id)";
+
+    public record UpsertResult(Long id, boolean created) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductBulkRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Upserts {@code products} (codes must be non-null and distinct) in chunks of {@code batchSize}, all in one
+     * transaction.
+     *
+     * @return one result per product, in the same order
+     */
+    @Transactional
+    public List<UpsertResult> upsertByCode(List<ProductCreateRequestV2> products, int batchSize) {
+        List<UpsertResult> results = new ArrayList<>(products.size());
+        for (int from = 0; from < products.size(); from += batchSize) {
+            results.addAll(upsertChunk(products.subList(from, Math.min(from + batchSize, products.size()))));
+        }
+        return results;
+    }
+
+    private List<UpsertResult> upsertChunk(List<ProductCreateRequestV2> chunk) {
+        Integer[] codes = chunk.stream().map(ProductCreateRequestV2::getCode).toArray(Integer[]::new);
+        Map<Integer, Long> existing = findIdsByCode(codes);
+
+        Deque<Long> newIds = reserveIds(chunk.size() - existing.size());
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        for (ProductCreateRequestV2 product : chunk) {
+            Long id = existing.get(product.getCode());
+            rows.add(new Object[]{
+                    id != null ? id : newIds.pop(),
+                    product.getName(),
+                    product.getDescription(),
+                    product.getPrice(),
+                    product.getStatus(),
+                    product.getCode(),
+                    product.getCategory().getId()});
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, new int[]{
+                Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.NUMERIC, Types.BOOLEAN, Types.INTEGER, Types.BIGINT});
+
+        // Re-read: a code inserted concurrently since the first read resolves to the row that won the conflict
+        Map<Integer, Long> written = findIdsByCode(codes);
+        List<UpsertResult> results = new ArrayList<>(chunk.size());
+        for (Integer code : codes) {
+            results.add(new UpsertResult(written.get(code), !existing.containsKey(code)));
+        }
+        return results;
+    }
+
+    private Map<Integer, Long> findIdsByCode(Integer[] codes) {
+        Map<Integer, Long> ids = new HashMap<>(codes.length * 2);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXISTING_SQL);
+            statement.setArray(1, connection.createArrayOf("integer", codes));
+            return statement;
+        }, (RowCallbackHandler) rs -> ids.put(rs.getInt(1), rs.getLong(2)));
+        return ids;
+    }
+
+    private Deque<Long> reserveIds(int count) {
+        Deque<Long> ids = new ArrayDeque<>(count);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + Product.ID_ALLOCATION_SIZE - 1) / Product.ID_ALLOCATION_SIZE;
+            // Pooled semantics: each value returned is the upper end of a block of ID_ALLOCATION_SIZE ids
+            // (the first block of a fresh sequence is clipped at 1, hence the loop)
+            for (Long high : jdbcTemplate.queryForList(NEXTVAL_SQL, Long.class, blocks)) {
+                for (long id = Math.max(1, high - Product.ID_ALLOCATION_SIZE + 1); id <= high && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+}
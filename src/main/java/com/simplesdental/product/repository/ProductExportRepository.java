@@ -0,0 +1,57 @@
+package com.simplesdental.product.repository;
+
+import com.simplesdental.product.dto.ProductReadModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+/**
+ * Forward-only read of the whole catalog for exports. Plain JDBC (no persistence context), so nothing is
+ * retained per row; rows are pulled from a server-side cursor {@code fetchSize} at a time.
+ */
+@Repository
+public class ProductExportRepository {
+
+    private static final String EXPORT_SQL = "SELECT p.id, p.name, p.description, p.price, p.status, p.code, " +
+            "c.id AS category_id, c.name AS category_name, p.version, c.version AS category_version " +
+            "FROM products p JOIN categories c ON c.id = p.category_id ORDER BY p.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductExportRepository(DataSource dataSource, @Value("${app.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Streams every product, ordered by id, to {@code consumer}. Runs in a read-only transaction because the
+     * PostgreSQL driver only honours the fetch size (cursor mode) with autocommit off. An exception thrown by
+     * the consumer stops the scan and closes the cursor.
+     *
+     * @return number of rows handed to the consumer
+     */
+    @Transactional(readOnly = true)
+    public long forEach(Consumer<ProductReadModel> consumer) {
+        long[] rows = {0};
+        jdbcTemplate.query(EXPORT_SQL, (RowCallbackHandler) rs -> {
+            consumer.accept(new ProductReadModel(
+                    rs.getLong("id"),
+                    rs.getString("name"),
+                    rs.getString("description"),
+                    rs.getBigDecimal("price"),
+                    rs.getObject("status", Boolean.class),
+                    rs.getObject("code", Integer.class),
+                    rs.getLong("category_id"),
+                    rs.getString("category_name"),
+                    rs.getLong("version"),
+                    rs.getLong("category_version")));
+            rows[0]++;
+        });
+        return rows[0];
+    }
+}
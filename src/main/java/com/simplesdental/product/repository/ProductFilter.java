@@ -0,0 +1,81 @@
+package com.simplesdental.product.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed filter for product listings. Every criterion is optional; the ones present are compiled
+ * into a single conjunctive SQL predicate over the products table (see {@link ProductFilterPolicy}
+ * for the combinations the indexes can serve).
+ */
+public record ProductFilter(Boolean status,
+                            List<Long> categoryIds,
+                            BigDecimal minPrice,
+                            BigDecimal maxPrice,
+                            Integer minCode,
+                            Integer maxCode) {
+
+    public static final int MAX_CATEGORY_IDS = 50;
+
+    public static final ProductFilter NONE = new ProductFilter(null, null, null, null, null, null);
+
+    public ProductFilter {
+        categoryIds = categoryIds == null ? List.of() : List.copyOf(categoryIds);
+        if (categoryIds.size() > MAX_CATEGORY_IDS) {
+            throw new IllegalArgumentException("Máximo de " + MAX_CATEGORY_IDS + " categorias por filtro");
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("Preço mínimo não pode ser maior que o preço máximo");
+        }
+        if (minCode != null && maxCode != null && minCode > maxCode) {
+            throw new IllegalArgumentException("Código mínimo não pode ser maior que o código máximo");
+        }
+    }
+
+    public boolean isEmpty() {
+        return status == null && categoryIds.isEmpty() && !hasPriceRange() && !hasCodeRange();
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+
+    public boolean hasCodeRange() {
+        return minCode != null || maxCode != null;
+    }
+
+    /**
+     * Compiles the filter into one SQL predicate over {@code alias} (the products table), adding the bind
+     * values to {@code parameters}. Returns an empty string when no criterion is set.
+     */
+    public String toSql(String alias, Map<String, Object> parameters) {
+        List<String> clauses = new ArrayList<>();
+        if (status != null) {
+            clauses.add(alias + ".status = :status");
+            parameters.put("status", status);
+        }
+        if (!categoryIds.isEmpty()) {
+            clauses.add(alias + ".category_id IN (:categoryIds)");
+            parameters.put("categoryIds", categoryIds);
+        }
+        if (minPrice != null) {
+            clauses.add(alias + ".price >= :minPrice");
+            parameters.put("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            clauses.add(alias + ".price <= :maxPrice");
+            parameters.put("maxPrice", maxPrice);
+        }
+        if (minCode != null) {
+            clauses.add(alias + ".code >= :minCode");
+            parameters.put("minCode", minCode);
+        }
+        if (maxCode != null) {
+            clauses.add(alias + ".code <= :maxCode");
+            parameters.put("maxCode", maxCode);
+        }
+        return String.join(" AND ", clauses);
+    }
+}
@@ -0,0 +1,67 @@
+package com.simplesdental.product.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index-support policy for filtered product listings.
+ * <p>
+ * Filters map onto existing indexes: status/categoryIds use idx_products_status_category (or
+ * idx_products_category_id), price ranges idx_products_price_id and code ranges uk_products_code_integer.
+ * Sorting is restricted to columns that lead an index (id, name, price, code), so the planner never has to
+ * sort the whole filtered set. Combinations that are legal but unlikely to avoid a sequential scan or a sort
+ * of every matching row are reported as warnings instead of being rejected:
+ * <ul>
+ *     <li>status alone (a boolean splits the table roughly in half);</li>
+ *     <li>categoryIds sorted by anything but id: the category indexes end in id, so rows of a category come
+ *     out in id order and any other order means sorting the whole category;</li>
+ *     <li>more than one category id: (category_id, id) orders rows within one category only.</li>
+ * </ul>
+ */
+public final class ProductFilterPolicy {
+
+    static final Set<String> INDEXED_SORT_PROPERTIES = Set.of("id", "name", "price", "code");
+
+    private ProductFilterPolicy() {
+    }
+
+    /**
+     * Validates {@code filter} combined with {@code sort}.
+     *
+     * @return warnings for combinations with poor index selectivity (empty when the combination is fully supported)
+     * @throws IllegalArgumentException when the sort cannot be served by an index together with the filter
+     */
+    public static List<String> check(ProductFilter filter, Sort sort) {
+        if (filter.isEmpty()) {
+            return List.of();
+        }
+
+        for (Sort.Order order : sort) {
+            if (!INDEXED_SORT_PROPERTIES.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Ordenação por " + order.getProperty() +
+                        " não é suportada com filtros. Use: " + String.join(", ", INDEXED_SORT_PROPERTIES.stream().sorted().toList()));
+            }
+        }
+
+        List<String> warnings = new ArrayList<>();
+        if (filter.status() != null && filter.categoryIds().isEmpty() && !filter.hasPriceRange() && !filter.hasCodeRange()) {
+            // A boolean column splits the table roughly in half: the planner will prefer a sequential scan
+            warnings.add("Filtro apenas por status tem baixa seletividade; combine com categoryIds, preço ou código");
+        }
+        if (!filter.categoryIds().isEmpty()) {
+            for (Sort.Order order : sort) {
+                if (!"id".equals(order.getProperty())) {
+                    warnings.add("Ordenação por " + order.getProperty() + " com categoryIds não tem índice; " +
+                            "todas as linhas das categorias serão ordenadas. Prefira ordenar por id");
+                }
+            }
+            if (filter.categoryIds().size() > 1) {
+                warnings.add("Vários categoryIds não são lidos em ordem pelo índice; as linhas de todas as categorias serão ordenadas");
+            }
+        }
+        return warnings;
+    }
+}
@@ -0,0 +1,41 @@
+package com.simplesdental.product.repository;
+
+import com.simplesdental.product.model.ProductImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface ProductImportRepository extends JpaRepository<ProductImport, Long> {
+
+    /**
+     * Commits on its own: called while the import's transaction holds its connection in a COPY, and the
+     * progress has to be visible to other instances before the import commits.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE ProductImport i SET i.status = :status, i.bytesRead = :bytesRead, i.rowsRead = :rowsRead, " +
+            "i.rowsRejected = :rowsRejected WHERE i.id = :id")
+    int updateProgress(Long id, ProductImport.Status status, long bytesRead, long rowsRead, long rowsRejected);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProductImport i SET i.heartbeatAt = :now WHERE i.id IN :ids")
+    int heartbeat(Collection<Long> ids, LocalDateTime now);
+
+    /**
+     * Fails every unfinished job whose holder stopped refreshing its heartbeat before {@code staleBefore}.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProductImport i SET i.status = :failed, i.error = :error, i.finishedAt = :now " +
+            "WHERE i.status IN :unfinished AND i.heartbeatAt < :staleBefore")
+    int failStale(Collection<ProductImport.Status> unfinished, LocalDateTime staleBefore, ProductImport.Status failed,
+                  String error, LocalDateTime now);
+}
@@ -0,0 +1,106 @@
+package com.simplesdental.product.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Partial product update (JSON merge patch): only the fields present change. Compiled into the SET list
+ * of a single UPDATE, so a price-only change writes only the price (plus the version).
+ */
+public record ProductPatch(Map<Field, Object> changes) {
+
+    public enum Field {
+        NAME("name"),
+        DESCRIPTION("description"),
+        PRICE("price"),
+        STATUS("status"),
+        CODE("code"),
+        CATEGORY_ID("category_id");
+
+        private final String column;
+
+        Field(String column) {
+            this.column = column;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+    }
+
+    public ProductPatch {
+        EnumMap<Field, Object> copy = new EnumMap<>(Field.class);
+        copy.putAll(changes);
+        copy.forEach(ProductPatch::check);
+        changes = Collections.unmodifiableMap(copy);
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public boolean changes(Field field) {
+        return changes.containsKey(field);
+    }
+
+    /**
+     * Compiles the patch into a SET list, adding the bind values to {@code parameters}. Removing the
+     * description is written as a literal NULL so no untyped null is bound.
+     */
+    public String toSql(Map<String, Object> parameters) {
+        List<String> assignments = new ArrayList<>();
+        changes.forEach((field, value) -> {
+            if (value == null) {
+                assignments.add(field.getColumn() + " = NULL");
+            } else {
+                assignments.add(field.getColumn() + " = :" + field.name().toLowerCase(Locale.ROOT));
+                parameters.put(field.name().toLowerCase(Locale.ROOT), value);
+            }
+        });
+        return String.join(", ", assignments);
+    }
+
+    // Same rules as ProductCreateRequestV2 and the table constraints
+    private static void check(Field field, Object value) {
+        if (value == null) {
+            if (field != Field.DESCRIPTION) {
+                throw new IllegalArgumentException("Campo obrigatório não pode ser removido: " + fieldName(field));
+            }
+            return;
+        }
+        switch (field) {
+            case NAME -> {
+                String name = (String) value;
+                if (name.isBlank() || name.length() > 100) {
+                    throw new IllegalArgumentException("Nome deve ter entre 1 e 100 caracteres");
+                }
+            }
+            case DESCRIPTION -> {
+                if (((String) value).length() > 255) {
+                    throw new IllegalArgumentException("Descrição deve ter no máximo 255 caracteres");
+                }
+            }
+            case PRICE -> {
+                if (((BigDecimal) value).signum() <= 0) {
+                    throw new IllegalArgumentException("Preço deve ser maior que zero");
+                }
+            }
+            case CODE -> {
+                if ((Integer) value < 1) {
+                    throw new IllegalArgumentException("Código deve ser maior ou igual a 1");
+                }
+            }
+            case STATUS, CATEGORY_ID -> {
+            }
+        }
+    }
+
+    private static String fieldName(Field field) {
+        return field == Field.CATEGORY_ID ? "categoryId" : field.name().toLowerCase(Locale.ROOT);
+    }
+}
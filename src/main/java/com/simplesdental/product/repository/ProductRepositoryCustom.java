@@ -0,0 +1,101 @@
+package com.simplesdental.product.repository;
+
+import com.simplesdental.product.dto.ProductFacetsDTO;
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.dto.ProductSuggestionDTO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Single-table lookups; category name and version are resolved from {@link CategoryReferenceCache}.
+     */
+    Optional<ProductReadModel> findReadModelById(Long id);
+
+    List<ProductReadModel> findReadModelsByIdIn(Collection<Long> ids);
+
+    Optional<ProductReadModel> findReadModelByCode(Integer code);
+
+    /**
+     * Paged listing projected straight into read models (no managed entities), with the total
+     * resolved according to {@code countMode}.
+     */
+    Slice<ProductReadModel> findAllReadModels(Pageable pageable, CountMode countMode);
+
+    /**
+     * Like {@link #findAllReadModels} but restricted by {@code filter}, compiled into a single native predicate.
+     * Sorting is limited to id, name, price and code; callers are expected to check {@link ProductFilterPolicy} first.
+     */
+    Slice<ProductReadModel> findReadModels(ProductFilter filter, Pageable pageable, CountMode countMode);
+
+    /**
+     * Paged products of category {@code categoryId} and all its descendants, in one query. Sorting is limited
+     * to id, name, price and code.
+     */
+    Slice<ProductReadModel> findReadModelsInSubtree(Long categoryId, Pageable pageable, CountMode countMode);
+
+    /**
+     * Keyset (seek) listing: returns up to {@code limit} products matching {@code filter}, ordered by
+     * {@code sortProperty} and id, strictly after the row identified by ({@code lastValue}, {@code lastId}).
+     * Both cursor values null means the first page.
+     */
+    List<ProductReadModel> findReadModelsAfter(ProductFilter filter, String sortProperty, Sort.Direction direction,
+                                               Object lastValue, Long lastId, int limit);
+
+    /**
+     * Full-text search over name and description (Portuguese configuration), ranked by relevance.
+     * {@code categoryId} and {@code status} are optional filters.
+     */
+    Slice<ProductReadModel> search(String text, Long categoryId, Boolean status, Pageable pageable, CountMode countMode);
+
+    /**
+     * Facet counts for the products matching {@code filter}: per category, per status and per price bucket,
+     * computed in one grouping-sets query. {@code priceBounds} are the ascending bucket boundaries; n bounds
+     * yield n + 1 buckets.
+     */
+    ProductFacetsDTO facets(ProductFilter filter, List<BigDecimal> priceBounds);
+
+    /**
+     * Autocomplete: up to {@code limit} products whose name contains {@code term} (case-insensitive, served by
+     * the trigram index), names starting with it first, then by trigram similarity and name.
+     */
+    List<ProductSuggestionDTO> suggest(String term, int limit);
+
+    /**
+     * Applies {@code patch} to product {@code id} with one {@code UPDATE ... RETURNING} statement (bumping the
+     * version) and returns the updated read model, or empty when the product does not exist. A category that
+     * does not exist or a code already in use fails on the table constraints.
+     *
+     * @param expectedVersions when not null (and not empty), the row is only updated if its version is one of them;
+     *                         a stale version is indistinguishable from a missing product in the result
+     */
+    Optional<ProductReadModel> patch(Long id, ProductPatch patch, Collection<Long> expectedVersions);
+
+    /**
+     * Deletes the products with the given ids in one {@code DELETE ... RETURNING} statement.
+     *
+     * @return the ids actually deleted (ids that did not exist are absent)
+     */
+    List<Long> deleteByIds(Collection<Long> ids);
+
+    /**
+     * Deletes product {@code id} only if its version is one of {@code expectedVersions} (not empty), in one statement.
+     *
+     * @return false when the product does not exist or has another version
+     */
+    boolean deleteIfVersion(Long id, Collection<Long> expectedVersions);
+
+    /**
+     * Deletes every product matching {@code filter} (which must not be empty) in one statement.
+     *
+     * @return the deleted ids
+     */
+    List<Long> deleteMatching(ProductFilter filter);
+}
@@ -0,0 +1,419 @@
+package com.simplesdental.product.repository;
+
+import com.simplesdental.product.dto.ProductFacetsDTO;
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.dto.ProductSuggestionDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+@Transactional(readOnly = true)
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    // Category name and version come from CategoryReferenceCache; p.category.id reads the foreign key without a join
+    private static final String READ_MODEL_SELECT = "p.id, p.name, p.description, p.price, p.status, p.code, p.category.id, p.version";
+
+    private static final Map<String, String> READ_MODEL_SORT_COLUMNS = Map.of(
+            "id", "p.id",
+            "name", "p.name",
+            "description", "p.description",
+            "price", "p.price",
+            "status", "p.status",
+            "code", "p.code",
+            "categoryId", "p.category.id",
+            "category.id", "p.category.id",
+            "categoryName", "c.name",
+            "category.name", "c.name");
+
+    private static final Set<String> CATEGORY_NAME_SORTS = Set.of("categoryName", "category.name");
+
+    private static final String NATIVE_READ_MODEL_SELECT = "p.id, p.name, p.description, p.price, p.status, p.code, " +
+            "p.category_id, p.version";
+
+    private static final String NATIVE_READ_MODEL_FROM = "FROM products p";
+
+    private static final String READ_MODEL_BY_ID_SQL = "SELECT " + NATIVE_READ_MODEL_SELECT + " FROM products p WHERE p.id = :id";
+
+    private static final String READ_MODELS_BY_IDS_SQL = "SELECT " + NATIVE_READ_MODEL_SELECT + " FROM products p WHERE p.id IN (:ids)";
+
+    private static final String READ_MODEL_BY_CODE_SQL = "SELECT " + NATIVE_READ_MODEL_SELECT + " FROM products p WHERE p.code = :code";
+
+    private static final Map<String, String> FILTERED_SORT_COLUMNS = Map.of(
+            "id", "p.id",
+            "name", "p.name",
+            "price", "p.price",
+            "code", "p.code");
+
+    private static final Map<String, String> SEARCH_SORT_COLUMNS = Map.of(
+            "relevance", "ts_rank(p.search_vector, query)",
+            "id", "p.id");
+
+    private static final String SUGGEST_SQL = "SELECT p.id, p.name FROM products p WHERE p.name ILIKE :contains " +
+            "ORDER BY p.name ILIKE :startsWith DESC, similarity(p.name, :term) DESC, p.name, p.id LIMIT :limit";
+
+    // GROUPING(category_id, status, bucket) sets a bit for every column aggregated away in the row's grouping set
+    private static final int CATEGORY_GROUPING = 0b011;
+    private static final int STATUS_GROUPING = 0b101;
+    private static final int BUCKET_GROUPING = 0b110;
+    private static final int TOTAL_GROUPING = 0b111;
+
+    // The If-Match check is part of the UPDATE itself: a stale version matches no row
+    private static final String PATCH_SQL = "UPDATE products SET %s, version = version + 1 WHERE id = :id%s " +
+            "RETURNING id, name, description, price, status, code, category_id, version";
+
+    private static final String DELETE_BY_IDS_SQL = "DELETE FROM products WHERE id IN (:ids) RETURNING id";
+
+    private static final String DELETE_IF_VERSION_SQL = "DELETE FROM products WHERE id = :id AND version IN (:versions)";
+
+    private static final String VERSION_CONDITION = " AND version IN (:versions)";
+
+    // Only columns backed by a (column, id) index can be used as seek keys
+    private static final Set<String> KEYSET_PROPERTIES = Set.of("id", "name", "price");
+
+    private final PagedQueryExecutor pagedQueryExecutor;
+    private final CategoryReferenceCache categoryReferenceCache;
+    private final Function<Object[], ProductReadModel> readModelMapper = this::toReadModel;
+    private final PagedQuery<ProductReadModel> readModels;
+    private final PagedQuery<ProductReadModel> readModelsByCategoryName;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductRepositoryCustomImpl(PagedQueryExecutor pagedQueryExecutor, CategoryReferenceCache categoryReferenceCache) {
+        this.pagedQueryExecutor = pagedQueryExecutor;
+        this.categoryReferenceCache = categoryReferenceCache;
+        this.readModels = readModelsQuery("FROM Product p");
+        // Ordering by category name is the one listing that still needs the join
+        this.readModelsByCategoryName = readModelsQuery("FROM Product p JOIN p.category c");
+    }
+
+    @Override
+    public Optional<ProductReadModel> findReadModelById(Long id) {
+        return readModels(entityManager.createNativeQuery(READ_MODEL_BY_ID_SQL).setParameter("id", id)).stream().findFirst();
+    }
+
+    @Override
+    public List<ProductReadModel> findReadModelsByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return readModels(entityManager.createNativeQuery(READ_MODELS_BY_IDS_SQL).setParameter("ids", ids));
+    }
+
+    @Override
+    public Optional<ProductReadModel> findReadModelByCode(Integer code) {
+        return readModels(entityManager.createNativeQuery(READ_MODEL_BY_CODE_SQL).setParameter("code", code)).stream().findFirst();
+    }
+
+    @Override
+    public Slice<ProductReadModel> findAllReadModels(Pageable pageable, CountMode countMode) {
+        boolean byCategoryName = pageable.getSort().stream().anyMatch(order -> CATEGORY_NAME_SORTS.contains(order.getProperty()));
+        return execute(byCategoryName ? readModelsByCategoryName : readModels, pageable, countMode);
+    }
+
+    @Override
+    public Slice<ProductReadModel> findReadModels(ProductFilter filter, Pageable pageable, CountMode countMode) {
+        if (filter.isEmpty()) {
+            return findAllReadModels(pageable, countMode);
+        }
+
+        Map<String, Object> parameters = new HashMap<>();
+        String where = " WHERE " + filter.toSql("p", parameters);
+        PagedQuery<ProductReadModel> filteredQuery = new PagedQuery<>(
+                true,
+                NATIVE_READ_MODEL_SELECT,
+                NATIVE_READ_MODEL_FROM + where,
+                "SELECT COUNT(*) FROM products p" + where,
+                null,
+                parameters,
+                "p",
+                FILTERED_SORT_COLUMNS,
+                readModelMapper);
+        return execute(filteredQuery, pageable, countMode);
+    }
+
+    @Override
+    public Slice<ProductReadModel> findReadModelsInSubtree(Long categoryId, Pageable pageable, CountMode countMode) {
+        // Root by primary key, its subtree as a range of the path index, then products by category_id
+        String subtree = " JOIN categories c ON c.id = p.category_id JOIN categories r ON r.id = :rootId AND " +
+                CategoryTree.subtreeOf("c", "r");
+        PagedQuery<ProductReadModel> subtreeQuery = new PagedQuery<>(
+                true,
+                NATIVE_READ_MODEL_SELECT,
+                NATIVE_READ_MODEL_FROM + subtree,
+                "SELECT COUNT(*) " + NATIVE_READ_MODEL_FROM + subtree,
+                null,
+                Map.of("rootId", categoryId),
+                "p",
+                FILTERED_SORT_COLUMNS,
+                readModelMapper);
+        return execute(subtreeQuery, pageable, countMode);
+    }
+
+    @Override
+    public Slice<ProductReadModel> search(String text, Long categoryId, Boolean status, Pageable pageable, CountMode countMode) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("text", text);
+
+        StringBuilder where = new StringBuilder(" WHERE p.search_vector @@ query");
+        if (categoryId != null) {
+            where.append(" AND p.category_id = :categoryId");
+            parameters.put("categoryId", categoryId);
+        }
+        if (status != null) {
+            where.append(" AND p.status = :status");
+            parameters.put("status", status);
+        }
+
+        String tsQuery = " CROSS JOIN websearch_to_tsquery('portuguese', :text) query";
+        PagedQuery<ProductReadModel> searchQuery = new PagedQuery<>(
+                true,
+                NATIVE_READ_MODEL_SELECT,
+                NATIVE_READ_MODEL_FROM + tsQuery + where,
+                "SELECT COUNT(*) FROM products p" + tsQuery + where,
+                null,
+                parameters,
+                "p",
+                SEARCH_SORT_COLUMNS,
+                readModelMapper);
+        return execute(searchQuery, pageable, countMode);
+    }
+
+    @Override
+    public List<ProductReadModel> findReadModelsAfter(ProductFilter filter, String sortProperty, Sort.Direction direction,
+                                                      Object lastValue, Long lastId, int limit) {
+        if (!KEYSET_PROPERTIES.contains(sortProperty)) {
+            throw new IllegalArgumentException("Ordenação não suportada para paginação por cursor: " + sortProperty);
+        }
+
+        boolean descending = direction.isDescending();
+        String comparator = descending ? "<" : ">";
+        String order = descending ? "DESC" : "ASC";
+        boolean idOnly = "id".equals(sortProperty);
+
+        Map<String, Object> parameters = new HashMap<>();
+        List<String> predicates = new ArrayList<>();
+        if (!filter.isEmpty()) {
+            predicates.add(filter.toSql("p", parameters));
+        }
+        if (lastId != null) {
+            parameters.put("lastId", lastId);
+            if (idOnly) {
+                predicates.add("p.id " + comparator + " :lastId");
+            } else {
+                // The leading non-strict comparison gives the planner an index range on (column, id)
+                parameters.put("lastValue", lastValue);
+                predicates.add("p." + sortProperty + ' ' + comparator + "= :lastValue" +
+                        " AND (p." + sortProperty + ' ' + comparator + " :lastValue OR p.id " + comparator + " :lastId)");
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(NATIVE_READ_MODEL_SELECT).append(' ').append(NATIVE_READ_MODEL_FROM);
+        if (!predicates.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+        if (!idOnly) {
+            sql.append(" ORDER BY p.").append(sortProperty).append(' ').append(order).append(", p.id ").append(order);
+        } else {
+            sql.append(" ORDER BY p.id ").append(order);
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        parameters.forEach(query::setParameter);
+        return readModels(query.setMaxResults(limit));
+    }
+
+    @Override
+    public ProductFacetsDTO facets(ProductFilter filter, List<BigDecimal> priceBounds) {
+        categoryReferenceCache.ensureCurrent();
+        Map<String, Object> parameters = new HashMap<>();
+
+        StringBuilder bucket = new StringBuilder();
+        if (priceBounds.isEmpty()) {
+            bucket.append('0');
+        } else {
+            bucket.append("CASE");
+            for (int i = 0; i < priceBounds.size(); i++) {
+                bucket.append(" WHEN p.price < :bound").append(i).append(" THEN ").append(i);
+                parameters.put("bound" + i, priceBounds.get(i));
+            }
+            bucket.append(" ELSE ").append(priceBounds.size()).append(" END");
+        }
+
+        // LEFT JOIN: products without a category still count towards status, price and total
+        // Category names are resolved from CategoryReferenceCache after grouping
+        StringBuilder sql = new StringBuilder("SELECT f.category_id, f.status, f.bucket, ")
+                .append("GROUPING(f.category_id, f.status, f.bucket) AS grouping_id, COUNT(*) AS total ")
+                .append("FROM (SELECT p.category_id, p.status, ").append(bucket).append(" AS bucket ")
+                .append("FROM products p");
+        if (!filter.isEmpty()) {
+            sql.append(" WHERE ").append(filter.toSql("p", parameters));
+        }
+        sql.append(") f GROUP BY GROUPING SETS ((f.category_id), (f.status), (f.bucket), ())");
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        parameters.forEach(query::setParameter);
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+
+        long total = 0;
+        long active = 0;
+        long inactive = 0;
+        long[] bucketCounts = new long[priceBounds.size() + 1];
+        List<ProductFacetsDTO.CategoryFacet> categories = new ArrayList<>();
+        for (Object[] row : rows) {
+            long count = ((Number) row[4]).longValue();
+            switch (((Number) row[3]).intValue()) {
+                case CATEGORY_GROUPING -> {
+                    Long categoryId = row[0] != null ? ((Number) row[0]).longValue() : null;
+                    CategoryReferenceCache.CategoryRef category = categoryReferenceCache.get(categoryId);
+                    categories.add(new ProductFacetsDTO.CategoryFacet(categoryId, category != null ? category.name() : null, count));
+                }
+                case STATUS_GROUPING -> {
+                    if (Boolean.TRUE.equals(row[1])) {
+                        active = count;
+                    } else {
+                        inactive = count;
+                    }
+                }
+                case BUCKET_GROUPING -> bucketCounts[((Number) row[2]).intValue()] = count;
+                case TOTAL_GROUPING -> total = count;
+                default -> throw new IllegalStateException("Unexpected grouping set: " + row[3]);
+            }
+        }
+        categories.sort(Comparator.comparingLong(ProductFacetsDTO.CategoryFacet::count).reversed()
+                .thenComparing(ProductFacetsDTO.CategoryFacet::name, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        List<ProductFacetsDTO.PriceBucketFacet> buckets = new ArrayList<>(bucketCounts.length);
+        for (int i = 0; i < bucketCounts.length; i++) {
+            buckets.add(new ProductFacetsDTO.PriceBucketFacet(
+                    i > 0 ? priceBounds.get(i - 1) : null,
+                    i < priceBounds.size() ? priceBounds.get(i) : null,
+                    bucketCounts[i]));
+        }
+        return new ProductFacetsDTO(total, categories, new ProductFacetsDTO.StatusFacet(active, inactive), buckets);
+    }
+
+    @Override
+    public List<ProductSuggestionDTO> suggest(String term, int limit) {
+        // Backslash is the default LIKE escape in Postgres; the term must match literally
+        String literal = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(SUGGEST_SQL)
+                .setParameter("contains", '%' + literal + '%')
+                .setParameter("startsWith", literal + '%')
+                .setParameter("term", term)
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new ProductSuggestionDTO(((Number) row[0]).longValue(), (String) row[1]))
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public Optional<ProductReadModel> patch(Long id, ProductPatch patch, Collection<Long> expectedVersions) {
+        Map<String, Object> parameters = new HashMap<>();
+        if (expectedVersions != null) {
+            parameters.put("versions", expectedVersions);
+        }
+        Query query = entityManager.createNativeQuery(PATCH_SQL.formatted(patch.toSql(parameters),
+                expectedVersions != null ? VERSION_CONDITION : ""));
+        parameters.forEach(query::setParameter);
+        query.setParameter("id", id);
+        return readModels(query).stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public List<Long> deleteByIds(Collection<Long> ids) {
+        return deleted(entityManager.createNativeQuery(DELETE_BY_IDS_SQL).setParameter("ids", ids));
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteIfVersion(Long id, Collection<Long> expectedVersions) {
+        return entityManager.createNativeQuery(DELETE_IF_VERSION_SQL)
+                .setParameter("id", id)
+                .setParameter("versions", expectedVersions)
+                .executeUpdate() > 0;
+    }
+
+    @Override
+    @Transactional
+    public List<Long> deleteMatching(ProductFilter filter) {
+        if (filter.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um filtro para excluir produtos");
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        Query query = entityManager.createNativeQuery("DELETE FROM products p WHERE " + filter.toSql("p", parameters) +
+                " RETURNING p.id");
+        parameters.forEach(query::setParameter);
+        return deleted(query);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> deleted(Query query) {
+        List<Number> ids = query.getResultList();
+        return ids.stream().map(Number::longValue).toList();
+    }
+
+    // Every read model query goes through one of these two, so the category snapshot is checked once per query
+    private Slice<ProductReadModel> execute(PagedQuery<ProductReadModel> query, Pageable pageable, CountMode countMode) {
+        categoryReferenceCache.ensureCurrent();
+        return pagedQueryExecutor.execute(query, pageable, countMode);
+    }
+
+    private List<ProductReadModel> readModels(Query query) {
+        categoryReferenceCache.ensureCurrent();
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        return rows.stream().map(readModelMapper).toList();
+    }
+
+    private PagedQuery<ProductReadModel> readModelsQuery(String from) {
+        return new PagedQuery<>(
+                false,
+                READ_MODEL_SELECT,
+                from,
+                "SELECT COUNT(p) FROM Product p",
+                "products",
+                Map.of(),
+                "p",
+                READ_MODEL_SORT_COLUMNS,
+                readModelMapper);
+    }
+
+    // Rows carry the product columns and category_id; name and version are looked up in memory
+    private ProductReadModel toReadModel(Object[] row) {
+        Long categoryId = (Long) row[6];
+        CategoryReferenceCache.CategoryRef category = categoryReferenceCache.get(categoryId);
+        return new ProductReadModel(
+                (Long) row[0],
+                (String) row[1],
+                (String) row[2],
+                (BigDecimal) row[3],
+                (Boolean) row[4],
+                (Integer) row[5],
+                categoryId,
+                category != null ? category.name() : null,
+                (Long) row[7],
+                category != null ? category.version() : null);
+    }
+}
@@ -0,0 +1,209 @@
+package com.simplesdental.product.repository;
+
+import com.simplesdental.product.model.Product;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads validated import rows into a per-transaction staging table with {@code COPY ... FROM STDIN} and merges
+ * them into {@code products} with a single upsert. Rows stream straight from the caller to the COPY; nothing
+ * is buffered beyond the writer buffer.
+ */
+@Repository
+public class ProductStagingRepository {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CREATE_STAGING_SQL = "CREATE TEMP TABLE product_import_staging (" +
+            "line BIGINT NOT NULL, name VARCHAR(100) NOT NULL, description VARCHAR(255), price DECIMAL(19, 2) NOT NULL, " +
+            "status BOOLEAN NOT NULL, code INTEGER NOT NULL, category_id BIGINT NOT NULL) ON COMMIT DROP";
+
+    private static final String COPY_SQL = "COPY product_import_staging (line, name, description, price, status, code, category_id) " +
+            "FROM STDIN WITH (FORMAT csv)";
+
+    // A code repeated in the file keeps its last occurrence; the earlier ones and rows of unknown categories are rejected
+    private static final String REJECTED_SQL = "SELECT line, winner, category_missing FROM (" +
+            "SELECT s.line, max(s.line) OVER (PARTITION BY s.code) AS winner, c.id IS NULL AS category_missing " +
+            "FROM product_import_staging s LEFT JOIN categories c ON c.id = s.category_id) r " +
+            "WHERE line <> winner OR category_missing ORDER BY line";
+
+    // New rows get ids in pooled blocks of ID_ALLOCATION_SIZE, one nextval per block (as ProductBulkRepository does);
+    // the clipped first block of a fresh sequence falls back to one nextval per row. Unchanged rows are not rewritten.
+    private static final String MERGE_SQL = "WITH latest AS (" +
+            "SELECT DISTINCT ON (s.code) s.line, s.name, s.description, s.price, s.status, s.code, s.category_id " +
+            "FROM product_import_staging s ORDER BY s.code, s.line DESC" +
+            "), candidates AS (" +
+            "SELECT l.*, p.id AS existing_id, row_number() OVER (PARTITION BY p.id IS NULL ORDER BY l.line) AS n " +
+            "FROM latest l JOIN categories c ON c.id = l.category_id LEFT JOIN products p ON p.code = l.code" +
+            "), blocks AS (" +
+            "SELECT b, nextval('" + Product.ID_SEQUENCE + "') AS hi FROM generate_series(1, " +
+            "(SELECT (count(*) + " + (Product.ID_ALLOCATION_SIZE - 1) + ") / " + Product.ID_ALLOCATION_SIZE +
+            " FROM candidates WHERE existing_id IS NULL)) AS b" +
+            "), written AS (" +
+            "INSERT INTO products (id, name, description, price, status, code, category_id, version) " +
+            "SELECT COALESCE(c.existing_id, CASE WHEN bk.hi - " + (Product.ID_ALLOCATION_SIZE - 1) + " + (c.n - 1) % " +
+            Product.ID_ALLOCATION_SIZE + " > 0 THEN bk.hi - " + (Product.ID_ALLOCATION_SIZE - 1) + " + (c.n - 1) % " +
+            Product.ID_ALLOCATION_SIZE + " ELSE nextval('" + Product.ID_SEQUENCE + "') END), " +
+            "c.name, c.description, c.price, c.status, c.code, c.category_id, 0 " +
+            "FROM candidates c LEFT JOIN blocks bk ON c.existing_id IS NULL AND bk.b = (c.n - 1) / " +
+            Product.ID_ALLOCATION_SIZE + " + 1 " +
+            "ON CONFLICT (code) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description, " +
+            "price = EXCLUDED.price, status = EXCLUDED.status, category_id = EXCLUDED.category_id, version = products.version + 1 " +
+            "WHERE (products.name, products.description, products.price, products.status, products.category_id) " +
+            "IS DISTINCT FROM (EXCLUDED.name, EXCLUDED.description, EXCLUDED.price, EXCLUDED.status, EXCLUDED.category_id) " +
+            "RETURNING (xmax = 0) AS created" +
+            ") SELECT count(*) FILTER (WHERE created) AS created_count, count(*) FILTER (WHERE NOT created) AS updated_count " +
+            "FROM written";
+
+    /**
+     * A parsed and validated import row; {@code line} is its position in the uploaded file.
+     */
+    public record StagedRow(long line, String name, String description, BigDecimal price, boolean status, int code,
+                            long categoryId) {
+    }
+
+    @FunctionalInterface
+    public interface RowWriter {
+        void write(StagedRow row) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface RowSource {
+        /**
+         * Writes every row to be staged; returning ends the COPY.
+         */
+        void writeTo(RowWriter writer) throws IOException;
+    }
+
+    public record Rejection(long line, String reason) {
+    }
+
+    /**
+     * @param rejected   staged rows not merged (duplicated code or unknown category)
+     * @param rejections the first of them, in file order
+     */
+    public record MergeResult(long staged, long created, long updated, long rejected, List<Rejection> rejections) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductStagingRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Stages every row of {@code source} and merges them, all in one transaction on one connection: either the
+     * whole file is applied or nothing is.
+     *
+     * The connection is busy with the COPY while {@code source} runs: anything the source writes to the database
+     * must go through its own transaction (see {@code ProductImportRepository.updateProgress}).
+     *
+     * @param beforeMerge   called once the COPY has ended, before the rejected rows are read and the merge runs
+     * @param maxRejections how many rejected rows to describe in the result
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public MergeResult stageAndMerge(RowSource source, Runnable beforeMerge, int maxRejections) throws IOException {
+        try {
+            // Runs on the transaction's connection: the ON COMMIT DROP staging table lives until the merge commits
+            return jdbcTemplate.execute((ConnectionCallback<MergeResult>) connection ->
+                    run(connection, source, beforeMerge, maxRejections));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private MergeResult run(Connection connection, RowSource source, Runnable beforeMerge, int maxRejections)
+            throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_SQL);
+        }
+
+        long staged = copy(connection, source);
+        beforeMerge.run();
+
+        long rejected = 0;
+        List<Rejection> rejections = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(REJECTED_SQL);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rejected++;
+                if (rejections.size() < maxRejections) {
+                    long line = rs.getLong("line");
+                    long winner = rs.getLong("winner");
+                    rejections.add(new Rejection(line, line != winner
+                            ? "Código repetido no arquivo (prevalece a linha " + winner + ")"
+                            : "Categoria não encontrada"));
+                }
+            }
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(MERGE_SQL);
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return new MergeResult(staged, rs.getLong("created_count"), rs.getLong("updated_count"), rejected, rejections);
+        }
+    }
+
+    private long copy(Connection connection, RowSource source) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        long[] rows = {0};
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(pgConnection, COPY_SQL, BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            source.writeTo(row -> {
+                writeRow(writer, row);
+                rows[0]++;
+            });
+        } catch (IOException e) {
+            // A failing source (unreadable upload) or COPY; either way the transaction is rolled back
+            throw new UncheckedIOException(e);
+        }
+        return rows[0];
+    }
+
+    private void writeRow(Writer writer, StagedRow row) throws IOException {
+        writer.write(Long.toString(row.line()));
+        writer.write(',');
+        writeField(writer, row.name());
+        writer.write(',');
+        writeField(writer, row.description());
+        writer.write(',');
+        writer.write(row.price().toPlainString());
+        writer.write(',');
+        writer.write(row.status() ? "t" : "f");
+        writer.write(',');
+        writer.write(Integer.toString(row.code()));
+        writer.write(',');
+        writer.write(Long.toString(row.categoryId()));
+        writer.write('\n');
+    }
+
+    // COPY csv: an unquoted empty field is NULL, so every non-null text value is quoted
+    private void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        writer.write('"');
+        writer.write(value.indexOf('"') < 0 ? value : value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,52 @@
+package com.simplesdental.product.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the planner row estimate of a table from {@code pg_class.reltuples}, caching it
+ * for a configurable interval so estimated counts cost no round-trip on most requests.
+ */
+@Repository
+public class TableRowEstimator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableRowEstimator.class);
+
+    private final Map<String, CachedEstimate> estimates = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.pagination.estimate-refresh-ms:60000}")
+    private long refreshIntervalMs;
+
+    /**
+     * @return the estimated row count, or -1 when the table was never analyzed
+     */
+    public long estimateRowCount(String table) {
+        long now = System.currentTimeMillis();
+        CachedEstimate cached = estimates.get(table);
+        if (cached != null && now - cached.fetchedAt() < refreshIntervalMs) {
+            return cached.rows();
+        }
+
+        Number reltuples = (Number) entityManager
+                .createNativeQuery("SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(:table)")
+                .setParameter("table", table)
+                .getSingleResult();
+        long rows = reltuples != null ? reltuples.longValue() : -1L;
+
+        logger.debug("Refreshed row estimate for table {}: {}", table, rows);
+        estimates.put(table, new CachedEstimate(rows, now));
+        return rows;
+    }
+
+    private record CachedEstimate(long rows, long fetchedAt) {}
+}
@@ -0,0 +1,86 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.util.ETags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Catalog-wide change generation, shared by all instances through a Redis counter. Every product or
+ * category write bumps it, so any listing rendered under the same generation is still current.
+ */
+@Service
+public class CatalogGenerationService {
+
+    static final String GENERATION_KEY = "catalog:generation";
+
+    static final String CATEGORY_GENERATION_KEY = "catalog:category-generation";
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogGenerationService.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public CatalogGenerationService(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * @return the current generation, or -1 when it cannot be read (callers must then skip validation)
+     */
+    public long current() {
+        return read(GENERATION_KEY);
+    }
+
+    /**
+     * @return the new generation, or -1 when it could not be bumped
+     */
+    public long bump() {
+        return increment(GENERATION_KEY);
+    }
+
+    /**
+     * Generation of the category table alone. Moves only on category writes, so nodes holding an in-process
+     * copy of the categories can tell when theirs is behind without reacting to every product write.
+     *
+     * @return the current category generation, or -1 when it cannot be read
+     */
+    public long currentCategories() {
+        return read(CATEGORY_GENERATION_KEY);
+    }
+
+    /**
+     * @return the new category generation, or -1 when it could not be bumped
+     */
+    public long bumpCategories() {
+        return increment(CATEGORY_GENERATION_KEY);
+    }
+
+    private long read(String key) {
+        try {
+            String value = redisTemplate.opsForValue().get(key);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (RuntimeException e) {
+            logger.warn("Catalog generation {} unavailable: {}", key, e.getMessage());
+            return -1L;
+        }
+    }
+
+    private long increment(String key) {
+        try {
+            Long generation = redisTemplate.opsForValue().increment(key);
+            return generation != null ? generation : -1L;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to bump catalog generation {}: {}", key, e.getMessage());
+            return -1L;
+        }
+    }
+
+    /**
+     * Weak ETag for catalog listings, or null when the generation is unavailable.
+     */
+    public String listingETag() {
+        long generation = current();
+        return generation >= 0 ? ETags.weak(generation) : null;
+    }
+}
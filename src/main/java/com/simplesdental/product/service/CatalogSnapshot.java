@@ -0,0 +1,567 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.repository.CountMode;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Immutable, columnar in-memory copy of the catalog. Products are stored in parallel primitive arrays
+ * sorted by id (prices as longs scaled by 100, names interned); categories are referenced by index.
+ * The price ordering is precomputed as an index permutation. Changes produce a new snapshot through
+ * {@link #apply}, which merges the changed rows into copies of the columns and ordering instead of
+ * re-sorting them; readers never see a partially updated one.
+ * <p>
+ * Only orders that agree exactly with the database (id and price) are served. Name order is left to the
+ * database: its collation differs from {@link String#compareTo}, and callers fall back to the database
+ * whenever the snapshot lags, so a cursor or page could otherwise switch between the two orders.
+ */
+public final class CatalogSnapshot {
+
+    private static final int PRICE_SCALE = 2;
+    private static final int NO_CODE = Integer.MIN_VALUE;
+    private static final int NO_CATEGORY = -1;
+    private static final int REFERENCE_BYTES = 4;
+
+    // Product columns may be longer than size (a delta allocates for its upserts); only [0, size) is used
+    private final int size;
+    private final long[] ids;
+    private final String[] names;
+    private final String[] descriptions;
+    private final long[] prices;
+    private final boolean[] statuses;
+    private final int[] codes;
+    private final int[] categoryIndexes;
+    private final long[] versions;
+
+    private final long[] categoryIds;
+    private final String[] categoryNames;
+    private final long[] categoryVersions;
+
+    private final int[] byPrice;
+
+    // Computed on first read (the memory gauge); a racy recomputation yields the same value
+    private long estimatedBytes = -1;
+
+    private CatalogSnapshot(int size, long[] ids, String[] names, String[] descriptions, long[] prices,
+                            boolean[] statuses, int[] codes, int[] categoryIndexes, long[] versions,
+                            long[] categoryIds, String[] categoryNames, long[] categoryVersions,
+                            int[] byPrice) {
+        this.size = size;
+        this.ids = ids;
+        this.names = names;
+        this.descriptions = descriptions;
+        this.prices = prices;
+        this.statuses = statuses;
+        this.codes = codes;
+        this.categoryIndexes = categoryIndexes;
+        this.versions = versions;
+        this.categoryIds = categoryIds;
+        this.categoryNames = categoryNames;
+        this.categoryVersions = categoryVersions;
+        this.byPrice = byPrice;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int productCount() {
+        return size;
+    }
+
+    public long estimatedBytes() {
+        long bytes = estimatedBytes;
+        if (bytes < 0) {
+            bytes = estimateBytes();
+            estimatedBytes = bytes;
+        }
+        return bytes;
+    }
+
+    public Optional<ProductReadModel> findById(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        return row >= 0 ? Optional.of(row(row)) : Optional.empty();
+    }
+
+    public Map<Long, ProductReadModel> findAllByIds(Collection<Long> requestedIds) {
+        Map<Long, ProductReadModel> found = new HashMap<>();
+        for (Long id : requestedIds) {
+            findById(id).ifPresent(product -> found.put(id, product));
+        }
+        return found;
+    }
+
+    /**
+     * Offset page ordered by a single id or price order.
+     *
+     * @return the page, or null when the requested sort cannot be served from the snapshot
+     */
+    public Slice<ProductReadModel> findAll(Pageable pageable, CountMode countMode) {
+        Sort.Order order = singleOrder(pageable.getSort());
+        if (order == null) {
+            return null;
+        }
+        int[] permutation = permutationFor(order.getProperty());
+        boolean descending = order.isDescending();
+
+        int from = (int) Math.min(pageable.getOffset(), size);
+        int to = (int) Math.min((long) from + pageable.getPageSize(), size);
+        List<ProductReadModel> content = new ArrayList<>(to - from);
+        for (int position = from; position < to; position++) {
+            content.add(row(at(permutation, descending ? size - 1 - position : position)));
+        }
+
+        if (countMode == CountMode.NONE) {
+            return new SliceImpl<>(content, pageable, to < size);
+        }
+        return new PageImpl<>(content, pageable, size);
+    }
+
+    /**
+     * Keyset page: up to {@code limit} products after ({@code lastValue}, {@code lastId}) in the given order,
+     * mirroring {@code ProductRepositoryCustom#findReadModelsAfter} for an empty filter.
+     *
+     * @return the rows, or null when the sort property cannot be served from the snapshot
+     */
+    public List<ProductReadModel> findAfter(String sortProperty, Sort.Direction direction,
+                                            Object lastValue, Long lastId, int limit) {
+        if (!isOrderable(sortProperty)) {
+            return null;
+        }
+        int[] permutation = permutationFor(sortProperty);
+        List<ProductReadModel> rows = new ArrayList<>(Math.min(limit, size));
+
+        if (direction.isAscending()) {
+            int position = lastId == null ? 0 : firstPositionAbove(sortProperty, permutation, lastValue, lastId);
+            for (; position < size && rows.size() < limit; position++) {
+                rows.add(row(at(permutation, position)));
+            }
+        } else {
+            int position = lastId == null ? size - 1 : firstPositionAtOrAbove(sortProperty, permutation, lastValue, lastId) - 1;
+            for (; position >= 0 && rows.size() < limit; position--) {
+                rows.add(row(at(permutation, position)));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Copy-on-write delta: returns a new snapshot with the given products and categories inserted or
+     * replaced and the given ids removed. This snapshot is left untouched.
+     * <p>
+     * Rows stay sorted by id and both orderings stay sorted, so the k changed products are sorted on their own
+     * and merged with the surviving rows: one O(n) copy plus O(k log k), never a re-sort of the catalog.
+     */
+    public CatalogSnapshot apply(Collection<ProductReadModel> productUpserts, Collection<Long> productDeletes,
+                                 Collection<CategoryEntry> categoryUpserts, Collection<Long> categoryDeletes) {
+        // Categories are few; they are rebuilt whole and old rows are re-pointed through an index map
+        Set<Long> removedCategories = new HashSet<>(categoryDeletes);
+        TreeMap<Long, CategoryEntry> categories = new TreeMap<>();
+        for (int i = 0; i < categoryIds.length; i++) {
+            if (!removedCategories.contains(categoryIds[i])) {
+                categories.put(categoryIds[i], new CategoryEntry(categoryIds[i], categoryNames[i], categoryVersions[i]));
+            }
+        }
+        categoryUpserts.forEach(category -> categories.put(category.id(), category));
+        for (ProductReadModel product : productUpserts) {
+            if (product.categoryId() != null && !categories.containsKey(product.categoryId())) {
+                categories.put(product.categoryId(), new CategoryEntry(product.categoryId(), product.categoryName(),
+                        product.categoryVersion() != null ? product.categoryVersion() : 0L));
+            }
+        }
+        long[] newCategoryIds = new long[categories.size()];
+        String[] newCategoryNames = new String[categories.size()];
+        long[] newCategoryVersions = new long[categories.size()];
+        int index = 0;
+        for (CategoryEntry category : categories.values()) {
+            newCategoryIds[index] = category.id();
+            newCategoryNames[index] = category.name();
+            newCategoryVersions[index] = category.version();
+            index++;
+        }
+        int[] categoryRemap = new int[categoryIds.length];
+        for (int i = 0; i < categoryIds.length; i++) {
+            int remapped = Arrays.binarySearch(newCategoryIds, categoryIds[i]);
+            categoryRemap[i] = remapped >= 0 ? remapped : NO_CATEGORY;
+        }
+
+        ProductReadModel[] upserts = productUpserts.toArray(ProductReadModel[]::new);
+        Arrays.sort(upserts, Comparator.comparingLong(ProductReadModel::id));
+        long[] gone = new long[productDeletes.size() + upserts.length];
+        int goneCount = 0;
+        for (Long id : productDeletes) {
+            gone[goneCount++] = id;
+        }
+        for (ProductReadModel product : upserts) {
+            gone[goneCount++] = product.id();
+        }
+        Arrays.sort(gone);
+
+        int capacity = size + upserts.length;
+        long[] newIds = new long[capacity];
+        String[] newNames = new String[capacity];
+        String[] newDescriptions = new String[capacity];
+        long[] newPrices = new long[capacity];
+        boolean[] newStatuses = new boolean[capacity];
+        int[] newCodes = new int[capacity];
+        int[] newCategoryIndexes = new int[capacity];
+        long[] newVersions = new long[capacity];
+
+        int[] oldToNew = new int[size];
+        int[] upsertRows = new int[upserts.length];
+        int row = 0;
+        int next = 0;
+        int goneAt = 0;
+        int i = 0;
+        while (i < size || next < upserts.length) {
+            if (next < upserts.length && (i == size || upserts[next].id() < ids[i])) {
+                upsertRows[next] = row;
+                ProductReadModel product = upserts[next++];
+                newIds[row] = product.id();
+                newNames[row] = product.name();
+                newDescriptions[row] = product.description();
+                newPrices[row] = scale(product.price());
+                newStatuses[row] = Boolean.TRUE.equals(product.status());
+                newCodes[row] = product.code() != null ? product.code() : NO_CODE;
+                newCategoryIndexes[row] = categoryIndex(newCategoryIds, product.categoryId());
+                newVersions[row] = product.version() != null ? product.version() : 0L;
+                row++;
+                continue;
+            }
+            while (goneAt < goneCount && gone[goneAt] < ids[i]) {
+                goneAt++;
+            }
+            if (goneAt < goneCount && gone[goneAt] == ids[i]) {
+                oldToNew[i++] = -1;
+                continue;
+            }
+            oldToNew[i] = row;
+            newIds[row] = ids[i];
+            newNames[row] = names[i];
+            newDescriptions[row] = descriptions[i];
+            newPrices[row] = prices[i];
+            newStatuses[row] = statuses[i];
+            newCodes[row] = codes[i];
+            newCategoryIndexes[row] = categoryIndexes[i] == NO_CATEGORY ? NO_CATEGORY : categoryRemap[categoryIndexes[i]];
+            newVersions[row] = versions[i];
+            row++;
+            i++;
+        }
+
+        int newSize = row;
+        IntBinaryOperator priceOrder = byPrice(newPrices, newIds);
+        return new CatalogSnapshot(newSize, newIds, newNames, newDescriptions, newPrices, newStatuses, newCodes,
+                newCategoryIndexes, newVersions, newCategoryIds, newCategoryNames, newCategoryVersions,
+                mergeOrder(byPrice, oldToNew, upsertRows, newSize, priceOrder));
+    }
+
+    private ProductReadModel row(int i) {
+        int category = categoryIndexes[i];
+        return new ProductReadModel(
+                ids[i],
+                names[i],
+                descriptions[i],
+                BigDecimal.valueOf(prices[i], PRICE_SCALE),
+                statuses[i],
+                codes[i] == NO_CODE ? null : codes[i],
+                category == NO_CATEGORY ? null : categoryIds[category],
+                category == NO_CATEGORY ? null : categoryNames[category],
+                versions[i],
+                category == NO_CATEGORY ? null : categoryVersions[category]);
+    }
+
+    private static boolean isOrderable(String property) {
+        return "id".equals(property) || "price".equals(property);
+    }
+
+    private static Sort.Order singleOrder(Sort sort) {
+        if (sort.isUnsorted()) {
+            return Sort.Order.asc("id");
+        }
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1 && isOrderable(orders.get(0).getProperty()) ? orders.get(0) : null;
+    }
+
+    // null stands for the identity permutation (rows are already sorted by id)
+    private int[] permutationFor(String property) {
+        return switch (property) {
+            case "price" -> byPrice;
+            default -> null;
+        };
+    }
+
+    private static int at(int[] permutation, int position) {
+        return permutation == null ? position : permutation[position];
+    }
+
+    private int compareRow(String property, int row, Object value, long id) {
+        int result = switch (property) {
+            case "price" -> Long.compare(prices[row], scale((BigDecimal) value));
+            default -> 0;
+        };
+        return result != 0 ? result : Long.compare(ids[row], id);
+    }
+
+    private int firstPositionAbove(String property, int[] permutation, Object value, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareRow(property, at(permutation, middle), value, id) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int firstPositionAtOrAbove(String property, int[] permutation, Object value, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareRow(property, at(permutation, middle), value, id) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int categoryIndex(long[] categoryIds, Long categoryId) {
+        if (categoryId == null) {
+            return NO_CATEGORY;
+        }
+        int category = Arrays.binarySearch(categoryIds, categoryId);
+        return category >= 0 ? category : NO_CATEGORY;
+    }
+
+    private static IntBinaryOperator byPrice(long[] prices, long[] ids) {
+        return (a, b) -> {
+            int result = Long.compare(prices[a], prices[b]);
+            return result != 0 ? result : Long.compare(ids[a], ids[b]);
+        };
+    }
+
+    // Surviving rows keep their relative order from the old permutation; only the new rows are sorted
+    private static int[] mergeOrder(int[] oldPermutation, int[] oldToNew, int[] upsertRows, int newSize,
+                                    IntBinaryOperator comparator) {
+        int[] survivors = new int[newSize - upsertRows.length];
+        int count = 0;
+        for (int old : oldPermutation) {
+            int row = oldToNew[old];
+            if (row >= 0) {
+                survivors[count++] = row;
+            }
+        }
+        int[] added = upsertRows.clone();
+        sortRows(added, comparator);
+
+        int[] merged = new int[newSize];
+        int s = 0;
+        int a = 0;
+        for (int position = 0; position < newSize; position++) {
+            if (a == added.length || (s < count && comparator.applyAsInt(survivors[s], added[a]) <= 0)) {
+                merged[position] = survivors[s++];
+            } else {
+                merged[position] = added[a++];
+            }
+        }
+        return merged;
+    }
+
+    private static int[] sortedRows(int size, IntBinaryOperator comparator) {
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+        sortRows(rows, comparator);
+        return rows;
+    }
+
+    // Merge sort over primitive row indexes: no boxing, O(n log n) worst case
+    private static void sortRows(int[] rows, IntBinaryOperator comparator) {
+        int[] buffer = new int[rows.length];
+        for (int width = 1; width < rows.length; width *= 2) {
+            for (int low = 0; low < rows.length - width; low += 2 * width) {
+                int middle = low + width;
+                int high = Math.min(low + 2 * width, rows.length);
+                int left = low;
+                int right = middle;
+                int out = low;
+                while (left < middle && right < high) {
+                    buffer[out++] = comparator.applyAsInt(rows[left], rows[right]) <= 0 ? rows[left++] : rows[right++];
+                }
+                while (left < middle) {
+                    buffer[out++] = rows[left++];
+                }
+                while (right < high) {
+                    buffer[out++] = rows[right++];
+                }
+                System.arraycopy(buffer, low, rows, low, high - low);
+            }
+        }
+    }
+
+    private long estimateBytes() {
+        long bytes = (long) size * (Long.BYTES * 3 + Integer.BYTES * 4 + 1 + REFERENCE_BYTES * 2);
+        bytes += (long) categoryIds.length * (Long.BYTES * 2 + REFERENCE_BYTES);
+        Set<String> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(Arrays.asList(names).subList(0, size));
+        distinct.addAll(Arrays.asList(categoryNames));
+        for (int i = 0; i < size; i++) {
+            if (descriptions[i] != null) {
+                distinct.add(descriptions[i]);
+            }
+        }
+        for (String value : distinct) {
+            // String header + backing array header + Latin-1/UTF-16 payload, roughly
+            bytes += 40 + value.length();
+        }
+        return bytes;
+    }
+
+    private static long scale(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public record CategoryEntry(long id, String name, long version) {
+    }
+
+    /**
+     * Accumulates rows into growable columns; {@link #build()} sorts them by id and derives the orderings.
+     */
+    public static final class Builder {
+
+        private static final long NO_CATEGORY_ID = Long.MIN_VALUE;
+
+        private final Map<String, String> interned = new HashMap<>();
+        private final TreeMap<Long, CategoryEntry> categories = new TreeMap<>();
+
+        private int size;
+        private long[] ids = new long[256];
+        private String[] names = new String[256];
+        private String[] descriptions = new String[256];
+        private long[] prices = new long[256];
+        private boolean[] statuses = new boolean[256];
+        private int[] codes = new int[256];
+        private long[] categoryIdsByRow = new long[256];
+        private long[] versions = new long[256];
+
+        private Builder() {
+        }
+
+        public Builder addCategory(CategoryEntry category) {
+            categories.put(category.id(), new CategoryEntry(category.id(), intern(category.name()), category.version()));
+            return this;
+        }
+
+        public Builder addProduct(ProductReadModel product) {
+            if (product.categoryId() != null && !categories.containsKey(product.categoryId())) {
+                addCategory(new CategoryEntry(product.categoryId(), product.categoryName(),
+                        product.categoryVersion() != null ? product.categoryVersion() : 0L));
+            }
+            return addRow(product.id(), product.name(), product.description(), scale(product.price()),
+                    Boolean.TRUE.equals(product.status()), product.code() != null ? product.code() : NO_CODE,
+                    product.categoryId(), product.version() != null ? product.version() : 0L);
+        }
+
+        private Builder addRow(long id, String name, String description, long price, boolean status, int code,
+                               Long categoryId, long version) {
+            if (size == ids.length) {
+                grow();
+            }
+            int row = size++;
+            ids[row] = id;
+            names[row] = intern(name);
+            descriptions[row] = description;
+            prices[row] = price;
+            statuses[row] = status;
+            codes[row] = code;
+            categoryIdsByRow[row] = categoryId != null ? categoryId : NO_CATEGORY_ID;
+            versions[row] = version;
+            return this;
+        }
+
+        public CatalogSnapshot build() {
+            long[] categoryIds = new long[categories.size()];
+            String[] categoryNames = new String[categories.size()];
+            long[] categoryVersions = new long[categories.size()];
+            int index = 0;
+            for (CategoryEntry category : categories.values()) {
+                categoryIds[index] = category.id();
+                categoryNames[index] = category.name();
+                categoryVersions[index] = category.version();
+                index++;
+            }
+
+            long[] rowIds = ids;
+            int[] order = sortedRows(size, (a, b) -> Long.compare(rowIds[a], rowIds[b]));
+
+            long[] sortedIds = new long[size];
+            String[] sortedNames = new String[size];
+            String[] sortedDescriptions = new String[size];
+            long[] sortedPrices = new long[size];
+            boolean[] sortedStatuses = new boolean[size];
+            int[] sortedCodes = new int[size];
+            int[] sortedCategories = new int[size];
+            long[] sortedVersions = new long[size];
+            for (int position = 0; position < size; position++) {
+                int row = order[position];
+                sortedIds[position] = ids[row];
+                sortedNames[position] = names[row];
+                sortedDescriptions[position] = descriptions[row];
+                sortedPrices[position] = prices[row];
+                sortedStatuses[position] = statuses[row];
+                sortedCodes[position] = codes[row];
+                long categoryId = categoryIdsByRow[row];
+                int category = categoryId != NO_CATEGORY_ID ? Arrays.binarySearch(categoryIds, categoryId) : NO_CATEGORY;
+                sortedCategories[position] = category >= 0 ? category : NO_CATEGORY;
+                sortedVersions[position] = versions[row];
+            }
+
+            return new CatalogSnapshot(size, sortedIds, sortedNames, sortedDescriptions, sortedPrices, sortedStatuses,
+                    sortedCodes, sortedCategories, sortedVersions, categoryIds, categoryNames, categoryVersions,
+                    sortedRows(size, byPrice(sortedPrices, sortedIds)));
+        }
+
+        private String intern(String value) {
+            return value == null ? null : interned.computeIfAbsent(value, v -> v);
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            categoryIdsByRow = Arrays.copyOf(categoryIdsByRow, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+    }
+}
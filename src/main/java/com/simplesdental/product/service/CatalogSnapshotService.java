@@ -0,0 +1,273 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.model.Category;
+import com.simplesdental.product.repository.CategoryRepository;
+import com.simplesdental.product.repository.ProductExportRepository;
+import com.simplesdental.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link CatalogSnapshot} of the whole catalog for read-heavy nodes ({@code app.catalog.snapshot.enabled}).
+ * <p>
+ * A dedicated connection LISTENs on {@value #CHANNEL}, fed by the V18 statement triggers, and applies each batch of
+ * notifications as a copy-on-write delta. After every (re)connection the snapshot is fully reloaded, so
+ * changes made while the listener was down are never lost. Until the first load completes, or when the
+ * feature is disabled, {@link #current()} returns null and reads go to the database.
+ * <p>
+ * Writers bump the catalog generation synchronously, while notifications are applied here asynchronously.
+ * Each load and batch therefore records the generation read before it; {@link #currentIfCaughtUp()} only
+ * hands out the snapshot once that generation has reached the shared one, so a listing rendered under a
+ * generation ETag never comes from an older state.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    static final String CHANNEL = "catalog_changes";
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final ProductExportRepository productExportRepository;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final CatalogGenerationService catalogGenerationService;
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final Timer propagationTimer;
+
+    private volatile CatalogSnapshot snapshot;
+    private volatile long generation = -1;
+    private volatile long lastUpdatedAt;
+    private volatile boolean running;
+    private Thread listener;
+
+    public CatalogSnapshotService(ProductExportRepository productExportRepository,
+                                  ProductRepository productRepository,
+                                  CategoryRepository categoryRepository,
+                                  CatalogGenerationService catalogGenerationService,
+                                  DataSourceProperties dataSourceProperties,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.catalog.snapshot.enabled:false}") boolean enabled,
+                                  @Value("${app.catalog.snapshot.poll-interval:500ms}") Duration pollInterval) {
+        this.productExportRepository = productExportRepository;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.catalogGenerationService = catalogGenerationService;
+        this.dataSourceProperties = dataSourceProperties;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+
+        this.propagationTimer = Timer.builder("catalog.snapshot.propagation")
+                .description("Delay between a catalog row change and its application to the snapshot")
+                .register(meterRegistry);
+        Gauge.builder("catalog.snapshot.products", this, s -> s.snapshot != null ? s.snapshot.productCount() : 0)
+                .register(meterRegistry);
+        Gauge.builder("catalog.snapshot.memory", this, s -> s.snapshot != null ? s.snapshot.estimatedBytes() : 0)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("catalog.snapshot.age", this, s -> s.lastUpdatedAt > 0 ? (System.currentTimeMillis() - s.lastUpdatedAt) / 1000.0 : -1)
+                .description("Seconds since the snapshot last changed")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("catalog.snapshot.listening", this, s -> s.running && s.snapshot != null ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the current snapshot, or null when disabled or not loaded yet
+     */
+    public CatalogSnapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Like {@link #current()}, but null while the snapshot has not yet applied every write up to the current
+     * catalog generation. When the generation cannot be read no listing ETag is issued either, so the snapshot
+     * is returned as is.
+     */
+    public CatalogSnapshot currentIfCaughtUp() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        long shared = catalogGenerationService.current();
+        return shared < 0 || generation >= shared ? current : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "catalog-snapshot-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    void reload() {
+        long start = System.nanoTime();
+        // Read before the rows: every write covered by it is already committed and part of the load
+        long loadedAt = catalogGenerationService.current();
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder();
+        for (Category category : categoryRepository.findAll()) {
+            builder.addCategory(toEntry(category));
+        }
+        productExportRepository.forEach(builder::addProduct);
+        snapshot = builder.build();
+        generation = loadedAt;
+        lastUpdatedAt = System.currentTimeMillis();
+        logger.info("Catalog snapshot loaded: {} products, ~{} KB in {} ms", snapshot.productCount(),
+                snapshot.estimatedBytes() / 1024, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Applies a batch of {@code table:operation:ids:epochMillis} payloads, {@code ids} being the comma separated
+     * ids one statement touched. Rows are re-read rather than trusted from the payload, so operations on the same
+     * id within a batch collapse into its final state.
+     *
+     * @param batchGeneration catalog generation read before the batch was received
+     */
+    void apply(List<String> payloads, long batchGeneration) {
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        List<Long> changedAt = new ArrayList<>(payloads.size());
+        for (String payload : payloads) {
+            Notification notification = Notification.parse(payload);
+            if (notification == null) {
+                logger.warn("Ignoring malformed catalog notification: {}", payload);
+                continue;
+            }
+            if ("products".equals(notification.table())) {
+                productIds.addAll(notification.ids());
+            } else if ("categories".equals(notification.table())) {
+                categoryIds.addAll(notification.ids());
+            }
+            changedAt.add(notification.changedAt());
+        }
+
+        List<CatalogSnapshot.CategoryEntry> categories = new ArrayList<>();
+        Set<Long> deletedCategories = new HashSet<>(categoryIds);
+        for (Category category : categoryRepository.findAllById(categoryIds)) {
+            categories.add(toEntry(category));
+            deletedCategories.remove(category.getId());
+        }
+
+        List<ProductReadModel> products = productIds.isEmpty() ? List.of() : productRepository.findReadModelsByIdIn(productIds);
+        Set<Long> deletedProducts = new HashSet<>(productIds);
+        products.forEach(product -> deletedProducts.remove(product.id()));
+
+        snapshot = snapshot.apply(products, deletedProducts, categories, deletedCategories);
+        caughtUp(batchGeneration);
+        lastUpdatedAt = System.currentTimeMillis();
+        changedAt.forEach(at -> propagationTimer.record(Math.max(0, lastUpdatedAt - at), TimeUnit.MILLISECONDS));
+        logger.debug("Catalog snapshot updated: {} products, {} categories changed", productIds.size(), categoryIds.size());
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // Subscribe first, then load: anything committed in between arrives as a notification
+                reload();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    // Writers notify on commit and bump afterwards: every write counted in this generation
+                    // has its notification queued on this connection by now, so this poll drains it
+                    long batchGeneration = catalogGenerationService.current();
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollInterval.toMillis());
+                    if (notifications != null && notifications.length > 0) {
+                        List<String> payloads = new ArrayList<>(notifications.length);
+                        for (PGNotification notification : notifications) {
+                            payloads.add(notification.getParameter());
+                        }
+                        apply(payloads, batchGeneration);
+                    } else {
+                        caughtUp(batchGeneration);
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Catalog snapshot listener failed, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(pollInterval.toMillis() * 4);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void caughtUp(long batchGeneration) {
+        if (batchGeneration > generation) {
+            generation = batchGeneration;
+        }
+    }
+
+    private static CatalogSnapshot.CategoryEntry toEntry(Category category) {
+        return new CatalogSnapshot.CategoryEntry(category.getId(), category.getName(),
+                category.getVersion() != null ? category.getVersion() : 0L);
+    }
+
+    record Notification(String table, List<Long> ids, long changedAt) {
+
+        /**
+         * @return the parsed payload, or null when it is not {@code table:operation:ids:epochMillis}
+         */
+        static Notification parse(String payload) {
+            String[] parts = payload != null ? payload.split(":") : new String[0];
+            if (parts.length != 4) {
+                return null;
+            }
+            try {
+                List<Long> ids = new ArrayList<>();
+                for (String id : parts[2].split(",")) {
+                    ids.add(Long.parseLong(id));
+                }
+                return new Notification(parts[0], ids, Long.parseLong(parts[3]));
+            } catch (NumberFormatException e) {
+                // Would otherwise escape the listener loop and force a full reload
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.repository.CategoryRepository;
+import com.simplesdental.product.repository.CategoryRepositoryCustom.CountRepair;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically recounts {@code categories.product_count} and {@code subtree_product_count} (kept by the V13
+ * and V14 triggers) against {@code products}, in chunks of {@code app.category.count-repair.chunk-size}
+ * categories, each in its own short transaction so product writes are never blocked for long. A zero interval
+ * disables the job.
+ */
+@Service
+public class CategoryCountRepairService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryCountRepairService.class);
+
+    private final CategoryRepository categoryRepository;
+    private final Duration interval;
+    private final int chunkSize;
+    private final Counter repairedCounter;
+
+    private ScheduledExecutorService scheduler;
+
+    public CategoryCountRepairService(CategoryRepository categoryRepository,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.category.count-repair.interval:6h}") Duration interval,
+                                      @Value("${app.category.count-repair.chunk-size:500}") int chunkSize) {
+        this.categoryRepository = categoryRepository;
+        this.interval = interval;
+        this.chunkSize = chunkSize;
+        this.repairedCounter = Counter.builder("category.product_count.repaired")
+                .description("Categories whose denormalized product count had drifted and was recomputed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "category-count-repair");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The counts are right after the V13 backfill; the first pass waits a full interval
+        scheduler.scheduleWithFixedDelay(this::runSafely, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Recounts every category, chunk by chunk.
+     *
+     * @return how many categories had a wrong count
+     */
+    public int repairAll() {
+        long start = System.nanoTime();
+        long afterId = 0;
+        int checked = 0;
+        int repaired = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            CountRepair chunk = categoryRepository.repairProductCounts(afterId, chunkSize);
+            if (chunk.lastId() == null) {
+                break;
+            }
+            checked += chunk.checked();
+            repaired += chunk.repaired();
+            afterId = chunk.lastId();
+        }
+        repairedCounter.increment(repaired);
+        if (repaired > 0) {
+            logger.warn("Category count repair - Fixed {} of {} categories in {} ms", repaired, checked,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } else {
+            logger.info("Category count repair - {} categories checked in {} ms, no drift", checked,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return repaired;
+    }
+
+    private void runSafely() {
+        try {
+            repairAll();
+        } catch (RuntimeException e) {
+            // Retried on the next run; an exception would cancel the schedule
+            logger.error("Category count repair - Run failed", e);
+        }
+    }
+}
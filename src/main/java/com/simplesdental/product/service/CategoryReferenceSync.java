@@ -0,0 +1,70 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.repository.CategoryReferenceCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Keeps the {@link CategoryReferenceCache} of every node in step: a category write bumps the shared category
+ * generation, reloads the local snapshot and announces itself on a Redis pub/sub channel, and each other node
+ * reloads on receipt. Pub/sub is fire-and-forget and may arrive late, so the cache also compares its snapshot
+ * with the category generation on every query and reloads when it is behind.
+ */
+@Service
+public class CategoryReferenceSync implements MessageListener {
+
+    public static final String CHANNEL = "category-changes";
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryReferenceSync.class);
+
+    private final CategoryReferenceCache categoryReferenceCache;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CatalogGenerationService catalogGenerationService;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CategoryReferenceSync(CategoryReferenceCache categoryReferenceCache, RedisTemplate<String, Object> redisTemplate,
+                                 CatalogGenerationService catalogGenerationService) {
+        this.categoryReferenceCache = categoryReferenceCache;
+        this.redisTemplate = redisTemplate;
+        this.catalogGenerationService = catalogGenerationService;
+        categoryReferenceCache.setGenerationSource(catalogGenerationService::currentCategories);
+    }
+
+    /**
+     * Called after a committed category write.
+     */
+    public void categoriesChanged() {
+        // Bumped before anything else so no node can cache read models from the old snapshot under it
+        catalogGenerationService.bumpCategories();
+        reloadSafely();
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId);
+        } catch (RuntimeException e) {
+            // The write already happened; other nodes pick it up on their next refresh
+            logger.warn("Category reference sync - Failed to publish change", e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object sender = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!nodeId.equals(sender)) {
+            reloadSafely();
+        }
+    }
+
+    private void reloadSafely() {
+        try {
+            categoryReferenceCache.reload();
+        } catch (RuntimeException e) {
+            // The snapshot stays as it was until the next reload
+            logger.warn("Category reference sync - Reload failed", e);
+        }
+    }
+}
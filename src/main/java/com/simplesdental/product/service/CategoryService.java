@@ -1,9 +1,15 @@
 package com.simplesdental.product.service;
 
+import com.simplesdental.product.dto.CategoryResponseDTO;
+import com.simplesdental.product.dto.CategoryTreeDTO;
+import com.simplesdental.product.exception.PreconditionFailedException;
 import com.simplesdental.product.model.Category;
+import com.simplesdental.product.repository.CountMode;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,11 +22,54 @@ public interface CategoryService {
 
     Page<Category> findAllWithProducts(Pageable pageable);
 
+    Slice<CategoryResponseDTO> findAllSummaries(Pageable pageable, CountMode countMode);
+
     Optional<Category> findById(Long id);
 
     Optional<Category> findByIdWithProducts(Long id);
 
+    Optional<CategoryResponseDTO> findSummaryById(Long id);
+
+    /**
+     * The whole hierarchy as root nodes with nested children, loaded in one query.
+     *
+     * @param maxDepth levels to include below the roots, or null for all
+     */
+    List<CategoryTreeDTO> findTree(Integer maxDepth);
+
+    /**
+     * The subtree rooted at {@code id}, loaded in one query, or empty when the category does not exist.
+     *
+     * @param maxDepth levels to include below {@code id}, or null for all
+     */
+    Optional<CategoryTreeDTO> findSubtree(Long id, Integer maxDepth);
+
+    /**
+     * @throws IllegalArgumentException when the parent does not exist or would create a cycle
+     */
     Category save(Category category);
 
-    void deleteById(Long id);
+    /**
+     * Writes name, description and, when the request carried it, the parent in one statement, without reading
+     * the category first.
+     *
+     * @param expectedVersions versions accepted by the request's If-Match, or null for an unconditional update
+     * @return the updated category, or empty when it does not exist
+     * @throws IllegalArgumentException    when the parent does not exist or would create a cycle
+     * @throws PreconditionFailedException when the category exists with another version
+     */
+    Optional<Category> update(Long id, Category changes, Collection<Long> expectedVersions);
+
+    /**
+     * @return false when the category does not exist
+     * @throws IllegalArgumentException when the category still has products or subcategories
+     */
+    boolean deleteById(Long id);
+
+    /**
+     * Like {@link #deleteById(Long)}, conditional on the versions accepted by the request's If-Match (null for none).
+     *
+     * @throws PreconditionFailedException when the category exists with another version
+     */
+    boolean deleteById(Long id, Collection<Long> expectedVersions);
 }
\ No newline at end of file
@@ -1,23 +1,44 @@
 package com.simplesdental.product.service;
 
+import com.simplesdental.product.dto.CategoryResponseDTO;
+import com.simplesdental.product.dto.CategoryTreeDTO;
+import com.simplesdental.product.exception.PreconditionFailedException;
 import com.simplesdental.product.model.Category;
 import com.simplesdental.product.repository.CategoryRepository;
+import com.simplesdental.product.repository.CountMode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ProductCacheService productCacheService;
+    private final CatalogGenerationService catalogGenerationService;
+    private final CategoryReferenceSync categoryReferenceSync;
+    private final ProductCodeIndex productCodeIndex;
 
     @Autowired
-    public CategoryServiceImpl(CategoryRepository categoryRepository) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository, ProductCacheService productCacheService,
+                               CatalogGenerationService catalogGenerationService,
+                               CategoryReferenceSync categoryReferenceSync, ProductCodeIndex productCodeIndex) {
         this.categoryRepository = categoryRepository;
+        this.productCacheService = productCacheService;
+        this.catalogGenerationService = catalogGenerationService;
+        this.categoryReferenceSync = categoryReferenceSync;
+        this.productCodeIndex = productCodeIndex;
     }
 
     @Override
@@ -33,6 +54,11 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     public Page<Category> findAllWithProducts(Pageable pageable) { return categoryRepository.findAllWithProducts(pageable); }
 
+    @Override
+    public Slice<CategoryResponseDTO> findAllSummaries(Pageable pageable, CountMode countMode) {
+        return categoryRepository.findAllSummaries(pageable, countMode);
+    }
+
     @Override
     public Optional<Category> findById(Long id) {
         return categoryRepository.findById(id);
@@ -43,13 +69,116 @@ public class CategoryServiceImpl implements CategoryService {
         return categoryRepository.findByIdWithProducts(id);
     }
 
+    @Override
+    public Optional<CategoryResponseDTO> findSummaryById(Long id) {
+        return categoryRepository.findSummaryById(id);
+    }
+
+    @Override
+    public List<CategoryTreeDTO> findTree(Integer maxDepth) {
+        return assemble(categoryRepository.findTreeRows(null, maxDepth));
+    }
+
+    @Override
+    public Optional<CategoryTreeDTO> findSubtree(Long id, Integer maxDepth) {
+        return assemble(categoryRepository.findTreeRows(id, maxDepth)).stream().findFirst();
+    }
+
     @Override
     public Category save(Category category) {
-        return categoryRepository.save(category);
+        Category saved;
+        try {
+            saved = categoryRepository.save(category);
+        } catch (DataIntegrityViolationException e) {
+            throw hierarchyViolation(e);
+        }
+        // Cached products embed the category name
+        categoryReferenceSync.categoriesChanged();
+        productCacheService.evictAll();
+        // Adds no codes, but keeps the code filter's generation chain unbroken on every instance
+        productCodeIndex.recordWrite(null, catalogGenerationService.bump());
+        return saved;
+    }
+
+    @Override
+    public Optional<Category> update(Long id, Category changes, Collection<Long> expectedVersions) {
+        Optional<Category> updated = Optional.empty();
+        if (expectedVersions == null || !expectedVersions.isEmpty()) {
+            try {
+                updated = categoryRepository.update(id, changes, expectedVersions);
+            } catch (DataIntegrityViolationException e) {
+                throw hierarchyViolation(e);
+            }
+        }
+        if (updated.isEmpty()) {
+            // Only on the failure path: tells a missing category from a stale If-Match
+            if (expectedVersions != null && categoryRepository.existsById(id)) {
+                throw new PreconditionFailedException("Categoria foi alterada por outra requisição; obtenha a versão atual e tente novamente");
+            }
+            return updated;
+        }
+        categoryReferenceSync.categoriesChanged();
+        productCacheService.evictAll();
+        productCodeIndex.recordWrite(null, catalogGenerationService.bump());
+        return updated;
     }
 
     @Override
-    public void deleteById(Long id) {
-        categoryRepository.deleteById(id);
+    public boolean deleteById(Long id) {
+        return deleteById(id, null);
+    }
+
+    @Override
+    public boolean deleteById(Long id, Collection<Long> expectedVersions) {
+        int deleted = 0;
+        try {
+            if (expectedVersions == null) {
+                deleted = categoryRepository.deleteDirectlyById(id);
+            } else if (!expectedVersions.isEmpty()) {
+                deleted = categoryRepository.deleteDirectlyByIdAndVersionIn(id, expectedVersions);
+            }
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Categoria possui produtos ou subcategorias e não pode ser excluída", e);
+        }
+        if (deleted == 0) {
+            // Only on the failure path: tells a missing category from a stale If-Match
+            if (expectedVersions != null && categoryRepository.existsById(id)) {
+                throw new PreconditionFailedException("Categoria foi alterada por outra requisição; obtenha a versão atual e tente novamente");
+            }
+            return false;
+        }
+        categoryReferenceSync.categoriesChanged();
+        productCacheService.evictAll();
+        productCodeIndex.recordWrite(null, catalogGenerationService.bump());
+        return true;
+    }
+
+    // Parent existence and cycles are checked by the path trigger (V14), not by lookups here
+    private RuntimeException hierarchyViolation(DataIntegrityViolationException e) {
+        String sqlState = e.getMostSpecificCause() instanceof SQLException sqlException ? sqlException.getSQLState() : null;
+        if ("23503".equals(sqlState)) {
+            return new IllegalArgumentException("Categoria pai não encontrada", e);
+        }
+        if ("23514".equals(sqlState)) {
+            return new IllegalArgumentException("Categoria não pode ficar abaixo de si mesma ou de uma subcategoria", e);
+        }
+        return e;
+    }
+
+    // Rows arrive parents first, so each node's parent is already indexed when the node is reached.
+    // Nodes whose parent is not among the rows (roots, or the subtree root) are returned as top level.
+    static List<CategoryTreeDTO> assemble(List<CategoryTreeDTO> rows) {
+        Map<Long, CategoryTreeDTO> byId = new HashMap<>();
+        List<CategoryTreeDTO> roots = new ArrayList<>();
+        for (CategoryTreeDTO row : rows) {
+            CategoryTreeDTO parent = row.parentId() != null ? byId.get(row.parentId()) : null;
+            if (parent != null) {
+                parent.children().add(row);
+            } else {
+                roots.add(row);
+            }
+            byId.put(row.id(), row);
+        }
+        return roots;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package com.simplesdental.product.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.simplesdental.product.repository.CountMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of already-encoded JSON bodies for the hot pages of the product listings.
+ * Keys embed the catalog generation (through the listing ETag), so any product or category write
+ * makes every cached page unreachable; stale entries simply age out under the byte budget.
+ */
+@Service
+public class ListingResponseCache {
+
+    private final Cache<String, byte[]> cache;
+    private final ObjectMapper objectMapper;
+    private final int maxPage;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bytesServed;
+
+    public ListingResponseCache(MappingJackson2HttpMessageConverter jsonConverter,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.cache.listing.max-bytes:33554432}") long maxBytes,
+                                @Value("${app.cache.listing.ttl:5m}") Duration ttl,
+                                @Value("${app.cache.listing.max-page:5}") int maxPage) {
+        // Same mapper the message converter uses, so cached bytes match a regular response
+        this.objectMapper = jsonConverter.getObjectMapper();
+        this.maxPage = maxPage;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, byte[] body) -> body.length)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.hits = Counter.builder("listing.cache.requests").tag("result", "hit")
+                .description("Listing pages served from encoded bytes").register(meterRegistry);
+        this.misses = Counter.builder("listing.cache.requests").tag("result", "miss")
+                .description("Listing pages rendered and stored").register(meterRegistry);
+        this.bytesServed = Counter.builder("listing.cache.bytes.served").baseUnit("bytes")
+                .description("Bytes written straight from the listing cache").register(meterRegistry);
+        Gauge.builder("listing.cache.entries", cache, c -> c.estimatedSize()).register(meterRegistry);
+    }
+
+    /**
+     * Cache key for an unfiltered offset listing page, or null when the page is not worth caching
+     * (beyond the hot range) or no generation tag is available.
+     */
+    public String key(String api, String generationETag, Pageable pageable, CountMode countMode) {
+        if (generationETag == null || pageable.getPageNumber() >= maxPage) {
+            return null;
+        }
+        return api + '|' + generationETag + '|' + pageable.getPageNumber() + '|' + pageable.getPageSize() + '|' +
+                pageable.getSort() + '|' + countMode;
+    }
+
+    /**
+     * Returns the encoded body for {@code key}, rendering and storing it on a miss. Concurrent misses on
+     * the same key render once.
+     */
+    public byte[] get(String key, Supplier<?> renderer) {
+        byte[] body = cache.getIfPresent(key);
+        if (body != null) {
+            hits.increment();
+            return body;
+        }
+        misses.increment();
+        return cache.get(key, k -> encode(renderer.get()));
+    }
+
+    /**
+     * Writes an encoded JSON body straight to the servlet response, bypassing the message converters.
+     */
+    public void write(byte[] body, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        response.flushBuffer();
+        bytesServed.increment(body.length);
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.dto.ErrorResponse;
+import com.simplesdental.product.dto.ProductBulkResponseDTO;
+import com.simplesdental.product.dto.ProductCreateRequestV2;
+import com.simplesdental.product.repository.CategoryReferenceCache;
+import com.simplesdental.product.repository.ProductBulkRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk upsert of products by code for catalog syncs. Every item is validated before anything is written;
+ * a batch with any invalid item is rejected as a whole, with the errors of each item.
+ */
+@Service
+public class ProductBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductBulkService.class);
+
+    private final ProductBulkRepository productBulkRepository;
+    private final CategoryReferenceCache categoryReferenceCache;
+    private final Validator validator;
+    private final ProductCacheService productCacheService;
+    private final CatalogGenerationService catalogGenerationService;
+    private final ProductCodeIndex productCodeIndex;
+    private final ProductSuggestService productSuggestService;
+    private final int maxItems;
+    private final int batchSize;
+
+    public ProductBulkService(ProductBulkRepository productBulkRepository,
+                              CategoryReferenceCache categoryReferenceCache,
+                              Validator validator,
+                              ProductCacheService productCacheService,
+                              CatalogGenerationService catalogGenerationService,
+                              ProductCodeIndex productCodeIndex,
+                              ProductSuggestService productSuggestService,
+                              @Value("${app.bulk.max-items:50000}") int maxItems,
+                              @Value("${app.bulk.batch-size:1000}") int batchSize) {
+        this.productBulkRepository = productBulkRepository;
+        this.categoryReferenceCache = categoryReferenceCache;
+        this.validator = validator;
+        this.productCacheService = productCacheService;
+        this.catalogGenerationService = catalogGenerationService;
+        this.productCodeIndex = productCodeIndex;
+        this.productSuggestService = productSuggestService;
+        this.maxItems = maxItems;
+        this.batchSize = batchSize;
+    }
+
+    public ProductBulkResponseDTO upsert(List<ProductCreateRequestV2> products) {
+        if (products == null || products.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um produto");
+        }
+        if (products.size() > maxItems) {
+            throw new IllegalArgumentException("Máximo de " + maxItems + " produtos por lote");
+        }
+
+        List<List<ErrorResponse.ValidationError>> errors = validate(products);
+        int invalid = (int) errors.stream().filter(itemErrors -> !itemErrors.isEmpty()).count();
+        if (invalid > 0) {
+            logger.warn("Product bulk - Rejected batch of {} products: {} invalid", products.size(), invalid);
+            List<ProductBulkResponseDTO.Item> items = new ArrayList<>(products.size());
+            for (int i = 0; i < products.size(); i++) {
+                Integer code = products.get(i) != null ? products.get(i).getCode() : null;
+                items.add(new ProductBulkResponseDTO.Item(i, code, null,
+                        errors.get(i).isEmpty() ? null : ProductBulkResponseDTO.Outcome.INVALID, errors.get(i)));
+            }
+            return new ProductBulkResponseDTO(0, 0, invalid, items);
+        }
+
+        long start = System.nanoTime();
+        List<ProductBulkRepository.UpsertResult> results = productBulkRepository.upsertByCode(products, batchSize);
+
+        // One catalog-wide invalidation for the whole batch instead of one per product
+        productCacheService.evictAll();
+        productCodeIndex.recordWrites(products.stream().map(ProductCreateRequestV2::getCode).toList(),
+                catalogGenerationService.bump());
+        productSuggestService.invalidate();
+
+        int created = 0;
+        List<ProductBulkResponseDTO.Item> items = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            ProductBulkRepository.UpsertResult result = results.get(i);
+            if (result.created()) {
+                created++;
+            }
+            items.add(new ProductBulkResponseDTO.Item(i, products.get(i).getCode(), result.id(),
+                    result.created() ? ProductBulkResponseDTO.Outcome.CREATED : ProductBulkResponseDTO.Outcome.UPDATED, List.of()));
+        }
+        logger.info("Product bulk - Upserted {} products ({} created) in {} ms", products.size(), created,
+                (System.nanoTime() - start) / 1_000_000);
+        return new ProductBulkResponseDTO(created, products.size() - created, 0, items);
+    }
+
+    private List<List<ErrorResponse.ValidationError>> validate(List<ProductCreateRequestV2> products) {
+        List<List<ErrorResponse.ValidationError>> errors = new ArrayList<>(products.size());
+        Map<Integer, Integer> firstIndexByCode = new HashMap<>();
+        Set<Long> categoryIds = new HashSet<>();
+
+        for (int i = 0; i < products.size(); i++) {
+            ProductCreateRequestV2 product = products.get(i);
+            List<ErrorResponse.ValidationError> itemErrors = new ArrayList<>();
+            if (product == null) {
+                itemErrors.add(new ErrorResponse.ValidationError("", null, "Item não pode ser nulo"));
+                errors.add(itemErrors);
+                continue;
+            }
+            for (ConstraintViolation<ProductCreateRequestV2> violation : validator.validate(product)) {
+                itemErrors.add(new ErrorResponse.ValidationError(violation.getPropertyPath().toString(),
+                        violation.getInvalidValue(), violation.getMessage()));
+            }
+            if (product.getCode() != null) {
+                Integer first = firstIndexByCode.putIfAbsent(product.getCode(), i);
+                if (first != null) {
+                    itemErrors.add(new ErrorResponse.ValidationError("code", product.getCode(),
+                            "Código repetido no lote (item " + first + ")"));
+                }
+            }
+            if (product.getCategory() != null) {
+                if (product.getCategory().getId() == null) {
+                    itemErrors.add(new ErrorResponse.ValidationError("category.id", null, "ID da categoria é obrigatório"));
+                } else {
+                    categoryIds.add(product.getCategory().getId());
+                }
+            }
+            errors.add(itemErrors);
+        }
+
+        // Checked against the in-memory category set; the foreign key still guards the write itself
+        Set<Long> missing = new HashSet<>(categoryIds);
+        missing.removeIf(categoryReferenceCache::contains);
+        if (!missing.isEmpty()) {
+            for (int i = 0; i < products.size(); i++) {
+                ProductCreateRequestV2 product = products.get(i);
+                Long categoryId = product != null && product.getCategory() != null ? product.getCategory().getId() : null;
+                if (categoryId != null && missing.contains(categoryId)) {
+                    errors.get(i).add(new ErrorResponse.ValidationError("category.id", categoryId, "Categoria não encontrada"));
+                }
+            }
+        }
+        return errors;
+    }
+}
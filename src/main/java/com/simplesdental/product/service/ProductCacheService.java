@@ -0,0 +1,316 @@
+package com.simplesdental.product.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through product cache with two tiers: a bounded in-process Caffeine cache (size and TTL eviction)
+ * in front of the shared Redis cache, falling back to Postgres. Entries are {@link ProductReadModel}s.
+ * Evictions are announced on a Redis pub/sub channel so the other nodes drop the same entries from their
+ * local tier; a lost announcement leaves a node stale for at most the local TTL.
+ */
+@Service
+public class ProductCacheService implements MessageListener {
+
+    public static final String CACHE_NAME = "products";
+    public static final String CHANNEL = "product-evictions";
+
+    // Payload is "<node>|<comma separated ids>", or "<node>|*" for a full eviction
+    private static final String ALL = "*";
+
+    // Same layout RedisCacheManager uses for its keys (CacheKeyPrefix.simple()), so multi-gets hit the same entries
+    private static final String REDIS_KEY_PREFIX = CACHE_NAME + "::";
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCacheService.class);
+
+    private final ProductRepository productRepository;
+    private final CacheManager cacheManager;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Cache<Long, ProductReadModel> localCache;
+    private final Cache<Integer, Long> codeIds;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter databaseLoads;
+    private final Counter misses;
+    private final Timer lookupTimer;
+
+    public ProductCacheService(ProductRepository productRepository,
+                               CacheManager cacheManager,
+                               RedisTemplate<String, Object> redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.cache.products.local.max-size:10000}") long localMaxSize,
+                               @Value("${app.cache.products.local.ttl:30s}") Duration localTtl) {
+        this.productRepository = productRepository;
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        this.codeIds = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "products.local");
+        this.localHits = meterRegistry.counter("product.cache.lookups", "source", "local");
+        this.redisHits = meterRegistry.counter("product.cache.lookups", "source", "redis");
+        this.databaseLoads = meterRegistry.counter("product.cache.lookups", "source", "database");
+        this.misses = meterRegistry.counter("product.cache.lookups", "source", "absent");
+        this.lookupTimer = Timer.builder("product.cache.lookup.latency")
+                .description("Latency of product lookups through the two-tier cache")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("product.cache.hit.ratio", this, ProductCacheService::hitRatio)
+                .description("Share of product lookups answered by the local or Redis tier")
+                .register(meterRegistry);
+    }
+
+    public Optional<ProductReadModel> findById(Long id) {
+        return lookupTimer.record(() -> lookup(id));
+    }
+
+    /**
+     * Resolves many ids at once: one local lookup, one Redis MGET and one IN query for whatever is left.
+     * Ids that do not exist are simply absent from the returned map.
+     */
+    public Map<Long, ProductReadModel> findAllByIds(Collection<Long> ids) {
+        return lookupTimer.record(() -> lookupAll(ids));
+    }
+
+    /**
+     * Resolves a business code through a local code-to-id map and then the regular id tiers. A mapping
+     * whose product no longer carries the code is dropped and the code is looked up again.
+     */
+    public Optional<ProductReadModel> findByCode(Integer code) {
+        return lookupTimer.record(() -> lookupByCode(code));
+    }
+
+    public void evict(Long id) {
+        localCache.invalidate(id);
+        try {
+            redisCache().evict(id);
+        } catch (RuntimeException e) {
+            logger.warn("Product cache - Failed to evict id {} from Redis", id, e);
+        }
+        announce(String.valueOf(id));
+    }
+
+    /**
+     * Evicts many products at once: one local invalidation and one Redis DEL for all keys.
+     */
+    public void evict(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        localCache.invalidateAll(ids);
+        try {
+            redisTemplate.delete(ids.stream().map(id -> REDIS_KEY_PREFIX + id).toList());
+        } catch (RuntimeException e) {
+            logger.warn("Product cache - Failed to evict {} ids from Redis", ids.size(), e);
+        }
+        announce(ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+
+    public void evictAll() {
+        localCache.invalidateAll();
+        codeIds.invalidateAll();
+        try {
+            redisCache().clear();
+        } catch (RuntimeException e) {
+            logger.warn("Product cache - Failed to clear Redis tier", e);
+        }
+        announce(ALL);
+    }
+
+    /**
+     * Drops the entries another node evicted from this node's local tier; the Redis tier is shared and was
+     * already cleared by the sender.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!(payload instanceof String text)) {
+            return;
+        }
+        int separator = text.indexOf('|');
+        if (separator < 0 || nodeId.equals(text.substring(0, separator))) {
+            return;
+        }
+        String evicted = text.substring(separator + 1);
+        if (ALL.equals(evicted)) {
+            localCache.invalidateAll();
+            codeIds.invalidateAll();
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : evicted.split(",")) {
+            ids.add(Long.valueOf(id));
+        }
+        localCache.invalidateAll(ids);
+    }
+
+    private void announce(String evicted) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + "|" + evicted);
+        } catch (RuntimeException e) {
+            // Other nodes drop the entries when their local TTL runs out
+            logger.warn("Product cache - Failed to publish eviction", e);
+        }
+    }
+
+    private Optional<ProductReadModel> lookup(Long id) {
+        ProductReadModel local = localCache.getIfPresent(id);
+        if (local != null) {
+            localHits.increment();
+            return Optional.of(local);
+        }
+
+        ProductReadModel remote = getFromRedis(id);
+        if (remote != null) {
+            redisHits.increment();
+            localCache.put(id, remote);
+            return Optional.of(remote);
+        }
+
+        Optional<ProductReadModel> loaded = productRepository.findReadModelById(id);
+        if (loaded.isPresent()) {
+            databaseLoads.increment();
+            localCache.put(id, loaded.get());
+            putInRedis(id, loaded.get());
+        } else {
+            misses.increment();
+        }
+        return loaded;
+    }
+
+    private Optional<ProductReadModel> lookupByCode(Integer code) {
+        Long id = codeIds.getIfPresent(code);
+        if (id != null) {
+            Optional<ProductReadModel> cached = lookup(id);
+            if (cached.isPresent() && code.equals(cached.get().code())) {
+                return cached;
+            }
+            codeIds.invalidate(code);
+        }
+
+        // Served by the uk_products_code_integer unique index
+        Optional<ProductReadModel> loaded = productRepository.findReadModelByCode(code);
+        if (loaded.isPresent()) {
+            ProductReadModel model = loaded.get();
+            databaseLoads.increment();
+            codeIds.put(code, model.id());
+            localCache.put(model.id(), model);
+            putInRedis(model.id(), model);
+        } else {
+            misses.increment();
+        }
+        return loaded;
+    }
+
+    private Map<Long, ProductReadModel> lookupAll(Collection<Long> ids) {
+        Map<Long, ProductReadModel> found = new HashMap<>(localCache.getAllPresent(ids));
+        localHits.increment(found.size());
+
+        List<Long> pending = new ArrayList<>();
+        for (Long id : ids) {
+            if (!found.containsKey(id)) {
+                pending.add(id);
+            }
+        }
+        if (pending.isEmpty()) {
+            return found;
+        }
+
+        List<Long> notInRedis = new ArrayList<>();
+        List<Object> remote = multiGetFromRedis(pending);
+        for (int i = 0; i < pending.size(); i++) {
+            Object value = remote != null ? remote.get(i) : null;
+            if (value instanceof ProductReadModel model) {
+                redisHits.increment();
+                localCache.put(model.id(), model);
+                found.put(model.id(), model);
+            } else {
+                notInRedis.add(pending.get(i));
+            }
+        }
+        if (notInRedis.isEmpty()) {
+            return found;
+        }
+
+        List<ProductReadModel> loaded = productRepository.findReadModelsByIdIn(notInRedis);
+        for (ProductReadModel model : loaded) {
+            localCache.put(model.id(), model);
+            putInRedis(model.id(), model);
+            found.put(model.id(), model);
+        }
+        databaseLoads.increment(loaded.size());
+        misses.increment(notInRedis.size() - loaded.size());
+        return found;
+    }
+
+    private List<Object> multiGetFromRedis(List<Long> ids) {
+        try {
+            return redisTemplate.opsForValue().multiGet(ids.stream().map(id -> REDIS_KEY_PREFIX + id).toList());
+        } catch (RuntimeException e) {
+            logger.warn("Product cache - Redis multi-get failed for {} ids", ids.size(), e);
+            return null;
+        }
+    }
+
+    private ProductReadModel getFromRedis(Long id) {
+        try {
+            return redisCache().get(id, ProductReadModel.class);
+        } catch (RuntimeException e) {
+            // Redis is an optimization: an outage must not fail product reads
+            logger.warn("Product cache - Redis lookup failed for id {}", id, e);
+            return null;
+        }
+    }
+
+    private void putInRedis(Long id, ProductReadModel model) {
+        try {
+            redisCache().put(id, model);
+        } catch (RuntimeException e) {
+            logger.warn("Product cache - Failed to store id {} in Redis", id, e);
+        }
+    }
+
+    private org.springframework.cache.Cache redisCache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+
+    private double hitRatio() {
+        double hits = localHits.count() + redisHits.count();
+        double total = hits + databaseLoads.count() + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+}
@@ -0,0 +1,284 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.repository.ProductRepository;
+import com.simplesdental.product.util.IntBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloom filter of existing product codes, so lookups of unknown codes are answered without a query.
+ * <p>
+ * The filter is built at startup and records every write: those made by this instance directly, those made
+ * by other instances as announced on a Redis pub/sub channel with the codes and the catalog generation they
+ * bumped to. A negative answer is trusted only while the generation is the one the filter was built at, or
+ * advanced to by an unbroken chain of recorded writes; otherwise (a lost announcement, an import) the lookup
+ * goes to the database and a rebuild is queued on a background thread, at most once per
+ * {@code app.code-filter.min-rebuild-interval}. Until it lands, the old filter keeps answering positives;
+ * codes written during the scan are collected and added to the new filter.
+ */
+@Service
+public class ProductCodeIndex implements MessageListener {
+
+    public static final String CHANNEL = "product-codes";
+
+    // Announced generations past a gap are kept until the gap is filled or a rebuild covers them
+    private static final int MAX_PENDING_GENERATIONS = 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCodeIndex.class);
+
+    private final ProductRepository productRepository;
+    private final CatalogGenerationService catalogGenerationService;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final double fpp;
+    private final long minRebuildIntervalNanos;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService rebuildExecutor;
+
+    private volatile IntBloomFilter filter;
+    private volatile long generation = -1L;
+
+    // Non-null while a rebuild scans the table; guarded by rebuildLock
+    private Set<Integer> writesDuringRebuild;
+
+    // Generations recorded ahead of the one the filter is in sync with; guarded by rebuildLock
+    private final TreeSet<Long> pendingGenerations = new TreeSet<>();
+
+    private volatile long lastRebuildStartedAt;
+
+    private final Counter negatives;
+    private final Counter passes;
+
+    public ProductCodeIndex(ProductRepository productRepository,
+                            CatalogGenerationService catalogGenerationService,
+                            RedisTemplate<String, Object> redisTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.code-filter.fpp:0.01}") double fpp,
+                            @Value("${app.code-filter.min-rebuild-interval:30s}") Duration minRebuildInterval) {
+        this.productRepository = productRepository;
+        this.catalogGenerationService = catalogGenerationService;
+        this.redisTemplate = redisTemplate;
+        this.fpp = fpp;
+        this.minRebuildIntervalNanos = minRebuildInterval.toNanos();
+        this.lastRebuildStartedAt = System.nanoTime() - minRebuildIntervalNanos;
+
+        this.negatives = Counter.builder("product.code.filter").tag("result", "absent")
+                .description("Code lookups answered as absent by the Bloom filter").register(meterRegistry);
+        this.passes = Counter.builder("product.code.filter").tag("result", "maybe")
+                .description("Code lookups passed on to the cache and database").register(meterRegistry);
+        Gauge.builder("product.code.filter.bits", this, index -> index.filter != null ? index.filter.bitCount() : 0)
+                .register(meterRegistry);
+
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "product-code-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Scans every code and installs a new filter. The table is read without holding the lock, so local
+     * writes are not blocked behind the scan.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            if (writesDuringRebuild != null) {
+                // Another rebuild is scanning; it installs a filter at least as recent as this one would
+                return;
+            }
+            writesDuringRebuild = new HashSet<>();
+        } finally {
+            rebuildLock.unlock();
+        }
+        lastRebuildStartedAt = System.nanoTime();
+
+        IntBloomFilter rebuilt = null;
+        long builtAt = -1L;
+        int size = 0;
+        try {
+            // Read the generation first: a write racing the scan leaves the filter marked stale, never wrong
+            builtAt = catalogGenerationService.current();
+            List<Integer> codes = productRepository.findAllCodes();
+            rebuilt = IntBloomFilter.create(Math.max(1024, codes.size() * 2), fpp);
+            codes.forEach(rebuilt::add);
+            size = codes.size();
+        } catch (RuntimeException e) {
+            logger.warn("Product code filter rebuild failed, lookups go to the database: {}", e.getMessage());
+        }
+
+        rebuildLock.lock();
+        try {
+            if (rebuilt != null) {
+                writesDuringRebuild.forEach(rebuilt::add);
+                filter = rebuilt;
+                generation = builtAt;
+                pendingGenerations.headSet(builtAt, true).clear();
+                advance();
+                logger.info("Product code filter rebuilt with {} codes at generation {}", size, builtAt);
+            }
+            writesDuringRebuild = null;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * @return false only when {@code code} is certainly not used by any product
+     */
+    public boolean mightExist(int code) {
+        IntBloomFilter current = filter;
+        if (current == null || current.mightContain(code)) {
+            passes.increment();
+            return true;
+        }
+
+        long latest = catalogGenerationService.current();
+        if (latest >= 0 && latest == generation) {
+            negatives.increment();
+            return false;
+        }
+
+        // Catalog changed elsewhere (or generation unknown): answer conservatively and refresh in the background
+        if (latest >= 0) {
+            queueRebuild();
+        }
+        passes.increment();
+        return true;
+    }
+
+    private void queueRebuild() {
+        if (System.nanoTime() - lastRebuildStartedAt < minRebuildIntervalNanos) {
+            // Lookups keep going to the database until the next rebuild is due
+            return;
+        }
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    rebuildQueued.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            rebuildQueued.set(false);
+        }
+    }
+
+    /**
+     * Records a catalog write made by this instance and announces it to the others: adds its code, if any, and
+     * advances the generation the filter is in sync with to {@code generationAfterWrite} once every earlier
+     * generation has been recorded too.
+     */
+    public void recordWrite(Integer code, long generationAfterWrite) {
+        recordWrites(code != null ? List.of(code) : List.of(), generationAfterWrite);
+    }
+
+    /**
+     * Bulk variant of {@link #recordWrite}, for a single write (one generation bump) touching many codes.
+     */
+    public void recordWrites(Collection<Integer> codes, long generationAfterWrite) {
+        add(codes, generationAfterWrite);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + "|" + generationAfterWrite + "|" +
+                    codes.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (RuntimeException e) {
+            // Other instances see a gap in the generations and rebuild
+            logger.warn("Product code filter - Failed to publish write", e);
+        }
+    }
+
+    /**
+     * Records a write announced by another instance, as {@code node|generation|codes}.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        String[] parts = payload instanceof String text ? text.split("\\|", -1) : new String[0];
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            List<Integer> codes = new ArrayList<>();
+            for (String code : parts[2].split(",")) {
+                if (!code.isEmpty()) {
+                    codes.add(Integer.valueOf(code));
+                }
+            }
+            add(codes, Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            logger.warn("Product code filter - Ignoring malformed announcement: {}", payload);
+        }
+    }
+
+    private void add(Collection<Integer> codes, long generationAfterWrite) {
+        // Serialized with installing a rebuilt filter, so the codes land in the one that ends up installed
+        rebuildLock.lock();
+        try {
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.addAll(codes);
+            }
+            if (filter == null) {
+                return;
+            }
+            codes.forEach(filter::add);
+            if (generationAfterWrite > generation) {
+                if (pendingGenerations.size() >= MAX_PENDING_GENERATIONS) {
+                    pendingGenerations.clear();
+                }
+                pendingGenerations.add(generationAfterWrite);
+                advance();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Caller holds rebuildLock
+    private void advance() {
+        if (generation < 0) {
+            return;
+        }
+        while (pendingGenerations.remove(generation + 1)) {
+            generation++;
+        }
+        pendingGenerations.headSet(generation, true).clear();
+    }
+}
@@ -0,0 +1,165 @@
+package com.simplesdental.product.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.mapper.ProductMapperV2;
+import com.simplesdental.product.repository.ProductExportRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the full catalog to an output stream as NDJSON or CSV, one row at a time, straight from the
+ * export cursor. Memory use is bounded by the fetch size and the writer buffer, not by the catalog size.
+ */
+@Service
+public class ProductExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER = "id,name,description,price,status,code,categoryId,categoryName";
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromParam(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Formato de exportação inválido: " + value + ". Use ndjson ou csv");
+        }
+
+        /**
+         * Resolves a Content-Type header (parameters such as charset are ignored).
+         */
+        public static Format fromMediaType(String contentType) {
+            if (contentType != null) {
+                String mediaType = contentType.split(";", 2)[0].trim();
+                for (Format format : values()) {
+                    if (format.mediaType.equalsIgnoreCase(mediaType)) {
+                        return format;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("Tipo de conteúdo não suportado: " + contentType + ". Use text/csv ou application/x-ndjson");
+        }
+    }
+
+    private final ProductExportRepository productExportRepository;
+    private final ProductMapperV2 productMapper;
+    private final ObjectWriter jsonWriter;
+
+    public ProductExportService(ProductExportRepository productExportRepository, ProductMapperV2 productMapper,
+                                ObjectMapper objectMapper) {
+        this.productExportRepository = productExportRepository;
+        this.productMapper = productMapper;
+        // Flushing after every value would turn each row into its own network write
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Streams every product to {@code out} in the given format. The stream is flushed but not closed.
+     *
+     * @return number of exported products
+     * @throws IOException when writing fails, typically because the client went away; the database cursor
+     *                     is closed before this propagates
+     */
+    public long export(Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try {
+            long rows = format == Format.CSV ? exportCsv(writer) : exportNdjson(writer);
+            writer.flush();
+            return rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long exportNdjson(Writer writer) throws IOException {
+        JsonGenerator generator = jsonWriter.createGenerator(writer);
+        generator.setRootValueSeparator(null);
+        long rows = productExportRepository.forEach(product -> {
+            try {
+                jsonWriter.writeValue(generator, productMapper.toDTO(product));
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.flush();
+        return rows;
+    }
+
+    private long exportCsv(Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        return productExportRepository.forEach(product -> {
+            try {
+                writeCsvRow(writer, product);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeCsvRow(Writer writer, ProductReadModel product) throws IOException {
+        writer.write(String.valueOf(product.id()));
+        writer.write(',');
+        writeCsvField(writer, product.name());
+        writer.write(',');
+        writeCsvField(writer, product.description());
+        writer.write(',');
+        writer.write(product.price() != null ? product.price().toPlainString() : "");
+        writer.write(',');
+        writer.write(product.status() != null ? product.status().toString() : "");
+        writer.write(',');
+        writer.write(product.code() != null ? product.code().toString() : "");
+        writer.write(',');
+        writer.write(String.valueOf(product.categoryId()));
+        writer.write(',');
+        writeCsvField(writer, product.categoryName());
+        writer.write('\n');
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks, doubling embedded quotes
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,103 @@
+package com.simplesdental.product.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.simplesdental.product.dto.ProductFacetsDTO;
+import com.simplesdental.product.repository.ProductFilter;
+import com.simplesdental.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Facet counts (category, status, price buckets) for the V2 listing filters. Results are cached per
+ * filter signature under the current catalog generation, so any product or category write invalidates
+ * them on every instance without explicit eviction.
+ */
+@Service
+public class ProductFacetService {
+
+    public static final int MAX_PRICE_BOUNDS = 20;
+
+    private final ProductRepository productRepository;
+    private final CatalogGenerationService catalogGenerationService;
+    private final List<BigDecimal> defaultPriceBounds;
+    private final Cache<FacetKey, ProductFacetsDTO> cache;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public ProductFacetService(ProductRepository productRepository,
+                               CatalogGenerationService catalogGenerationService,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.facets.price-bounds:50,100,250,500,1000,2500}") List<BigDecimal> defaultPriceBounds,
+                               @Value("${app.facets.cache.max-size:1000}") long maxSize,
+                               @Value("${app.facets.cache.ttl:10m}") Duration ttl) {
+        this.productRepository = productRepository;
+        this.catalogGenerationService = catalogGenerationService;
+        this.defaultPriceBounds = checkPriceBounds(defaultPriceBounds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.hits = Counter.builder("facets.cache.requests").tag("result", "hit")
+                .description("Facet counts served from cache").register(meterRegistry);
+        this.misses = Counter.builder("facets.cache.requests").tag("result", "miss")
+                .description("Facet counts computed from the database").register(meterRegistry);
+    }
+
+    /**
+     * @param priceBounds ascending bucket boundaries, or null/empty for the configured defaults
+     */
+    public ProductFacetsDTO facets(ProductFilter filter, List<BigDecimal> priceBounds) {
+        List<BigDecimal> bounds = priceBounds == null || priceBounds.isEmpty()
+                ? defaultPriceBounds
+                : checkPriceBounds(priceBounds);
+
+        long generation = catalogGenerationService.current();
+        if (generation < 0) {
+            // Without a generation there is no way to tell a cached entry is still current
+            misses.increment();
+            return productRepository.facets(filter, bounds);
+        }
+
+        FacetKey key = new FacetKey(generation, filter, bounds);
+        ProductFacetsDTO facets = cache.getIfPresent(key);
+        if (facets != null) {
+            hits.increment();
+            return facets;
+        }
+        misses.increment();
+        return cache.get(key, k -> productRepository.facets(k.filter(), k.priceBounds()));
+    }
+
+    private static List<BigDecimal> checkPriceBounds(List<BigDecimal> bounds) {
+        if (bounds.size() > MAX_PRICE_BOUNDS) {
+            throw new IllegalArgumentException("Máximo de " + MAX_PRICE_BOUNDS + " limites de faixa de preço");
+        }
+        for (int i = 0; i < bounds.size(); i++) {
+            if (bounds.get(i).signum() < 0) {
+                throw new IllegalArgumentException("Limites de faixa de preço não podem ser negativos");
+            }
+            if (i > 0 && bounds.get(i - 1).compareTo(bounds.get(i)) >= 0) {
+                throw new IllegalArgumentException("Limites de faixa de preço devem estar em ordem crescente");
+            }
+        }
+        // Normalized to the price column scale so 100 and 100.00 share a cache entry
+        return bounds.stream().map(ProductFacetService::normalize).toList();
+    }
+
+    private static BigDecimal normalize(BigDecimal bound) {
+        BigDecimal stripped = bound.stripTrailingZeros();
+        return stripped.scale() < 2 ? stripped.setScale(2) : stripped;
+    }
+
+    private record FacetKey(long generation, ProductFilter filter, List<BigDecimal> priceBounds) {
+    }
+}
@@ -0,0 +1,520 @@
+package com.simplesdental.product.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplesdental.product.dto.ProductCreateRequestV2;
+import com.simplesdental.product.dto.ProductImportStatusDTO;
+import com.simplesdental.product.model.Category;
+import com.simplesdental.product.model.ProductImport;
+import com.simplesdental.product.repository.ProductImportRepository;
+import com.simplesdental.product.repository.ProductStagingRepository;
+import com.simplesdental.product.util.CsvReader;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Full catalog loads from CSV or NDJSON files, run as background jobs.
+ * <p>
+ * The upload is spooled to a temporary file, then a job thread streams it through parsing and validation
+ * straight into a COPY to a staging table and merges it into {@code products} with one upsert by code
+ * (see {@link ProductStagingRepository}). Memory use does not depend on the file size. The job row in
+ * {@code product_imports} is updated about once per second, so the status can be read from any instance.
+ * <p>
+ * Jobs live in this instance's executor, so a restart or crash would leave them QUEUED or RUNNING forever.
+ * The instance refreshes {@code heartbeat_at} of the jobs it holds every {@code app.import.heartbeat-interval};
+ * at startup, and on every heartbeat, unfinished jobs whose heartbeat is older than
+ * {@code app.import.stale-after} are marked FAILED.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_INTERVAL_NANOS = Duration.ofSeconds(1).toNanos();
+    private static final List<String> REQUIRED_CSV_COLUMNS = List.of("name", "price", "status", "code", "categoryid");
+    private static final List<ProductImport.Status> UNFINISHED = List.of(ProductImport.Status.QUEUED,
+            ProductImport.Status.RUNNING, ProductImport.Status.MERGING);
+
+    private final ProductImportRepository productImportRepository;
+    private final ProductStagingRepository productStagingRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ProductCacheService productCacheService;
+    private final CatalogGenerationService catalogGenerationService;
+    private final ProductCodeIndex productCodeIndex;
+    private final ProductSuggestService productSuggestService;
+    private final long maxBytes;
+    private final int maxRejections;
+    private final Duration heartbeatInterval;
+    private final Duration staleAfter;
+    private final ExecutorService executor;
+    private final Set<Long> heldJobs = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService heartbeat;
+
+    public ProductImportService(ProductImportRepository productImportRepository,
+                                ProductStagingRepository productStagingRepository,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                ProductCacheService productCacheService,
+                                CatalogGenerationService catalogGenerationService,
+                                ProductCodeIndex productCodeIndex,
+                                ProductSuggestService productSuggestService,
+                                @Value("${app.import.threads:1}") int threads,
+                                @Value("${app.import.max-bytes:1073741824}") long maxBytes,
+                                @Value("${app.import.max-rejections:50}") int maxRejections,
+                                @Value("${app.import.heartbeat-interval:30s}") Duration heartbeatInterval,
+                                @Value("${app.import.stale-after:5m}") Duration staleAfter) {
+        this.productImportRepository = productImportRepository;
+        this.productStagingRepository = productStagingRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.productCacheService = productCacheService;
+        this.catalogGenerationService = catalogGenerationService;
+        this.productCodeIndex = productCodeIndex;
+        this.productSuggestService = productSuggestService;
+        this.maxBytes = maxBytes;
+        this.maxRejections = maxRejections;
+        this.heartbeatInterval = heartbeatInterval;
+        this.staleAfter = staleAfter;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "product-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Before this instance takes new jobs: whatever it held before a restart is no longer running anywhere
+        failStaleJobs();
+        heartbeat = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "product-import-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::beat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Marks FAILED every unfinished job whose heartbeat is older than {@code app.import.stale-after}.
+     *
+     * @return how many jobs were failed
+     */
+    public int failStaleJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int failed = productImportRepository.failStale(UNFINISHED, now.minus(staleAfter), ProductImport.Status.FAILED,
+                "Importação interrompida: a instância que a executava parou", now);
+        if (failed > 0) {
+            logger.warn("Product import - Marked {} abandoned jobs as failed", failed);
+        }
+        return failed;
+    }
+
+    private void beat() {
+        try {
+            if (!heldJobs.isEmpty()) {
+                productImportRepository.heartbeat(List.copyOf(heldJobs), LocalDateTime.now());
+            }
+            failStaleJobs();
+        } catch (RuntimeException e) {
+            // Retried on the next beat; stale-after is several intervals long
+            logger.warn("Product import - Heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Spools {@code body} to disk and queues its import.
+     *
+     * @throws IllegalArgumentException when the upload is empty or larger than {@code app.import.max-bytes}
+     */
+    public ProductImportStatusDTO submit(ProductExportService.Format format, InputStream body) throws IOException {
+        Path file = Files.createTempFile("product-import-", "." + format.getExtension());
+        long size;
+        try {
+            size = spool(body, file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        ProductImport job = new ProductImport();
+        job.setFormat(format.name());
+        job.setStatus(ProductImport.Status.QUEUED);
+        job.setBytesTotal(size);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setHeartbeatAt(job.getCreatedAt());
+        job = productImportRepository.save(job);
+
+        Long id = job.getId();
+        heldJobs.add(id);
+        try {
+            executor.execute(() -> run(id, file, format));
+        } catch (RejectedExecutionException e) {
+            heldJobs.remove(id);
+            Files.deleteIfExists(file);
+            fail(id, "Serviço em desligamento, importação não iniciada");
+            throw new IllegalStateException("Importação não pode ser iniciada", e);
+        }
+        logger.info("Product import - Job {} queued: {} bytes of {}", id, size, format);
+        return toStatus(job);
+    }
+
+    public Optional<ProductImportStatusDTO> findStatus(Long id) {
+        return productImportRepository.findById(id).map(this::toStatus);
+    }
+
+    void run(Long id, Path file, ProductExportService.Format format) {
+        try {
+            ProductImport job = productImportRepository.findById(id).orElseThrow();
+            job.setStatus(ProductImport.Status.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            job.setHeartbeatAt(job.getStartedAt());
+            job = productImportRepository.save(job);
+
+            Progress progress = new Progress(id);
+            ProductStagingRepository.MergeResult result;
+            try (CountingInputStream in = new CountingInputStream(Files.newInputStream(file))) {
+                result = productStagingRepository.stageAndMerge(writer -> {
+                    if (format == ProductExportService.Format.CSV) {
+                        parseCsv(in, writer, progress);
+                    } else {
+                        parseNdjson(in, writer, progress);
+                    }
+                }, () -> progress.flush(ProductImport.Status.MERGING, in.count), maxRejections);
+            }
+
+            if (result.created() + result.updated() > 0) {
+                // One catalog-wide invalidation for the whole file; the code filter is rebuilt rather than fed every code
+                productCacheService.evictAll();
+                catalogGenerationService.bump();
+                productCodeIndex.rebuild();
+                productSuggestService.invalidate();
+            }
+
+            job.setStatus(ProductImport.Status.COMPLETED);
+            job.setBytesRead(job.getBytesTotal());
+            job.setRowsRead(progress.rows);
+            job.setRowsRejected(progress.rejected + result.rejected());
+            job.setRowsCreated(result.created());
+            job.setRowsUpdated(result.updated());
+            job.setRejections(Stream.concat(progress.rejections.stream(), result.rejections().stream())
+                    .sorted(Comparator.comparingLong(ProductStagingRepository.Rejection::line))
+                    .limit(maxRejections)
+                    .map(rejection -> "Linha " + rejection.line() + ": " + rejection.reason())
+                    .collect(Collectors.collectingAndThen(Collectors.joining("\n"), text -> text.isEmpty() ? null : text)));
+            job.setFinishedAt(LocalDateTime.now());
+            productImportRepository.save(job);
+
+            logger.info("Product import - Job {} completed: {} rows, {} created, {} updated, {} rejected in {} ms",
+                    id, job.getRowsRead(), job.getRowsCreated(), job.getRowsUpdated(), job.getRowsRejected(),
+                    Duration.between(job.getStartedAt(), job.getFinishedAt()).toMillis());
+        } catch (Exception e) {
+            logger.error("Product import - Job {} failed: {}", id, e.getMessage(), e);
+            fail(id, e instanceof IllegalArgumentException ? e.getMessage() : "Falha ao importar: " + e.getMessage());
+        } finally {
+            heldJobs.remove(id);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Product import - Could not delete {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private void parseCsv(CountingInputStream in, ProductStagingRepository.RowWriter writer, Progress progress) throws IOException {
+        CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE));
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IllegalArgumentException("Arquivo CSV sem cabeçalho");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i) != null) {
+                // A leading BOM would otherwise hide the first column
+                columns.putIfAbsent(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        List<String> missing = REQUIRED_CSV_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Colunas obrigatórias ausentes no cabeçalho CSV: " + String.join(", ", missing));
+        }
+
+        List<String> fields;
+        while ((fields = csv.next()) != null) {
+            if (fields.stream().allMatch(field -> field == null)) {
+                continue;
+            }
+            List<String> record = fields;
+            stage(csv.getRecordLine(), field -> {
+                Integer index = columns.get(field.toLowerCase(Locale.ROOT));
+                return index != null && index < record.size() ? record.get(index) : null;
+            }, writer, progress);
+            progress.maybeFlush(in.count);
+        }
+    }
+
+    private void parseNdjson(CountingInputStream in, ProductStagingRepository.RowWriter writer, Progress progress) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                progress.rows++;
+                progress.reject(line, "JSON inválido");
+                continue;
+            }
+            if (!node.isObject()) {
+                progress.rows++;
+                progress.reject(line, "Cada linha deve ser um objeto JSON");
+                continue;
+            }
+            // Accepts both the export layout (categoryId) and the API request layout (category.id)
+            stage(line, field -> {
+                JsonNode value = "categoryId".equals(field) && !node.hasNonNull(field) ? node.path("category").get("id") : node.get(field);
+                return value == null || value.isNull() || !value.isValueNode() ? null : value.asText();
+            }, writer, progress);
+            progress.maybeFlush(in.count);
+        }
+    }
+
+    private void stage(long line, Function<String, String> field, ProductStagingRepository.RowWriter writer,
+                       Progress progress) throws IOException {
+        progress.rows++;
+        List<String> errors = new ArrayList<>();
+        BigDecimal price = parse(field.apply("price"), "price", BigDecimal::new, errors);
+        Boolean status = parse(field.apply("status"), "status", ProductImportService::parseBoolean, errors);
+        Integer code = parse(field.apply("code"), "code", Integer::valueOf, errors);
+        Long categoryId = parse(field.apply("categoryId"), "categoryId", Long::valueOf, errors);
+        String description = field.apply("description");
+
+        Category category = null;
+        if (categoryId != null) {
+            category = new Category();
+            category.setId(categoryId);
+        }
+        ProductCreateRequestV2 product = new ProductCreateRequestV2(field.apply("name"),
+                description == null || description.isEmpty() ? null : description, price, status, code, category);
+        for (ConstraintViolation<ProductCreateRequestV2> violation : validator.validate(product)) {
+            String path = violation.getPropertyPath().toString();
+            // Unparseable values were already reported above; don't add "must not be null" for them
+            if (violation.getInvalidValue() == null && errors.stream().anyMatch(error -> error.startsWith(columnOf(path) + ":"))) {
+                continue;
+            }
+            errors.add(columnOf(path) + ": " + violation.getMessage());
+        }
+        if (price != null && price.setScale(2, RoundingMode.HALF_UP).precision() > 19) {
+            errors.add("price: valor fora do intervalo permitido");
+        }
+
+        if (!errors.isEmpty()) {
+            progress.reject(line, String.join("; ", errors));
+            return;
+        }
+        writer.write(new ProductStagingRepository.StagedRow(line, product.getName(), product.getDescription(), price,
+                status, code, categoryId));
+    }
+
+    private static String columnOf(String propertyPath) {
+        return "category".equals(propertyPath) ? "categoryId" : propertyPath;
+    }
+
+    private static <T> T parse(String value, String column, Function<String, T> parser, List<String> errors) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return parser.apply(value.trim());
+        } catch (IllegalArgumentException e) {
+            errors.add(column + ": valor inválido '" + value + "'");
+            return null;
+        }
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException(value);
+    }
+
+    private long spool(InputStream body, Path file) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int read;
+            while ((read = body.read(buffer)) >= 0) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new IllegalArgumentException("Arquivo maior que o limite de " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Arquivo de importação vazio");
+        }
+        return total;
+    }
+
+    private void fail(Long id, String error) {
+        try {
+            productImportRepository.findById(id).ifPresent(job -> {
+                job.setStatus(ProductImport.Status.FAILED);
+                job.setError(error);
+                job.setFinishedAt(LocalDateTime.now());
+                productImportRepository.save(job);
+            });
+        } catch (RuntimeException e) {
+            logger.error("Product import - Could not record failure of job {}: {}", id, e.getMessage());
+        }
+    }
+
+    private ProductImportStatusDTO toStatus(ProductImport job) {
+        long bytesTotal = job.getBytesTotal();
+        long bytesRead = job.getStatus() == ProductImport.Status.COMPLETED ? bytesTotal : job.getBytesRead();
+        double progress = bytesTotal > 0 ? Math.min(1.0, (double) bytesRead / bytesTotal) : 0.0;
+
+        double rowsPerSecond = 0.0;
+        if (job.getStartedAt() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            long millis = Duration.between(job.getStartedAt(), end).toMillis();
+            rowsPerSecond = millis > 0 ? Math.round(job.getRowsRead() * 10_000.0 / millis) / 10.0 : 0.0;
+        }
+
+        return new ProductImportStatusDTO(job.getId(), job.getFormat(), job.getStatus().name(), progress,
+                bytesTotal, bytesRead, job.getRowsRead(), rowsPerSecond, job.getRowsRejected(),
+                job.getRowsCreated(), job.getRowsUpdated(),
+                job.getRejections() != null ? List.of(job.getRejections().split("\n")) : List.of(),
+                job.getError(), job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt());
+    }
+
+    /**
+     * Counters of the running job, written to its row at most once per {@link #PROGRESS_INTERVAL_NANOS}.
+     */
+    private final class Progress {
+
+        private final Long id;
+        private final List<ProductStagingRepository.Rejection> rejections = new ArrayList<>();
+        private long rows;
+        private long rejected;
+        private long lastFlush = System.nanoTime();
+
+        private Progress(Long id) {
+            this.id = id;
+        }
+
+        private void reject(long line, String reason) {
+            rejected++;
+            if (rejections.size() < maxRejections) {
+                rejections.add(new ProductStagingRepository.Rejection(line, reason));
+            }
+        }
+
+        private void maybeFlush(long bytesRead) {
+            if (System.nanoTime() - lastFlush >= PROGRESS_INTERVAL_NANOS) {
+                flush(ProductImport.Status.RUNNING, bytesRead);
+            }
+        }
+
+        private void flush(ProductImport.Status status, long bytesRead) {
+            productImportRepository.updateProgress(id, status, bytesRead, rows, rejected);
+            lastFlush = System.nanoTime();
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
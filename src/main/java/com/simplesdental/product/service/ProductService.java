@@ -1,10 +1,20 @@
 package com.simplesdental.product.service;
 
+import com.simplesdental.product.dto.KeysetPageResponse;
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.exception.PreconditionFailedException;
 import com.simplesdental.product.model.Product;
+import com.simplesdental.product.repository.CountMode;
+import com.simplesdental.product.repository.ProductFilter;
+import com.simplesdental.product.repository.ProductPatch;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ProductService {
@@ -15,11 +25,64 @@ public interface ProductService {
 
     Page<Product> findAllWithCategory(Pageable pageable);
 
+    Slice<ProductReadModel> findAllReadModels(Pageable pageable, CountMode countMode);
+
+    Slice<ProductReadModel> findReadModels(ProductFilter filter, Pageable pageable, CountMode countMode);
+
+    /**
+     * Products of a category and all its subcategories, in one query.
+     */
+    Slice<ProductReadModel> findReadModelsInSubtree(Long categoryId, Pageable pageable, CountMode countMode);
+
+    Slice<ProductReadModel> search(String text, Long categoryId, Boolean status, Pageable pageable, CountMode countMode);
+
+    KeysetPageResponse<ProductReadModel> findReadModelsAfter(ProductFilter filter, String sortBy, Sort.Direction direction, String after, int size);
+
     Optional<Product> findById(Long id);
 
     Optional<Product> findByIdWithCategory(Long id);
 
+    Optional<ProductReadModel> findReadModelById(Long id);
+
+    Optional<ProductReadModel> findReadModelByCode(Integer code);
+
+    Map<Long, ProductReadModel> findReadModelsByIds(Collection<Long> ids);
+
     Product save(Product product);
 
-    void deleteById(Long id);
+    /**
+     * Applies a partial update in one statement and returns the updated product, or empty when it does not exist.
+     *
+     * @param expectedVersions versions accepted by the request's If-Match, or null for an unconditional update
+     * @throws IllegalArgumentException    when the category does not exist or the code is already in use
+     * @throws PreconditionFailedException when the product exists with another version
+     */
+    Optional<ProductReadModel> patch(Long id, ProductPatch patch, Collection<Long> expectedVersions);
+
+    /**
+     * @return false when the product does not exist
+     */
+    boolean deleteById(Long id);
+
+    /**
+     * Like {@link #deleteById(Long)}, conditional on the versions accepted by the request's If-Match (null for none).
+     *
+     * @throws PreconditionFailedException when the product exists with another version
+     */
+    boolean deleteById(Long id, Collection<Long> expectedVersions);
+
+    /**
+     * Deletes the given products in one statement.
+     *
+     * @return the ids actually deleted
+     */
+    List<Long> deleteByIds(Collection<Long> ids);
+
+    /**
+     * Deletes every product matching {@code filter} in one statement.
+     *
+     * @return the deleted ids
+     * @throws IllegalArgumentException when the filter is empty
+     */
+    List<Long> deleteMatching(ProductFilter filter);
 }
\ No newline at end of file
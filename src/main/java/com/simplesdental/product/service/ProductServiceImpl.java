@@ -1,23 +1,58 @@
 package com.simplesdental.product.service;
 
+import com.simplesdental.product.dto.KeysetPageResponse;
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.exception.PreconditionFailedException;
 import com.simplesdental.product.model.Product;
+import com.simplesdental.product.repository.CountMode;
+import com.simplesdental.product.repository.ProductFilter;
+import com.simplesdental.product.repository.ProductFilterPolicy;
+import com.simplesdental.product.repository.ProductPatch;
 import com.simplesdental.product.repository.ProductRepository;
+import com.simplesdental.product.util.KeysetCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductServiceImpl.class);
+
+    private static final int MAX_SEARCH_LENGTH = 200;
+
     private final ProductRepository productRepository;
+    private final ProductCacheService productCacheService;
+    private final CatalogGenerationService catalogGenerationService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductSuggestService productSuggestService;
+    private final ProductCodeIndex productCodeIndex;
 
     @Autowired
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, ProductCacheService productCacheService,
+                              CatalogGenerationService catalogGenerationService,
+                              CatalogSnapshotService catalogSnapshotService,
+                              ProductSuggestService productSuggestService,
+                              ProductCodeIndex productCodeIndex) {
         this.productRepository = productRepository;
+        this.productCacheService = productCacheService;
+        this.catalogGenerationService = catalogGenerationService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.productSuggestService = productSuggestService;
+        this.productCodeIndex = productCodeIndex;
     }
 
     @Override
@@ -33,6 +68,76 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public Page<Product> findAllWithCategory(Pageable pageable) { return productRepository.findAllWithCategory(pageable); }
 
+    @Override
+    public Slice<ProductReadModel> findAllReadModels(Pageable pageable, CountMode countMode) {
+        // Listings are cached under the generation ETag: a lagging snapshot must not answer them
+        CatalogSnapshot snapshot = catalogSnapshotService.currentIfCaughtUp();
+        if (snapshot != null) {
+            Slice<ProductReadModel> page = snapshot.findAll(pageable, countMode);
+            if (page != null) {
+                return page;
+            }
+        }
+        return productRepository.findAllReadModels(pageable, countMode);
+    }
+
+    @Override
+    public Slice<ProductReadModel> findReadModels(ProductFilter filter, Pageable pageable, CountMode countMode) {
+        if (filter.isEmpty()) {
+            return findAllReadModels(pageable, countMode);
+        }
+        checkFilter(filter, pageable.getSort());
+        return productRepository.findReadModels(filter, pageable, countMode);
+    }
+
+    @Override
+    public Slice<ProductReadModel> findReadModelsInSubtree(Long categoryId, Pageable pageable, CountMode countMode) {
+        return productRepository.findReadModelsInSubtree(categoryId, pageable, countMode);
+    }
+
+    @Override
+    public Slice<ProductReadModel> search(String text, Long categoryId, Boolean status, Pageable pageable, CountMode countMode) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Informe o termo de busca");
+        }
+        if (text.length() > MAX_SEARCH_LENGTH) {
+            throw new IllegalArgumentException("Termo de busca deve ter no máximo " + MAX_SEARCH_LENGTH + " caracteres");
+        }
+        return productRepository.search(text.trim(), categoryId, status, pageable, countMode);
+    }
+
+    @Override
+    public KeysetPageResponse<ProductReadModel> findReadModelsAfter(ProductFilter filter, String sortBy, Sort.Direction direction,
+                                                                   String after, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Tamanho da página deve ser maior que zero");
+        }
+        checkFilter(filter, Sort.by(direction, sortBy));
+
+        Object lastValue = null;
+        Long lastId = null;
+        if (after != null && !after.isBlank()) {
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            if (!cursor.matches(sortBy, direction)) {
+                throw new IllegalArgumentException("Cursor não corresponde à ordenação solicitada");
+            }
+            lastId = cursor.getLastId();
+            lastValue = parseKeysetValue(sortBy, cursor.getLastValue());
+        }
+
+        // One extra row tells whether a next page exists without a COUNT query
+        List<ProductReadModel> rows = findRowsAfter(filter, sortBy, direction, lastValue, lastId, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<ProductReadModel> content = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductReadModel last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(sortBy, direction, last.id(), keysetValue(sortBy, last)).encode();
+        }
+        return new KeysetPageResponse<>(content, size, hasNext, nextCursor);
+    }
+
     @Override
     public Optional<Product> findById(Long id) {
         return productRepository.findById(id);
@@ -43,13 +148,197 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findByIdWithCategory(id);
     }
 
+    @Override
+    public Optional<ProductReadModel> findReadModelById(Long id) {
+        // Only a caught-up snapshot: a client reading back its own write must not get the row from before it
+        CatalogSnapshot snapshot = catalogSnapshotService.currentIfCaughtUp();
+        if (snapshot != null) {
+            return snapshot.findById(id);
+        }
+        return productCacheService.findById(id);
+    }
+
+    @Override
+    public Optional<ProductReadModel> findReadModelByCode(Integer code) {
+        if (code == null) {
+            throw new IllegalArgumentException("Informe o código do produto");
+        }
+        // Most integration lookups are for codes that do not exist; those never reach the database
+        if (!productCodeIndex.mightExist(code)) {
+            return Optional.empty();
+        }
+        return productCacheService.findByCode(code);
+    }
+
+    @Override
+    public Map<Long, ProductReadModel> findReadModelsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        CatalogSnapshot snapshot = catalogSnapshotService.currentIfCaughtUp();
+        if (snapshot != null) {
+            return snapshot.findAllByIds(ids);
+        }
+        return productCacheService.findAllByIds(ids);
+    }
+
     @Override
     public Product save(Product product) {
-        return productRepository.save(product);
+        // Read before saving: the cached read model still holds the stored name
+        boolean nameChanged = product.getId() == null || productCacheService.findById(product.getId())
+                .map(existing -> !existing.name().equals(product.getName()))
+                .orElse(true);
+
+        Product saved = productRepository.save(product);
+        productCacheService.evict(saved.getId());
+        productCodeIndex.recordWrite(saved.getCode(), catalogGenerationService.bump());
+        if (nameChanged) {
+            productSuggestService.invalidate();
+        }
+        return saved;
     }
 
     @Override
-    public void deleteById(Long id) {
-        productRepository.deleteById(id);
+    public Optional<ProductReadModel> patch(Long id, ProductPatch patch, Collection<Long> expectedVersions) {
+        if (patch.isEmpty()) {
+            // An empty merge patch changes nothing
+            Optional<ProductReadModel> current = findReadModelById(id);
+            if (current.isPresent() && expectedVersions != null && !expectedVersions.contains(current.get().version())) {
+                throw versionMismatch(id);
+            }
+            return current;
+        }
+
+        // A PUT always sets the name; like save(), compare it with the cached read model before the UPDATE
+        String previousName = patch.changes(ProductPatch.Field.NAME)
+                ? productCacheService.findById(id).map(ProductReadModel::name).orElse(null)
+                : null;
+
+        Optional<ProductReadModel> patched = Optional.empty();
+        if (expectedVersions == null || !expectedVersions.isEmpty()) {
+            try {
+                patched = productRepository.patch(id, patch, expectedVersions);
+            } catch (DataIntegrityViolationException e) {
+                // Category existence and code uniqueness are left to the table constraints: no lookups before the UPDATE
+                throw new IllegalArgumentException(constraintMessage(e), e);
+            }
+        }
+        if (patched.isEmpty()) {
+            checkMissing(id, expectedVersions);
+        }
+
+        // Invalidate right after the statement commits; evicting earlier would let a reader re-cache the old row
+        patched.ifPresent(product -> {
+            productCacheService.evict(id);
+            productCodeIndex.recordWrite(product.code(), catalogGenerationService.bump());
+            if (patch.changes(ProductPatch.Field.NAME) && !product.name().equals(previousName)) {
+                productSuggestService.invalidate();
+            }
+        });
+        return patched;
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        return !deleteByIds(List.of(id)).isEmpty();
+    }
+
+    @Override
+    public boolean deleteById(Long id, Collection<Long> expectedVersions) {
+        if (expectedVersions == null) {
+            return deleteById(id);
+        }
+        if (!expectedVersions.isEmpty() && productRepository.deleteIfVersion(id, expectedVersions)) {
+            afterDelete(List.of(id));
+            return true;
+        }
+        checkMissing(id, expectedVersions);
+        return false;
+    }
+
+    @Override
+    public List<Long> deleteByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return afterDelete(productRepository.deleteByIds(ids));
+    }
+
+    @Override
+    public List<Long> deleteMatching(ProductFilter filter) {
+        if (filter.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um filtro para excluir produtos");
+        }
+        return afterDelete(productRepository.deleteMatching(filter));
+    }
+
+    // One batch invalidation for everything the statement deleted; nothing to do when it matched no rows
+    private List<Long> afterDelete(List<Long> deleted) {
+        if (!deleted.isEmpty()) {
+            productCacheService.evict(deleted);
+            productCodeIndex.recordWrite(null, catalogGenerationService.bump());
+            productSuggestService.invalidate();
+        }
+        return deleted;
+    }
+
+    private List<ProductReadModel> findRowsAfter(ProductFilter filter, String sortBy, Sort.Direction direction,
+                                                 Object lastValue, Long lastId, int limit) {
+        CatalogSnapshot snapshot = catalogSnapshotService.currentIfCaughtUp();
+        if (snapshot != null && filter.isEmpty()) {
+            List<ProductReadModel> rows = snapshot.findAfter(sortBy, direction, lastValue, lastId, limit);
+            if (rows != null) {
+                return rows;
+            }
+        }
+        return productRepository.findReadModelsAfter(filter, sortBy, direction, lastValue, lastId, limit);
+    }
+
+    // Only reached when a conditional statement matched no row: tells a missing product from a stale If-Match
+    private void checkMissing(Long id, Collection<Long> expectedVersions) {
+        if (expectedVersions != null && productRepository.existsById(id)) {
+            throw versionMismatch(id);
+        }
+    }
+
+    private PreconditionFailedException versionMismatch(Long id) {
+        logger.warn("Product {} - If-Match does not match the current version", id);
+        return new PreconditionFailedException("Produto foi alterado por outra requisição; obtenha a versão atual e tente novamente");
+    }
+
+    private String constraintMessage(DataIntegrityViolationException e) {
+        String sqlState = e.getMostSpecificCause() instanceof SQLException sqlException ? sqlException.getSQLState() : null;
+        if ("23503".equals(sqlState)) {
+            return "Categoria não encontrada";
+        }
+        if ("23505".equals(sqlState)) {
+            return "Código já utilizado por outro produto";
+        }
+        return "Alteração viola uma restrição do produto";
+    }
+
+    private void checkFilter(ProductFilter filter, Sort sort) {
+        ProductFilterPolicy.check(filter, sort)
+                .forEach(warning -> logger.warn("Product filter {} - {}", filter, warning));
+    }
+
+    private String keysetValue(String sortBy, ProductReadModel product) {
+        return switch (sortBy) {
+            case "name" -> product.name();
+            case "price" -> product.price().toPlainString();
+            default -> null;
+        };
+    }
+
+    private Object parseKeysetValue(String sortBy, String value) {
+        try {
+            return switch (sortBy) {
+                case "name" -> value;
+                case "price" -> new BigDecimal(value);
+                default -> null;
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
     }
 }
\ No newline at end of file
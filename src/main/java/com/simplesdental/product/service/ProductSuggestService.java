@@ -0,0 +1,124 @@
+package com.simplesdental.product.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.simplesdental.product.dto.ProductSuggestionDTO;
+import com.simplesdental.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Product name autocomplete. Short prefixes, which the trigram index serves worst and typing hits most,
+ * are answered from an in-process cache of their top results. Cache keys embed a name generation shared
+ * through Redis and bumped only when a product name appears, changes or disappears.
+ */
+@Service
+public class ProductSuggestService {
+
+    static final String NAME_GENERATION_KEY = "catalog:names:generation";
+
+    public static final int MAX_LIMIT = 20;
+    public static final int MAX_PREFIX_LENGTH = 100;
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSuggestService.class);
+
+    private final ProductRepository productRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<String, List<ProductSuggestionDTO>> cache;
+    private final int maxCachedPrefixLength;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer latency;
+
+    public ProductSuggestService(ProductRepository productRepository,
+                                 StringRedisTemplate redisTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.suggest.cache.max-prefix-length:3}") int maxCachedPrefixLength,
+                                 @Value("${app.suggest.cache.max-size:5000}") long maxSize,
+                                 @Value("${app.suggest.cache.ttl:10m}") Duration ttl) {
+        this.productRepository = productRepository;
+        this.redisTemplate = redisTemplate;
+        this.maxCachedPrefixLength = maxCachedPrefixLength;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.hits = Counter.builder("suggest.cache.requests").tag("result", "hit")
+                .description("Suggestions served from the prefix cache").register(meterRegistry);
+        this.misses = Counter.builder("suggest.cache.requests").tag("result", "miss")
+                .description("Suggestions queried from the database").register(meterRegistry);
+        this.latency = Timer.builder("product.suggest.latency")
+                .description("Latency of product name suggestions")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("Informe o prefixo para sugestão");
+        }
+        if (prefix.length() > MAX_PREFIX_LENGTH) {
+            throw new IllegalArgumentException("Prefixo deve ter no máximo " + MAX_PREFIX_LENGTH + " caracteres");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limite de sugestões deve estar entre 1 e " + MAX_LIMIT);
+        }
+        String term = prefix.strip().toLowerCase(Locale.ROOT);
+        return latency.record(() -> lookup(term, limit));
+    }
+
+    /**
+     * Marks every cached suggestion as stale, on all instances. Called on product writes that may change
+     * which names exist.
+     */
+    public void invalidate() {
+        try {
+            redisTemplate.opsForValue().increment(NAME_GENERATION_KEY);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to bump product name generation: {}", e.getMessage());
+        }
+        // Covers this instance even when Redis is unreachable
+        cache.invalidateAll();
+    }
+
+    private List<ProductSuggestionDTO> lookup(String term, int limit) {
+        long generation = term.length() <= maxCachedPrefixLength ? generation() : -1L;
+        if (generation < 0) {
+            misses.increment();
+            return productRepository.suggest(term, limit);
+        }
+
+        // Always cache the top MAX_LIMIT so any requested limit is a prefix of the same entry
+        String key = generation + ":" + term;
+        List<ProductSuggestionDTO> top = cache.getIfPresent(key);
+        if (top != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            top = cache.get(key, k -> productRepository.suggest(term, MAX_LIMIT));
+        }
+        return top.size() > limit ? top.subList(0, limit) : top;
+    }
+
+    private long generation() {
+        try {
+            String value = redisTemplate.opsForValue().get(NAME_GENERATION_KEY);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (RuntimeException e) {
+            logger.warn("Product name generation unavailable: {}", e.getMessage());
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.simplesdental.product.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds entity tags from version components and reads them back from {@code If-Match}. A missing component
+ * means the representation has no reliable validator, in which case no tag is produced.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Strong tag: the components identify a byte-identical representation.
+     */
+    public static String strong(Object... components) {
+        if (Arrays.stream(components).anyMatch(Objects::isNull)) {
+            return null;
+        }
+        return Arrays.stream(components).map(String::valueOf).collect(Collectors.joining(".", "\"", "\""));
+    }
+
+    /**
+     * Weak tag: the components identify a semantically equivalent representation.
+     */
+    public static String weak(Object... components) {
+        String tag = strong(components);
+        return tag != null ? "W/" + tag : null;
+    }
+
+    /**
+     * Row versions accepted by an {@code If-Match} header whose tags were built by {@link #strong} with the row
+     * version as first component. Weak and foreign tags never match (If-Match uses the strong comparison), so
+     * the result may be empty.
+     *
+     * @return null when there is no precondition on the version (header absent or {@code *})
+     */
+    public static Set<Long> ifMatchVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+                continue;
+            }
+            String value = tag.substring(1, tag.length() - 1);
+            int dot = value.indexOf('.');
+            try {
+                versions.add(Long.parseLong(dot < 0 ? value : value.substring(0, dot)));
+            } catch (NumberFormatException e) {
+                // Not one of ours: cannot match
+            }
+        }
+        return versions;
+    }
+}
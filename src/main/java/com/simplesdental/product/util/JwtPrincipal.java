@@ -0,0 +1,8 @@
+package com.simplesdental.product.util;
+
+import java.util.Date;
+
+/**
+ * Claims of a verified token, read from a single parse.
+ */
+public record JwtPrincipal(Long userId, String username, String role, Date expiration) {}
@@ -0,0 +1,4 @@
+-- Autocomplete: índice de trigramas sobre o nome, atende ILIKE '%termo%' e similarity()
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_products_name_trgm ON products USING GIN (name gin_trgm_ops);
@@ -0,0 +1,3 @@
+-- IDs de produto passam a vir da sequência em blocos de 50 (otimizador pooled do Hibernate),
+-- o que permite batching de INSERT; o DEFAULT nextval da coluna continua válido para inserts diretos
+ALTER SEQUENCE products_id_seq INCREMENT BY 50;
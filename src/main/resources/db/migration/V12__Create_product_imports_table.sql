@@ -0,0 +1,19 @@
+-- Jobs de importação de produtos (CSV/NDJSON). O estado fica no banco para que o status
+-- possa ser consultado em qualquer instância, não só na que executa o job
+CREATE TABLE product_imports (
+    id            BIGSERIAL PRIMARY KEY,
+    format        VARCHAR(10)  NOT NULL CHECK (format IN ('CSV', 'NDJSON')),
+    status        VARCHAR(20)  NOT NULL CHECK (status IN ('QUEUED', 'RUNNING', 'MERGING', 'COMPLETED', 'FAILED')),
+    bytes_total   BIGINT       NOT NULL DEFAULT 0,
+    bytes_read    BIGINT       NOT NULL DEFAULT 0,
+    rows_read     BIGINT       NOT NULL DEFAULT 0,
+    rows_rejected BIGINT       NOT NULL DEFAULT 0,
+    rows_created  BIGINT       NOT NULL DEFAULT 0,
+    rows_updated  BIGINT       NOT NULL DEFAULT 0,
+    -- Amostra das linhas rejeitadas (uma por linha de texto)
+    rejections    TEXT,
+    error         TEXT,
+    created_at    TIMESTAMP    NOT NULL DEFAULT now(),
+    started_at    TIMESTAMP,
+    finished_at   TIMESTAMP
+);
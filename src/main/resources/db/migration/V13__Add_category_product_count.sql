@@ -0,0 +1,56 @@
+-- Contagem de produtos desnormalizada em categories, mantida por triggers de instrução nos produtos:
+-- a listagem de categorias deixa de agregar products.
+ALTER TABLE categories ADD COLUMN product_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE categories c SET product_count = p.n
+FROM (SELECT category_id, count(*) AS n FROM products GROUP BY category_id) p
+WHERE c.id = p.category_id;
+
+-- Um UPDATE por categoria afetada e por instrução (não por linha): um lote ou importação de milhares de
+-- produtos numa categoria grava a categoria uma única vez. Categorias cujo saldo é zero não são tocadas.
+CREATE OR REPLACE FUNCTION maintain_category_product_count() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        UPDATE categories c SET product_count = c.product_count + d.delta
+        FROM (SELECT category_id, count(*) AS delta FROM new_rows GROUP BY category_id) d
+        WHERE c.id = d.category_id;
+    ELSIF TG_OP = 'DELETE' THEN
+        UPDATE categories c SET product_count = c.product_count - d.delta
+        FROM (SELECT category_id, count(*) AS delta FROM old_rows GROUP BY category_id) d
+        WHERE c.id = d.category_id;
+    ELSE
+        UPDATE categories c SET product_count = c.product_count + d.delta
+        FROM (SELECT category_id, sum(delta) AS delta FROM (
+                  SELECT category_id, 1 AS delta FROM new_rows
+                  UNION ALL
+                  SELECT category_id, -1 FROM old_rows) moved
+              GROUP BY category_id HAVING sum(delta) <> 0) d
+        WHERE c.id = d.category_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Tabelas de transição exigem um trigger por evento
+CREATE TRIGGER trg_products_count_insert
+    AFTER INSERT ON products REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION maintain_category_product_count();
+
+CREATE TRIGGER trg_products_count_update
+    AFTER UPDATE ON products REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION maintain_category_product_count();
+
+CREATE TRIGGER trg_products_count_delete
+    AFTER DELETE ON products REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION maintain_category_product_count();
+
+-- A contagem não faz parte do snapshot do catálogo: só nome, descrição e versão notificam alterações
+DROP TRIGGER trg_categories_catalog_change ON categories;
+
+CREATE TRIGGER trg_categories_catalog_change
+    AFTER INSERT OR DELETE ON categories
+    FOR EACH ROW EXECUTE FUNCTION notify_catalog_change();
+
+CREATE TRIGGER trg_categories_catalog_change_update
+    AFTER UPDATE OF name, description, version ON categories
+    FOR EACH ROW EXECUTE FUNCTION notify_catalog_change();
@@ -0,0 +1,102 @@
+-- Categorias hierárquicas: parent_id mais caminho materializado ('/1/5/12/', ids da raiz até a própria
+-- categoria). Com collation "C" o caminho ordena por byte e uma subárvore é um intervalo contíguo do
+-- índice: path >= '/1/5/' AND path < '/1/50' ('0' é o caractere seguinte a '/').
+ALTER TABLE categories ADD COLUMN parent_id BIGINT REFERENCES categories(id);
+ALTER TABLE categories ADD COLUMN path TEXT COLLATE "C";
+ALTER TABLE categories ADD COLUMN depth INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE categories ADD COLUMN subtree_product_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE categories SET path = '/' || id || '/', subtree_product_count = product_count;
+ALTER TABLE categories ALTER COLUMN path SET NOT NULL;
+
+CREATE INDEX idx_categories_parent_id ON categories(parent_id);
+CREATE INDEX idx_categories_path ON categories(path);
+
+-- Calcula caminho e profundidade a partir do pai; recusa mover uma categoria para dentro da própria subárvore
+CREATE OR REPLACE FUNCTION set_category_path() RETURNS trigger AS $$
+DECLARE
+    parent_path TEXT;
+    parent_depth INTEGER;
+BEGIN
+    IF NEW.parent_id IS NULL THEN
+        NEW.path := '/' || NEW.id || '/';
+        NEW.depth := 0;
+        RETURN NEW;
+    END IF;
+    SELECT path, depth INTO parent_path, parent_depth FROM categories WHERE id = NEW.parent_id;
+    IF parent_path IS NULL THEN
+        RAISE EXCEPTION 'Categoria pai % não encontrada', NEW.parent_id USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    IF position('/' || NEW.id || '/' IN parent_path) > 0 THEN
+        RAISE EXCEPTION 'Categoria % não pode ficar abaixo da própria subárvore', NEW.id USING ERRCODE = 'check_violation';
+    END IF;
+    NEW.path := parent_path || NEW.id || '/';
+    NEW.depth := parent_depth + 1;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_categories_path
+    BEFORE INSERT OR UPDATE OF parent_id ON categories
+    FOR EACH ROW EXECUTE FUNCTION set_category_path();
+
+-- Ao mover uma categoria, os descendentes acompanham o novo caminho e a contagem da subárvore sai dos
+-- ancestrais antigos e entra nos novos (um ancestral comum recebe -n e +n)
+CREATE OR REPLACE FUNCTION move_category_subtree() RETURNS trigger AS $$
+BEGIN
+    UPDATE categories SET path = NEW.path || substr(path, length(OLD.path) + 1), depth = depth + NEW.depth - OLD.depth
+    WHERE path > OLD.path AND path < left(OLD.path, -1) || '0';
+
+    UPDATE categories SET subtree_product_count = subtree_product_count - NEW.subtree_product_count
+    WHERE id = ANY (string_to_array(trim(BOTH '/' FROM OLD.path), '/')::BIGINT[]) AND id <> NEW.id;
+
+    UPDATE categories SET subtree_product_count = subtree_product_count + NEW.subtree_product_count
+    WHERE id = ANY (string_to_array(trim(BOTH '/' FROM NEW.path), '/')::BIGINT[]) AND id <> NEW.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_categories_move
+    AFTER UPDATE OF parent_id ON categories
+    FOR EACH ROW WHEN (OLD.parent_id IS DISTINCT FROM NEW.parent_id)
+    EXECUTE FUNCTION move_category_subtree();
+
+-- Substitui a função da V13: o saldo de cada categoria também sobe para todos os ancestrais (ids do caminho),
+-- ainda uma vez por instrução. São dois UPDATEs porque uma linha não pode ser alterada duas vezes no mesmo comando.
+CREATE OR REPLACE FUNCTION maintain_category_product_count() RETURNS trigger AS $$
+DECLARE
+    ids BIGINT[];
+    deltas BIGINT[];
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT array_agg(category_id), array_agg(delta) INTO ids, deltas
+        FROM (SELECT category_id, count(*) AS delta FROM new_rows GROUP BY category_id) d;
+    ELSIF TG_OP = 'DELETE' THEN
+        SELECT array_agg(category_id), array_agg(delta) INTO ids, deltas
+        FROM (SELECT category_id, -count(*) AS delta FROM old_rows GROUP BY category_id) d;
+    ELSE
+        SELECT array_agg(category_id), array_agg(delta) INTO ids, deltas
+        FROM (SELECT category_id, sum(delta) AS delta FROM (
+                  SELECT category_id, 1 AS delta FROM new_rows
+                  UNION ALL
+                  SELECT category_id, -1 FROM old_rows) moved
+              GROUP BY category_id HAVING sum(delta) <> 0) d;
+    END IF;
+    IF ids IS NULL THEN
+        RETURN NULL;
+    END IF;
+
+    UPDATE categories c SET product_count = c.product_count + d.delta
+    FROM unnest(ids, deltas) AS d(category_id, delta)
+    WHERE c.id = d.category_id;
+
+    UPDATE categories a SET subtree_product_count = a.subtree_product_count + s.delta
+    FROM (SELECT ancestor::BIGINT AS id, sum(d.delta) AS delta
+          FROM unnest(ids, deltas) AS d(category_id, delta)
+          JOIN categories c ON c.id = d.category_id
+          CROSS JOIN LATERAL unnest(string_to_array(trim(BOTH '/' FROM c.path), '/')) AS ancestor
+          GROUP BY 1 HAVING sum(d.delta) <> 0) s
+    WHERE a.id = s.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
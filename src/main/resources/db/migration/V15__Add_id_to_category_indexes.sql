@@ -0,0 +1,10 @@
+-- idx_products_category_id e idx_products_status_category ganham id como última coluna: a listagem por
+-- categoria (/api/categories/{id}/products) lê as linhas da categoria já na ordem do cursor, sem ordenar.
+-- Os índices antigos são prefixos dos novos e deixam de ser necessários.
+CREATE INDEX idx_products_category_id_id ON products(category_id, id);
+DROP INDEX idx_products_category_id;
+ALTER INDEX idx_products_category_id_id RENAME TO idx_products_category_id;
+
+CREATE INDEX idx_products_status_category_id ON products(status, category_id, id);
+DROP INDEX idx_products_status_category;
+ALTER INDEX idx_products_status_category_id RENAME TO idx_products_status_category;
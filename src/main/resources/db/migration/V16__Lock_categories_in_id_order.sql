@@ -0,0 +1,74 @@
+-- Os triggers da V14 atualizam categorias e ancestrais com UPDATE ... FROM / WHERE id = ANY, que bloqueiam as
+-- linhas na ordem do plano. Duas instruções concorrentes com ancestrais em comum (lotes de produtos em
+-- categorias irmãs, ou um lote e a movimentação de uma subárvore) podiam bloqueá-las em ordens opostas e
+-- terminar em deadlock (40P01). Agora todas as linhas afetadas são bloqueadas antes, em ordem de id.
+-- FOR NO KEY UPDATE é o bloqueio que o próprio UPDATE tomaria: não conflita com o FOR KEY SHARE das
+-- chaves estrangeiras de products.
+
+CREATE OR REPLACE FUNCTION move_category_subtree() RETURNS trigger AS $$
+BEGIN
+    PERFORM 1 FROM categories
+    WHERE (path > OLD.path AND path < left(OLD.path, -1) || '0')
+       OR id = ANY (string_to_array(trim(BOTH '/' FROM OLD.path), '/')::BIGINT[]
+                    || string_to_array(trim(BOTH '/' FROM NEW.path), '/')::BIGINT[])
+    ORDER BY id
+    FOR NO KEY UPDATE;
+
+    UPDATE categories SET path = NEW.path || substr(path, length(OLD.path) + 1), depth = depth + NEW.depth - OLD.depth
+    WHERE path > OLD.path AND path < left(OLD.path, -1) || '0';
+
+    UPDATE categories SET subtree_product_count = subtree_product_count - NEW.subtree_product_count
+    WHERE id = ANY (string_to_array(trim(BOTH '/' FROM OLD.path), '/')::BIGINT[]) AND id <> NEW.id;
+
+    UPDATE categories SET subtree_product_count = subtree_product_count + NEW.subtree_product_count
+    WHERE id = ANY (string_to_array(trim(BOTH '/' FROM NEW.path), '/')::BIGINT[]) AND id <> NEW.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION maintain_category_product_count() RETURNS trigger AS $$
+DECLARE
+    ids BIGINT[];
+    deltas BIGINT[];
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT array_agg(category_id), array_agg(delta) INTO ids, deltas
+        FROM (SELECT category_id, count(*) AS delta FROM new_rows GROUP BY category_id) d;
+    ELSIF TG_OP = 'DELETE' THEN
+        SELECT array_agg(category_id), array_agg(delta) INTO ids, deltas
+        FROM (SELECT category_id, -count(*) AS delta FROM old_rows GROUP BY category_id) d;
+    ELSE
+        SELECT array_agg(category_id), array_agg(delta) INTO ids, deltas
+        FROM (SELECT category_id, sum(delta) AS delta FROM (
+                  SELECT category_id, 1 AS delta FROM new_rows
+                  UNION ALL
+                  SELECT category_id, -1 FROM old_rows) moved
+              GROUP BY category_id HAVING sum(delta) <> 0) d;
+    END IF;
+    IF ids IS NULL THEN
+        RETURN NULL;
+    END IF;
+
+    -- O caminho de cada categoria inclui ela mesma, então os ancestrais cobrem todas as linhas alteradas abaixo
+    PERFORM 1 FROM categories
+    WHERE id IN (SELECT ancestor::BIGINT
+                 FROM categories c
+                 CROSS JOIN LATERAL unnest(string_to_array(trim(BOTH '/' FROM c.path), '/')) AS ancestor
+                 WHERE c.id = ANY (ids))
+    ORDER BY id
+    FOR NO KEY UPDATE;
+
+    UPDATE categories c SET product_count = c.product_count + d.delta
+    FROM unnest(ids, deltas) AS d(category_id, delta)
+    WHERE c.id = d.category_id;
+
+    UPDATE categories a SET subtree_product_count = a.subtree_product_count + s.delta
+    FROM (SELECT ancestor::BIGINT AS id, sum(d.delta) AS delta
+          FROM unnest(ids, deltas) AS d(category_id, delta)
+          JOIN categories c ON c.id = d.category_id
+          CROSS JOIN LATERAL unnest(string_to_array(trim(BOTH '/' FROM c.path), '/')) AS ancestor
+          GROUP BY 1 HAVING sum(d.delta) <> 0) s
+    WHERE a.id = s.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
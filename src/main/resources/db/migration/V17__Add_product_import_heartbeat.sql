@@ -0,0 +1,6 @@
+-- A instância que executa (ou enfileirou) um job atualiza heartbeat_at periodicamente. Um job não finalizado
+-- sem heartbeat recente ficou órfão (a instância caiu ou foi reiniciada) e é marcado como FAILED.
+ALTER TABLE product_imports ADD COLUMN heartbeat_at TIMESTAMP;
+UPDATE product_imports SET heartbeat_at = COALESCE(finished_at, started_at, created_at);
+ALTER TABLE product_imports ALTER COLUMN heartbeat_at SET NOT NULL;
+ALTER TABLE product_imports ALTER COLUMN heartbeat_at SET DEFAULT now();
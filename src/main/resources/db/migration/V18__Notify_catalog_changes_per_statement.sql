@@ -0,0 +1,62 @@
+-- Substitui os triggers por linha do V9: uma instrução que altera milhares de linhas (lote, importação)
+-- passa a enviar uma notificação por bloco de ids, e não uma por linha.
+-- Payload: tabela:operação:id1,id2,...:epoch_ms. Até 300 ids por notificação, dentro do limite de 8000
+-- bytes do pg_notify mesmo com ids de 19 dígitos.
+DROP TRIGGER trg_products_catalog_change ON products;
+DROP TRIGGER trg_categories_catalog_change ON categories;
+DROP TRIGGER trg_categories_catalog_change_update ON categories;
+DROP FUNCTION notify_catalog_change();
+
+CREATE OR REPLACE FUNCTION notify_catalog_changes() RETURNS trigger AS $$
+DECLARE
+    changed_at BIGINT := (extract(epoch FROM clock_timestamp()) * 1000)::BIGINT;
+    ids BIGINT[];
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT array_agg(id ORDER BY id) INTO ids FROM new_rows;
+    ELSIF TG_OP = 'DELETE' THEN
+        SELECT array_agg(id ORDER BY id) INTO ids FROM old_rows;
+    ELSIF TG_TABLE_NAME = 'categories' THEN
+        -- Contagens e caminho não fazem parte do snapshot: só nome, descrição e versão (antes UPDATE OF no V13)
+        SELECT array_agg(n.id ORDER BY n.id) INTO ids
+        FROM new_rows n JOIN old_rows o ON o.id = n.id
+        WHERE (n.name, n.description, n.version) IS DISTINCT FROM (o.name, o.description, o.version);
+    ELSE
+        SELECT array_agg(id ORDER BY id) INTO ids FROM new_rows;
+    END IF;
+
+    IF ids IS NULL THEN
+        RETURN NULL;
+    END IF;
+    FOR i IN 1 .. array_length(ids, 1) BY 300 LOOP
+        PERFORM pg_notify('catalog_changes',
+            TG_TABLE_NAME || ':' || TG_OP || ':' || array_to_string(ids[i:i + 299], ',') || ':' || changed_at);
+    END LOOP;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Tabelas de transição exigem um trigger por evento (e não aceitam UPDATE OF colunas)
+CREATE TRIGGER trg_products_catalog_insert
+    AFTER INSERT ON products REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_catalog_changes();
+
+CREATE TRIGGER trg_products_catalog_update
+    AFTER UPDATE ON products REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_catalog_changes();
+
+CREATE TRIGGER trg_products_catalog_delete
+    AFTER DELETE ON products REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_catalog_changes();
+
+CREATE TRIGGER trg_categories_catalog_insert
+    AFTER INSERT ON categories REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_catalog_changes();
+
+CREATE TRIGGER trg_categories_catalog_update
+    AFTER UPDATE ON categories REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_catalog_changes();
+
+CREATE TRIGGER trg_categories_catalog_delete
+    AFTER DELETE ON categories REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_catalog_changes();
@@ -0,0 +1,6 @@
+-- Índices compostos (coluna, id) para paginação por cursor (keyset) em /api/v2/products
+CREATE INDEX idx_products_name_id ON products(name, id);
+CREATE INDEX idx_products_price_id ON products(price, id);
+
+-- idx_products_name passa a ser prefixo redundante de idx_products_name_id
+DROP INDEX IF EXISTS idx_products_name;
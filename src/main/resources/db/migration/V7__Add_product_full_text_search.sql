@@ -0,0 +1,9 @@
+-- Busca textual: tsvector gerado sobre nome (peso A) e descrição (peso B), configuração portuguesa
+ALTER TABLE products ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('portuguese', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('portuguese', coalesce(description, '')), 'B')
+    ) STORED;
+
+-- Índice GIN para consultas search_vector @@ tsquery
+CREATE INDEX idx_products_search_vector ON products USING GIN (search_vector);
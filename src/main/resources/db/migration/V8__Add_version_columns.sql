@@ -0,0 +1,3 @@
+-- Versão para controle de concorrência otimista (@Version) e ETags fortes
+ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE categories ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,24 @@
+-- Publica alterações do catálogo no canal catalog_changes (consumido pelo snapshot em memória).
+-- Payload: tabela:operação:id:epoch_ms (momento da alteração, para medir o atraso de propagação)
+CREATE OR REPLACE FUNCTION notify_catalog_change() RETURNS trigger AS $$
+DECLARE
+    row_id BIGINT;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        row_id := OLD.id;
+    ELSE
+        row_id := NEW.id;
+    END IF;
+    PERFORM pg_notify('catalog_changes',
+        TG_TABLE_NAME || ':' || TG_OP || ':' || row_id || ':' || (extract(epoch FROM clock_timestamp()) * 1000)::BIGINT);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_products_catalog_change
+    AFTER INSERT OR UPDATE OR DELETE ON products
+    FOR EACH ROW EXECUTE FUNCTION notify_catalog_change();
+
+CREATE TRIGGER trg_categories_catalog_change
+    AFTER INSERT OR UPDATE OR DELETE ON categories
+    FOR EACH ROW EXECUTE FUNCTION notify_catalog_change();
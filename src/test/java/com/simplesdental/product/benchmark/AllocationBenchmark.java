@@ -0,0 +1,46 @@
+package com.simplesdental.product.benchmark;
+
+import org.slf4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Measures the bytes allocated and the time spent per call of an operation on the current thread. The numbers
+ * are reported, not asserted: relative timings and allocations vary with the JVM and the machine, so comparing
+ * them in a test would make it flaky.
+ */
+final class AllocationBenchmark {
+
+    // Results are folded in here so the JIT cannot drop the measured calls
+    private static volatile int blackhole;
+
+    private AllocationBenchmark() {
+    }
+
+    static Result measure(int warmupIterations, int measuredIterations, Supplier<Integer> operation) {
+        int sink = 0;
+        for (int i = 0; i < warmupIterations; i++) {
+            sink += operation.get();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            sink += operation.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+
+        blackhole = sink;
+        return new Result(allocated / measuredIterations, elapsed / 1_000.0 / measuredIterations);
+    }
+
+    static void report(Logger logger, String name, Result result) {
+        logger.info("{}: {} bytes/op, {} µs/op", name, result.bytesPerOp(), String.format("%.1f", result.microsPerOp()));
+    }
+
+    record Result(long bytesPerOp, double microsPerOp) {
+    }
+}
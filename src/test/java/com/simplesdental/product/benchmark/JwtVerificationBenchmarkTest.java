@@ -0,0 +1,64 @@
+package com.simplesdental.product.benchmark;
+
+import com.simplesdental.product.util.JwtPrincipal;
+import com.simplesdental.product.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.function.Supplier;
+
+/**
+ * Reports the per-request cost of authenticating a bearer token the old way (five parses, each rebuilding
+ * the key and parser) next to a single parse on the cached parser. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class JwtVerificationBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtVerificationBenchmarkTest.class);
+
+    private static final String SECRET = "mySecretKey356890sdhkjfkjweksjdhfks";
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 50_000;
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 86_400_000L);
+    private final String token = jwtUtil.generateToken(1L, "user@example.com", "admin");
+
+    @Test
+    void compareRepeatedAndSingleParsing() {
+        report("Verification, 5 parses, fresh key", measure(() -> {
+            // extractUsername, validateToken (username + expiration), extractUserId, extractRole
+            String username = parseWithFreshKey().getSubject();
+            boolean valid = parseWithFreshKey().getSubject().equals(username)
+                    && !parseWithFreshKey().getExpiration().before(new Date());
+            Long userId = parseWithFreshKey().get("userId", Long.class);
+            String role = parseWithFreshKey().get("role", String.class);
+            return valid ? userId.intValue() + role.length() : 0;
+        }));
+        report("Verification, 1 parse, cached parser", measure(() -> {
+            JwtPrincipal principal = jwtUtil.parseToken(token);
+            return principal.userId().intValue() + principal.role().length();
+        }));
+    }
+
+    private Claims parseWithFreshKey() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    private static AllocationBenchmark.Result measure(Supplier<Integer> operation) {
+        return AllocationBenchmark.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS, operation);
+    }
+
+    private static void report(String name, AllocationBenchmark.Result result) {
+        AllocationBenchmark.report(logger, name, result);
+    }
+}
@@ -0,0 +1,94 @@
+package com.simplesdental.product.benchmark;
+
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.mapper.ProductMapperV2;
+import com.simplesdental.product.model.Product;
+import com.simplesdental.product.repository.CategoryReferenceCache;
+import com.simplesdental.product.repository.CountMode;
+import com.simplesdental.product.repository.PagedQueryExecutor;
+import com.simplesdental.product.repository.ProductRepository;
+import com.simplesdental.product.repository.TableRowEstimator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.function.Supplier;
+
+/**
+ * Reports allocation and latency of the entity-based listing (JOIN FETCH + mapper) next to the
+ * projection-based listing on a seeded catalog. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "spring.datasource.url=jdbc:tc:postgresql:16-alpine:///produto")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PagedQueryExecutor.class, TableRowEstimator.class, CategoryReferenceCache.class, ProductMapperV2.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductReadPathBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductReadPathBenchmarkTest.class);
+
+    private static final int CATALOG_SIZE = 50_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductMapperV2 productMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seedCatalog() {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Integer.class);
+        if (existing != null && existing < CATALOG_SIZE) {
+            jdbcTemplate.update("INSERT INTO products (name, description, price, status, code, category_id) " +
+                    "SELECT 'Produto ' || g, 'Descrição do produto ' || g, 10 + (g % 1000), g % 3 <> 0, 100000 + g, 1 + (g % 5) " +
+                    "FROM generate_series(1, ?) g", CATALOG_SIZE);
+            jdbcTemplate.execute("ANALYZE products");
+        }
+    }
+
+    @Test
+    void compareEntityAndProjectionListing() {
+        Pageable pageable = PageRequest.of(10, PAGE_SIZE, Sort.by("id"));
+
+        report("Listing, entity + JOIN FETCH",
+                measure(() -> productRepository.findAllWithCategory(pageable).map(productMapper::toDTO).getContent().size()));
+        report("Listing, projection",
+                measure(() -> productRepository.findAllReadModels(pageable, CountMode.EXACT).map(productMapper::toDTO).getContent().size()));
+    }
+
+    @Test
+    void compareEntityAndProjectionLookupById() {
+        report("Lookup by id, entity + JOIN FETCH",
+                measure(() -> productRepository.findByIdWithCategory(5_000L).map(Product::getName).orElseThrow().length()));
+        report("Lookup by id, projection",
+                measure(() -> productRepository.findReadModelById(5_000L).map(ProductReadModel::name).orElseThrow().length()));
+    }
+
+    private static AllocationBenchmark.Result measure(Supplier<Integer> operation) {
+        return AllocationBenchmark.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS, operation);
+    }
+
+    private static void report(String name, AllocationBenchmark.Result result) {
+        AllocationBenchmark.report(logger, name, result);
+    }
+}
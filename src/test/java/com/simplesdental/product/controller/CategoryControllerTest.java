@@ -0,0 +1,165 @@
+package com.simplesdental.product.controller;
+
+import com.simplesdental.product.dto.KeysetPageResponse;
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.dto.ProductResponseDTOV2;
+import com.simplesdental.product.exception.PreconditionFailedException;
+import com.simplesdental.product.mapper.ProductMapperV2;
+import com.simplesdental.product.model.Category;
+import com.simplesdental.product.repository.ProductFilter;
+import com.simplesdental.product.service.CatalogGenerationService;
+import com.simplesdental.product.service.CategoryService;
+import com.simplesdental.product.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CategoryController.class)
+public class CategoryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CategoryService categoryService;
+
+    @MockBean
+    private CatalogGenerationService catalogGenerationService;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private ProductMapperV2 productMapper;
+
+    @MockBean
+    private com.simplesdental.product.util.JwtUtil jwtUtil;
+
+    @MockBean
+    private com.simplesdental.product.service.UserService userService;
+
+    @Test
+    @WithMockUser
+    void shouldListCategoryProductsByCursorWithStatusFilter() throws Exception {
+        ProductReadModel product = new ProductReadModel(5L, "Broca", null, new BigDecimal("12.00"), true, 5, 3L, "Brocas", 0L, 0L);
+        ProductFilter filter = new ProductFilter(true, List.of(3L), null, null, null, null);
+        when(productService.findReadModelsAfter(filter, "id", Sort.Direction.ASC, null, 1))
+                .thenReturn(new KeysetPageResponse<>(List.of(product), 1, true, "cursor"));
+        when(productMapper.toDTO(product))
+                .thenReturn(new ProductResponseDTOV2(5L, "Broca", null, new BigDecimal("12.00"), true, 5, 3L, "Brocas"));
+
+        mockMvc.perform(get("/api/categories/3/products").param("status", "true").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(5))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.nextCursor").value("cursor"));
+        verify(categoryService, never()).findByIdWithProducts(any());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturn404ForSubtreeOfUnknownCategory() throws Exception {
+        when(categoryService.findSubtree(99L, null)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/categories/99/subtree"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn412WhenIfMatchIsStale() throws Exception {
+        when(categoryService.update(eq(1L), any(), eq(Set.of(3L))))
+                .thenThrow(new PreconditionFailedException("Categoria foi alterada por outra requisição"));
+
+        mockMvc.perform(put("/api/categories/1")
+                        .with(csrf())
+                        .header(HttpHeaders.IF_MATCH, "\"3.10\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Instrumentos rotatórios\"}"))
+                .andExpect(status().isPreconditionFailed());
+        verify(categoryService, never()).findById(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturnNewETagAfterUpdate() throws Exception {
+        Category updated = new Category();
+        updated.setId(1L);
+        updated.setName("Instrumentos rotatórios");
+        updated.setVersion(4L);
+        updated.setProductCount(10);
+        when(categoryService.update(eq(1L), any(), eq(Set.of(3L)))).thenReturn(Optional.of(updated));
+
+        mockMvc.perform(put("/api/categories/1")
+                        .with(csrf())
+                        .header(HttpHeaders.IF_MATCH, "\"3.10\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Instrumentos rotatórios\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4.10\""))
+                .andExpect(jsonPath("$.name").value("Instrumentos rotatórios"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn404WhenUpdatingUnknownCategory() throws Exception {
+        when(categoryService.update(eq(99L), any(), eq(null))).thenReturn(Optional.empty());
+
+        mockMvc.perform(put("/api/categories/99")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Instrumentos\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldOnlyPassParentWhenUpdateCarriesIt() throws Exception {
+        ArgumentCaptor<Category> changes = ArgumentCaptor.forClass(Category.class);
+        when(categoryService.update(eq(2L), changes.capture(), eq(null)))
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(1)));
+
+        mockMvc.perform(put("/api/categories/2")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Brocas diamantadas\"}"))
+                .andExpect(status().isOk());
+        assertFalse(changes.getValue().isParentIdPresent());
+
+        mockMvc.perform(put("/api/categories/2")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Brocas diamantadas\",\"parentId\":null}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parentId").doesNotExist());
+        assertTrue(changes.getValue().isParentIdPresent());
+        assertNull(changes.getValue().getParentId());
+    }
+}
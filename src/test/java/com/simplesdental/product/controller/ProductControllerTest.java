@@ -2,10 +2,16 @@ package com.simplesdental.product.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.simplesdental.product.dto.ProductCreateRequest;
+import com.simplesdental.product.dto.ProductReadModel;
 import com.simplesdental.product.dto.ProductResponseDTO;
+import com.simplesdental.product.exception.PreconditionFailedException;
 import com.simplesdental.product.mapper.ProductMapper;
 import com.simplesdental.product.model.Category;
 import com.simplesdental.product.model.Product;
+import com.simplesdental.product.repository.CountMode;
+import com.simplesdental.product.repository.ProductPatch;
+import com.simplesdental.product.service.CatalogGenerationService;
+import com.simplesdental.product.service.ListingResponseCache;
 import com.simplesdental.product.service.ProductService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,16 +22,22 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.mockito.Mockito.doNothing;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
@@ -44,6 +56,12 @@ public class ProductControllerTest {
     @MockBean
     private ProductMapper productMapper;
 
+    @MockBean
+    private CatalogGenerationService catalogGenerationService;
+
+    @MockBean
+    private ListingResponseCache listingResponseCache;
+
     @MockBean
     private com.simplesdental.product.util.JwtUtil jwtUtil;
 
@@ -95,9 +113,10 @@ public class ProductControllerTest {
     @Test
     @WithMockUser
     void shouldGetAllProductsWithPagination() throws Exception {
-        Page<Product> productPage = new PageImpl<>(Arrays.asList(testProduct), PageRequest.of(0, 20), 1);
-        when(productService.findAllWithCategory(any(Pageable.class))).thenReturn(productPage);
-        when(productMapper.toDTO(testProduct)).thenReturn(responseDTO);
+        ProductReadModel readModel = ProductReadModel.from(testProduct);
+        Page<ProductReadModel> productPage = new PageImpl<>(Arrays.asList(readModel), PageRequest.of(0, 20), 1);
+        when(productService.findAllReadModels(any(Pageable.class), eq(CountMode.EXACT))).thenReturn(productPage);
+        when(productMapper.toDTO(readModel)).thenReturn(responseDTO);
 
         mockMvc.perform(get("/api/products")
                         .param("page", "0")
@@ -119,9 +138,10 @@ public class ProductControllerTest {
     @Test
     @WithMockUser
     void shouldGetAllProductsWithCustomPagination() throws Exception {
-        Page<Product> productPage = new PageImpl<>(Arrays.asList(testProduct), PageRequest.of(1, 10), 25);
-        when(productService.findAllWithCategory(any(Pageable.class))).thenReturn(productPage);
-        when(productMapper.toDTO(testProduct)).thenReturn(responseDTO);
+        ProductReadModel readModel = ProductReadModel.from(testProduct);
+        Page<ProductReadModel> productPage = new PageImpl<>(Arrays.asList(readModel), PageRequest.of(1, 10), 25);
+        when(productService.findAllReadModels(any(Pageable.class), eq(CountMode.EXACT))).thenReturn(productPage);
+        when(productMapper.toDTO(readModel)).thenReturn(responseDTO);
 
         mockMvc.perform(get("/api/products")
                         .param("page", "1")
@@ -136,11 +156,36 @@ public class ProductControllerTest {
                 .andExpect(jsonPath("$.size").value(10));
     }
 
+    @Test
+    @WithMockUser
+    void shouldGetProductsWithoutTotalWhenCountModeIsNone() throws Exception {
+        ProductReadModel readModel = ProductReadModel.from(testProduct);
+        SliceImpl<ProductReadModel> productSlice = new SliceImpl<>(Arrays.asList(readModel), PageRequest.of(0, 20), true);
+        when(productService.findAllReadModels(any(Pageable.class), eq(CountMode.NONE))).thenReturn(productSlice);
+        when(productMapper.toDTO(readModel)).thenReturn(responseDTO);
+
+        mockMvc.perform(get("/api/products")
+                        .param("count", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(responseDTO.getId()))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturn400WhenCountModeIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/products")
+                        .param("count", "approximate"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser
     void shouldGetProductById() throws Exception {
-        when(productService.findByIdWithCategory(1L)).thenReturn(Optional.of(testProduct));
-        when(productMapper.toDTO(testProduct)).thenReturn(responseDTO);
+        ProductReadModel readModel = ProductReadModel.from(testProduct);
+        when(productService.findReadModelById(1L)).thenReturn(Optional.of(readModel));
+        when(productMapper.toDTO(readModel)).thenReturn(responseDTO);
 
         mockMvc.perform(get("/api/products/1"))
                 .andExpect(status().isOk())
@@ -154,12 +199,39 @@ public class ProductControllerTest {
     @Test
     @WithMockUser
     void shouldReturn404WhenGetProductByIdNotFound() throws Exception {
-        when(productService.findByIdWithCategory(999L)).thenReturn(Optional.empty());
+        when(productService.findReadModelById(999L)).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/api/products/999"))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser
+    void shouldGetProductByV1Code() throws Exception {
+        ProductReadModel readModel = ProductReadModel.from(testProduct);
+        when(productService.findReadModelByCode(123)).thenReturn(Optional.of(readModel));
+        when(productMapper.toDTO(readModel)).thenReturn(responseDTO);
+
+        mockMvc.perform(get("/api/products/by-code/PROD-123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value("PROD-123"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturn400WhenCodeIsNotInV1Format() throws Exception {
+        mockMvc.perform(get("/api/products/by-code/123"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturn400WhenCodeIsBlank() throws Exception {
+        mockMvc.perform(get("/api/products/by-code/{code}", " "))
+                .andExpect(status().isBadRequest());
+        verify(productService, never()).findReadModelByCode(any());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void shouldCreateProductWithValidInput() throws Exception {
@@ -180,24 +252,61 @@ public class ProductControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void shouldUpdateProduct() throws Exception {
-        when(productService.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(productService.save(any(Product.class))).thenReturn(testProduct);
-        when(productMapper.toDTO(testProduct)).thenReturn(responseDTO);
+        ProductPatch patch = new ProductPatch(Map.of(ProductPatch.Field.NAME, "Test Product"));
+        ProductReadModel updated = new ProductReadModel(1L, "Test Product", "Test Description", new BigDecimal("19.99"),
+                true, 123, 1L, "Test Category", 5L, 0L);
+        when(productMapper.toPatch(any(ProductCreateRequest.class), eq(123))).thenReturn(patch);
+        when(productService.patch(1L, patch, Set.of(4L))).thenReturn(Optional.of(updated));
+        when(productMapper.toDTO(updated)).thenReturn(responseDTO);
 
         mockMvc.perform(put("/api/products/1")
+                        .header(HttpHeaders.IF_MATCH, "\"4.0\"")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(createRequest))
                         .with(csrf()))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, updated.eTag()))
                 .andExpect(jsonPath("$.id").value(responseDTO.getId()))
                 .andExpect(jsonPath("$.name").value(responseDTO.getName()))
                 .andExpect(jsonPath("$.code").value(responseDTO.getCode()));
+        verify(productService, never()).findById(any());
+        verify(productService, never()).save(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn412WhenUpdateIfMatchIsStale() throws Exception {
+        ProductPatch patch = new ProductPatch(Map.of(ProductPatch.Field.NAME, "Test Product"));
+        when(productMapper.toPatch(any(ProductCreateRequest.class), eq(123))).thenReturn(patch);
+        when(productService.patch(1L, patch, Set.of(3L)))
+                .thenThrow(new PreconditionFailedException("Produto foi alterado por outra requisição"));
+
+        mockMvc.perform(put("/api/products/1")
+                        .header(HttpHeaders.IF_MATCH, "\"3.0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createRequest))
+                        .with(csrf()))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldPassIfMatchToDelete() throws Exception {
+        when(productService.deleteById(1L, Set.of(3L)))
+                .thenThrow(new PreconditionFailedException("Produto foi alterado por outra requisição"));
+
+        mockMvc.perform(delete("/api/products/1")
+                        .header(HttpHeaders.IF_MATCH, "\"3.0\"")
+                        .with(csrf()))
+                .andExpect(status().isPreconditionFailed());
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void shouldReturn404WhenUpdateProductNotFound() throws Exception {
-        when(productService.findById(999L)).thenReturn(Optional.empty());
+        ProductPatch patch = new ProductPatch(Map.of(ProductPatch.Field.NAME, "Test Product"));
+        when(productMapper.toPatch(any(ProductCreateRequest.class), eq(123))).thenReturn(patch);
+        when(productService.patch(999L, patch, null)).thenReturn(Optional.empty());
 
         mockMvc.perform(put("/api/products/999")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -209,8 +318,7 @@ public class ProductControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void shouldDeleteProduct() throws Exception {
-        when(productService.findById(1L)).thenReturn(Optional.of(testProduct));
-        doNothing().when(productService).deleteById(1L);
+        when(productService.deleteById(1L, null)).thenReturn(true);
 
         mockMvc.perform(delete("/api/products/1")
                         .with(csrf()))
@@ -223,7 +331,7 @@ public class ProductControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void shouldReturn404WhenDeleteProductNotFound() throws Exception {
-        when(productService.findById(999L)).thenReturn(Optional.empty());
+        when(productService.deleteById(999L, null)).thenReturn(false);
 
         mockMvc.perform(delete("/api/products/999")
                         .with(csrf()))
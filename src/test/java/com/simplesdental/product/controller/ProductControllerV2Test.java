@@ -0,0 +1,388 @@
+package com.simplesdental.product.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplesdental.product.dto.ProductBatchRequestDTO;
+import com.simplesdental.product.dto.ProductBulkResponseDTO;
+import com.simplesdental.product.dto.ProductFacetsDTO;
+import com.simplesdental.product.dto.ProductImportStatusDTO;
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.dto.ProductResponseDTOV2;
+import com.simplesdental.product.dto.ProductSuggestionDTO;
+import com.simplesdental.product.exception.PreconditionFailedException;
+import com.simplesdental.product.mapper.ProductMapperV2;
+import com.simplesdental.product.repository.CountMode;
+import com.simplesdental.product.repository.ProductFilter;
+import com.simplesdental.product.repository.ProductPatch;
+import com.simplesdental.product.service.ProductBulkService;
+import com.simplesdental.product.service.ProductExportService;
+import com.simplesdental.product.service.ProductFacetService;
+import com.simplesdental.product.service.ProductImportService;
+import com.simplesdental.product.service.CatalogGenerationService;
+import com.simplesdental.product.service.ListingResponseCache;
+import com.simplesdental.product.service.ProductService;
+import com.simplesdental.product.service.ProductSuggestService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ProductControllerV2.class)
+public class ProductControllerV2Test {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private ProductMapperV2 productMapper;
+
+    @MockBean
+    private ProductExportService productExportService;
+
+    @MockBean
+    private CatalogGenerationService catalogGenerationService;
+
+    @MockBean
+    private ListingResponseCache listingResponseCache;
+
+    @MockBean
+    private ProductFacetService productFacetService;
+
+    @MockBean
+    private ProductSuggestService productSuggestService;
+
+    @MockBean
+    private ProductBulkService productBulkService;
+
+    @MockBean
+    private ProductImportService productImportService;
+
+    @MockBean
+    private com.simplesdental.product.util.JwtUtil jwtUtil;
+
+    @MockBean
+    private com.simplesdental.product.service.UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ProductReadModel first;
+    private ProductReadModel third;
+
+    @BeforeEach
+    void setUp() {
+        first = new ProductReadModel(1L, "Produto 1", null, new BigDecimal("10.00"), true, 1, 1L, "Categoria", 0L, 0L);
+        third = new ProductReadModel(3L, "Produto 3", null, new BigDecimal("30.00"), true, 3, 1L, "Categoria", 0L, 0L);
+        when(productMapper.toDTO(first)).thenReturn(new ProductResponseDTOV2(1L, "Produto 1", null, new BigDecimal("10.00"), true, 1, 1L, "Categoria"));
+        when(productMapper.toDTO(third)).thenReturn(new ProductResponseDTOV2(3L, "Produto 3", null, new BigDecimal("30.00"), true, 3, 1L, "Categoria"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldGetProductsByIdsInRequestOrderAndReportMissing() throws Exception {
+        when(productService.findReadModelsByIds(Set.of(3L, 2L, 1L))).thenReturn(Map.of(1L, first, 3L, third));
+
+        mockMvc.perform(get("/api/v2/products").param("ids", "3,2,1,3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(3))
+                .andExpect(jsonPath("$.content[1].id").value(1))
+                .andExpect(jsonPath("$.missingIds[0]").value(2));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldLookupProductsFromRequestBody() throws Exception {
+        when(productService.findReadModelsByIds(any())).thenReturn(Map.of(1L, first));
+
+        mockMvc.perform(post("/api/v2/products/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ProductBatchRequestDTO(List.of(1L))))
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.missingIds").isEmpty());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldRejectTooManyIdsOnGet() throws Exception {
+        String ids = String.join(",", java.util.stream.IntStream.rangeClosed(1, 101).mapToObj(String::valueOf).toList());
+
+        mockMvc.perform(get("/api/v2/products").param("ids", ids))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldSearchProductsByRelevanceWithoutCountByDefault() throws Exception {
+        when(productService.search(eq("produto"), eq(1L), isNull(), any(Pageable.class), eq(CountMode.NONE)))
+                .thenReturn(new SliceImpl<>(List.of(third, first), PageRequest.of(0, 20), true));
+
+        mockMvc.perform(get("/api/v2/products/search").param("q", "produto").param("categoryId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(3))
+                .andExpect(jsonPath("$.content[1].id").value(1))
+                .andExpect(jsonPath("$.last").value(false));
+
+        verify(productService).search(eq("produto"), eq(1L), isNull(),
+                eq(PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "relevance").and(Sort.by("id")))), eq(CountMode.NONE));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldCompileListingParametersIntoFilter() throws Exception {
+        ProductFilter expected = new ProductFilter(true, List.of(1L, 2L), new BigDecimal("5"), null, null, 100);
+        when(productService.findReadModels(eq(expected), any(Pageable.class), eq(CountMode.EXACT)))
+                .thenReturn(new SliceImpl<>(List.of(first), PageRequest.of(0, 20), false));
+
+        mockMvc.perform(get("/api/v2/products")
+                        .param("status", "true")
+                        .param("categoryIds", "1,2")
+                        .param("minPrice", "5")
+                        .param("maxCode", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn400WithItemErrorsWhenBulkBatchIsInvalid() throws Exception {
+        when(productBulkService.upsert(any())).thenReturn(new ProductBulkResponseDTO(0, 0, 1, List.of(
+                new ProductBulkResponseDTO.Item(0, 150, null, ProductBulkResponseDTO.Outcome.INVALID, List.of()))));
+
+        mockMvc.perform(post("/api/v2/products/bulk")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"Produto\",\"price\":10,\"status\":true,\"code\":150,\"category\":{\"id\":1}}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.invalid").value(1))
+                .andExpect(jsonPath("$.items[0].outcome").value("INVALID"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldQueueImportAndPointToItsStatus() throws Exception {
+        when(productImportService.submit(eq(ProductExportService.Format.CSV), any())).thenReturn(new ProductImportStatusDTO(
+                7L, "CSV", "QUEUED", 0.0, 42L, 0L, 0L, 0.0, 0L, 0L, 0L, List.of(), null, null, null, null));
+
+        mockMvc.perform(post("/api/v2/products/imports")
+                        .with(csrf())
+                        .contentType("text/csv; charset=UTF-8")
+                        .content("name,price,status,code,categoryId\nProduto,10.00,true,150,1\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/api/v2/products/imports/7"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldRejectImportOfUnsupportedContentType() throws Exception {
+        mockMvc.perform(post("/api/v2/products/imports")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(productImportService);
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturn404ForUnknownImport() throws Exception {
+        when(productImportService.findStatus(99L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v2/products/imports/99"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.path").value("/api/v2/products/imports/99"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldApplyMergePatch() throws Exception {
+        ProductPatch productPatch = new ProductPatch(Map.of(ProductPatch.Field.STATUS, false));
+        when(productMapper.toPatch(any(JsonNode.class))).thenReturn(productPatch);
+        when(productService.patch(1L, productPatch, null)).thenReturn(Optional.of(first));
+
+        mockMvc.perform(patch("/api/v2/products/1")
+                        .with(csrf())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"status\":false}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, first.eTag()))
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn412WhenIfMatchIsStale() throws Exception {
+        ProductPatch productPatch = new ProductPatch(Map.of(ProductPatch.Field.STATUS, false));
+        when(productMapper.toPatch(any(JsonNode.class))).thenReturn(productPatch);
+        // Only the product version (first component of the tag) is checked; weak tags never match
+        when(productService.patch(1L, productPatch, Set.of(3L))).thenThrow(new PreconditionFailedException("alterado"));
+
+        mockMvc.perform(patch("/api/v2/products/1")
+                        .with(csrf())
+                        .header(HttpHeaders.IF_MATCH, "\"3.1\", W/\"4.1\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"status\":false}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldDeleteProductsByIdsAndReportMissing() throws Exception {
+        when(productService.deleteByIds(Set.of(1L, 2L, 42L))).thenReturn(List.of(1L, 2L));
+
+        mockMvc.perform(delete("/api/v2/products").param("ids", "1,2,42,2").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2))
+                .andExpect(jsonPath("$.missingIds[0]").value(42));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldRejectDeleteWithoutFilter() throws Exception {
+        when(productService.deleteMatching(ProductFilter.NONE)).thenThrow(new IllegalArgumentException("Informe ao menos um filtro"));
+
+        mockMvc.perform(delete("/api/v2/products").with(csrf()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturn404ForUnknownCode() throws Exception {
+        when(productService.findReadModelByCode(999)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v2/products/by-code/999"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.path").value("/api/v2/products/by-code/999"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldSuggestProductsByPrefix() throws Exception {
+        when(productSuggestService.suggest("note", 5)).thenReturn(List.of(new ProductSuggestionDTO(2L, "Notebook ABC")));
+
+        mockMvc.perform(get("/api/v2/products/suggest").param("prefix", "note").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].name").value("Notebook ABC"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnFacetsForFilter() throws Exception {
+        ProductFilter expected = new ProductFilter(true, null, null, null, null, null);
+        List<BigDecimal> bounds = List.of(new BigDecimal("100"), new BigDecimal("500"));
+        when(productFacetService.facets(expected, bounds)).thenReturn(new ProductFacetsDTO(3,
+                List.of(new ProductFacetsDTO.CategoryFacet(1L, "Categoria", 3)),
+                new ProductFacetsDTO.StatusFacet(3, 0),
+                List.of(new ProductFacetsDTO.PriceBucketFacet(null, new BigDecimal("100.00"), 1),
+                        new ProductFacetsDTO.PriceBucketFacet(new BigDecimal("100.00"), new BigDecimal("500.00"), 2),
+                        new ProductFacetsDTO.PriceBucketFacet(new BigDecimal("500.00"), null, 0))));
+
+        mockMvc.perform(get("/api/v2/products/facets").param("status", "true").param("priceBuckets", "100,500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.categories[0].name").value("Categoria"))
+                .andExpect(jsonPath("$.status.active").value(3))
+                .andExpect(jsonPath("$.priceBuckets[1].count").value(2));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldStreamGzippedExport() throws Exception {
+        when(productExportService.export(eq(ProductExportService.Format.CSV), any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("id,name\n1,Produto 1\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/v2/products/export")
+                        .param("format", "csv")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(content().contentType("text/csv"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("id,name\n1,Produto 1\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnNotModifiedForMatchingProductETag() throws Exception {
+        when(productService.findReadModelById(1L)).thenReturn(java.util.Optional.of(first));
+
+        mockMvc.perform(get("/api/v2/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0.0\""));
+
+        mockMvc.perform(get("/api/v2/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"0.0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(productMapper, times(1)).toDTO(first);
+    }
+
+    @Test
+    @WithMockUser
+    void shouldAnswerListingFromCatalogGenerationWithoutQuerying() throws Exception {
+        when(catalogGenerationService.listingETag()).thenReturn("W/\"42\"");
+
+        mockMvc.perform(get("/api/v2/products").header(HttpHeaders.IF_NONE_MATCH, "W/\"42\""))
+                .andExpect(status().isNotModified());
+
+        verifyNoInteractions(productService);
+    }
+}
@@ -0,0 +1,200 @@
+package com.simplesdental.product.repository;
+
+import com.simplesdental.product.model.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exercises the V13/V14/V16 triggers on a real PostgreSQL: product_count and subtree_product_count follow
+ * product inserts, updates and deletes, a subtree move (also through the repository's conditional update)
+ * carries its paths and counts, a move into the own subtree is refused, and concurrent statements over
+ * shared ancestors do not deadlock.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "spring.datasource.url=jdbc:tc:postgresql:16-alpine:///produto")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PagedQueryExecutor.class, TableRowEstimator.class, CategoryReferenceCache.class})
+public class CategoryCountTriggersTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long root;
+    private long child;
+    private long grandchild;
+    private long otherRoot;
+
+    @BeforeEach
+    void prepare() {
+        root = category("Raiz", null);
+        child = category("Filha", root);
+        grandchild = category("Neta", child);
+        otherRoot = category("Outra raiz", null);
+    }
+
+    @Test
+    void shouldCountInsertsUpdatesAndDeletes() {
+        insertProducts(grandchild, 3, 900_000);
+        insertProducts(child, 2, 900_100);
+        assertCounts(root, 0, 5);
+        assertCounts(child, 2, 5);
+        assertCounts(grandchild, 3, 3);
+
+        // Updates that keep the category leave the counts alone
+        jdbcTemplate.update("UPDATE products SET price = price + 1 WHERE category_id = ?", grandchild);
+        assertCounts(grandchild, 3, 3);
+
+        jdbcTemplate.update("UPDATE products SET category_id = ? WHERE code = 900000", otherRoot);
+        assertCounts(grandchild, 2, 2);
+        assertCounts(child, 2, 4);
+        assertCounts(root, 0, 4);
+        assertCounts(otherRoot, 1, 1);
+
+        jdbcTemplate.update("DELETE FROM products WHERE category_id IN (?, ?)", child, otherRoot);
+        assertCounts(root, 0, 2);
+        assertCounts(child, 0, 2);
+        assertCounts(otherRoot, 0, 0);
+    }
+
+    @Test
+    void shouldMoveSubtreeWithPathsAndCounts() {
+        insertProducts(grandchild, 3, 900_200);
+        insertProducts(child, 1, 900_300);
+
+        jdbcTemplate.update("UPDATE categories SET parent_id = ? WHERE id = ?", otherRoot, child);
+
+        assertEquals("/" + otherRoot + "/" + child + "/" + grandchild + "/",
+                jdbcTemplate.queryForObject("SELECT path FROM categories WHERE id = ?", String.class, grandchild));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT depth FROM categories WHERE id = ?", Integer.class, grandchild));
+        assertCounts(root, 0, 0);
+        assertCounts(otherRoot, 0, 4);
+        assertCounts(child, 1, 4);
+        assertCounts(grandchild, 3, 3);
+    }
+
+    @Test
+    void shouldMoveThroughConditionalUpdate() {
+        insertProducts(child, 2, 900_400);
+        Category changes = new Category();
+        changes.setName("Filha movida");
+        changes.setParentId(otherRoot);
+
+        assertTrue(categoryRepository.update(child, changes, Set.of(7L)).isEmpty());
+        Category updated = categoryRepository.update(child, changes, Set.of(0L)).orElseThrow();
+
+        assertEquals("Filha movida", updated.getName());
+        assertEquals(otherRoot, updated.getParentId());
+        assertEquals(1L, updated.getVersion());
+        assertEquals("/" + otherRoot + "/" + child + "/", updated.getPath());
+        assertEquals(2, updated.getProductCount());
+        assertCounts(otherRoot, 0, 2);
+        assertCounts(root, 0, 0);
+    }
+
+    @Test
+    void shouldRejectMoveIntoOwnSubtree() {
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("UPDATE categories SET parent_id = ? WHERE id = ?", grandchild, root));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldNotDeadlockOnSharedAncestors() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long[] ids = transaction.execute(status -> {
+            long parent = category("Concorrente", null);
+            return new long[]{parent, category("Irmã A", parent), category("Irmã B", parent)};
+        });
+        long sisterA = ids[1];
+        long sisterB = ids[2];
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            int rounds = 20;
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            List<Future<?>> futures = new ArrayList<>();
+            // Same two categories in opposite orders, touching the shared parent from both sides
+            futures.add(executor.submit(() -> insertConcurrently(transaction, barrier, rounds, sisterA, sisterB, 910_000)));
+            futures.add(executor.submit(() -> insertConcurrently(transaction, barrier, rounds, sisterB, sisterA, 920_000)));
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            assertCounts(ids[0], 0, 4 * rounds);
+        } finally {
+            executor.shutdownNow();
+            transaction.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM products WHERE category_id IN (?, ?)", sisterA, sisterB);
+                jdbcTemplate.update("DELETE FROM categories WHERE id IN (?, ?)", sisterA, sisterB);
+                jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ids[0]);
+                // Committed by @BeforeEach too, as this test runs outside the test transaction
+                jdbcTemplate.update("DELETE FROM categories WHERE id = ?", grandchild);
+                jdbcTemplate.update("DELETE FROM categories WHERE id = ?", child);
+                jdbcTemplate.update("DELETE FROM categories WHERE id IN (?, ?)", root, otherRoot);
+            });
+        }
+    }
+
+    private Void insertConcurrently(TransactionTemplate transaction, CyclicBarrier barrier, int rounds,
+                                    long first, long second, int codeBase) throws Exception {
+        for (int round = 0; round < rounds; round++) {
+            barrier.await(30, TimeUnit.SECONDS);
+            int codes = codeBase + round * 2;
+            transaction.executeWithoutResult(status -> {
+                insertProducts(first, 1, codes);
+                insertProducts(second, 1, codes + 1);
+            });
+        }
+        return null;
+    }
+
+    private long category(String name, Long parentId) {
+        return jdbcTemplate.queryForObject("INSERT INTO categories (name, parent_id) VALUES (?, ?) RETURNING id",
+                Long.class, name, parentId);
+    }
+
+    private void insertProducts(long categoryId, int count, int firstCode) {
+        // One statement per call, so the statement-level triggers see the whole batch
+        jdbcTemplate.update("INSERT INTO products (name, price, status, code, category_id) " +
+                "SELECT 'Produto ' || g, 10, true, g, ? FROM generate_series(?, ?) g",
+                categoryId, firstCode, firstCode + count - 1);
+    }
+
+    private void assertCounts(long categoryId, int productCount, int subtreeProductCount) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT product_count, subtree_product_count FROM categories WHERE id = ?", categoryId);
+        assertEquals(productCount, ((Number) row.get("product_count")).intValue(), "product_count of " + categoryId);
+        assertEquals(subtreeProductCount, ((Number) row.get("subtree_product_count")).intValue(),
+                "subtree_product_count of " + categoryId);
+    }
+}
@@ -0,0 +1,67 @@
+package com.simplesdental.product.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CategoryReferenceCacheTest {
+
+    private final AtomicLong generation = new AtomicLong(3);
+
+    private Query query;
+    private CategoryReferenceCache categoryReferenceCache;
+
+    @BeforeEach
+    void setUp() {
+        query = mock(Query.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.<Object[]>of(new Object[]{1L, "Old", 0L}));
+
+        categoryReferenceCache = new CategoryReferenceCache();
+        ReflectionTestUtils.setField(categoryReferenceCache, "entityManager", entityManager);
+        ReflectionTestUtils.setField(categoryReferenceCache, "refreshIntervalMs", 300_000L);
+        categoryReferenceCache.setGenerationSource(generation::get);
+        categoryReferenceCache.reload();
+    }
+
+    @Test
+    void shouldNotReloadWhileGenerationIsUnchanged() {
+        categoryReferenceCache.ensureCurrent();
+
+        assertEquals("Old", categoryReferenceCache.get(1L).name());
+        verify(query, times(1)).getResultList();
+    }
+
+    @Test
+    void shouldReloadWhenAnotherNodeBumpedTheGeneration() {
+        // The pub/sub message has not arrived yet; only the shared generation moved
+        when(query.getResultList()).thenReturn(List.<Object[]>of(new Object[]{1L, "Renamed", 1L}));
+        generation.set(4);
+
+        categoryReferenceCache.ensureCurrent();
+        categoryReferenceCache.ensureCurrent();
+
+        assertEquals("Renamed", categoryReferenceCache.get(1L).name());
+        assertEquals(1L, categoryReferenceCache.get(1L).version());
+        verify(query, times(2)).getResultList();
+    }
+
+    @Test
+    void shouldKeepSnapshotWhenGenerationIsUnavailable() {
+        generation.set(-1);
+
+        categoryReferenceCache.ensureCurrent();
+
+        verify(query, times(1)).getResultList();
+    }
+}
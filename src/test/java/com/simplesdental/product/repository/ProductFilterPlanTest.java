@@ -0,0 +1,133 @@
+package com.simplesdental.product.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that every filter/sort combination accepted by {@link ProductFilterPolicy} without warnings is served
+ * by an index on a filtered column: the plan must show one of those indexes with an {@code Index Cond}, or a
+ * {@code Bitmap Index Scan} on it. Walking an index in sort order and filtering every row does not count.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "spring.datasource.url=jdbc:tc:postgresql:16-alpine:///produto")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PagedQueryExecutor.class, TableRowEstimator.class, CategoryReferenceCache.class})
+public class ProductFilterPlanTest {
+
+    private static final Pattern INDEX_NODE = Pattern.compile(
+            "(Index Only Scan Backward|Index Only Scan|Index Scan Backward|Index Scan|Bitmap Index Scan) (?:using|on) (\\w+)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void prepare() {
+        jdbcTemplate.update("INSERT INTO products (name, description, price, status, code, category_id) " +
+                "SELECT 'Produto ' || g, null, 10 + (g % 1000), g % 3 <> 0, 200000 + g, 1 + (g % 5) " +
+                "FROM generate_series(1, 5000) g");
+        jdbcTemplate.execute("ANALYZE products");
+        // Disabled, not forbidden: a seq scan only shows up in the plan when no index can serve the query
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    static Stream<Arguments> supportedCombinations() {
+        // Selective enough (a few dozen of 5000 rows) that an index on the filter beats walking the sort order
+        List<ProductFilter> filters = List.of(
+                new ProductFilter(null, List.of(1L), null, null, null, null),
+                new ProductFilter(true, List.of(3L), null, null, null, null),
+                new ProductFilter(null, null, new BigDecimal("100"), new BigDecimal("110"), null, null),
+                new ProductFilter(null, null, null, null, 200100, 200150),
+                new ProductFilter(true, null, new BigDecimal("100"), new BigDecimal("110"), null, null),
+                new ProductFilter(true, List.of(1L), new BigDecimal("50"), null, null, null),
+                new ProductFilter(false, List.of(2L), null, new BigDecimal("900"), 200000, null));
+        // Combinations the policy warns about are legal but not expected to be index-backed
+        return filters.stream().flatMap(filter -> ProductFilterPolicy.INDEXED_SORT_PROPERTIES.stream()
+                .filter(sort -> ProductFilterPolicy.check(filter, Sort.by(sort)).isEmpty())
+                .map(sort -> Arguments.of(filter, sort)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("supportedCombinations")
+    void supportedCombinationUsesFilterIndex(ProductFilter filter, String sortProperty) {
+        Map<String, Object> parameters = new HashMap<>();
+        String sql = "EXPLAIN SELECT p.id FROM products p WHERE " + filter.toSql("p", parameters) +
+                " ORDER BY p." + sortProperty + ", p.id LIMIT 20";
+
+        List<String> plan = new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(sql, parameters, String.class);
+
+        // A full walk of any index (e.g. products_pkey for ORDER BY id) only has a Filter line, never an Index Cond
+        Set<String> expected = expectedIndexes(filter);
+        assertTrue(usesIndexCondition(plan, expected),
+                () -> filter + " sorted by " + sortProperty + " should be served by one of " + expected + ":\n" +
+                        String.join("\n", plan));
+    }
+
+    private static Set<String> expectedIndexes(ProductFilter filter) {
+        Set<String> indexes = new HashSet<>();
+        if (filter.status() != null) {
+            indexes.add("idx_products_status");
+            indexes.add("idx_products_status_category");
+        }
+        if (!filter.categoryIds().isEmpty()) {
+            indexes.add("idx_products_category_id");
+            indexes.add("idx_products_status_category");
+        }
+        if (filter.hasPriceRange()) {
+            indexes.add("idx_products_price_id");
+        }
+        if (filter.hasCodeRange()) {
+            indexes.add("uk_products_code_integer");
+        }
+        return indexes;
+    }
+
+    private static boolean usesIndexCondition(List<String> plan, Set<String> indexes) {
+        for (int i = 0; i < plan.size(); i++) {
+            Matcher node = INDEX_NODE.matcher(plan.get(i));
+            if (!node.find() || !indexes.contains(node.group(2))) {
+                continue;
+            }
+            if (node.group(1).startsWith("Bitmap")) {
+                return true;
+            }
+            // Detail lines of a node are indented deeper than the node line and precede the next "->"
+            int depth = indentation(plan.get(i));
+            for (int j = i + 1; j < plan.size() && indentation(plan.get(j)) > depth && !plan.get(j).contains("->"); j++) {
+                if (plan.get(j).trim().startsWith("Index Cond:")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int indentation(String line) {
+        int depth = 0;
+        while (depth < line.length() && line.charAt(depth) == ' ') {
+            depth++;
+        }
+        return depth;
+    }
+}
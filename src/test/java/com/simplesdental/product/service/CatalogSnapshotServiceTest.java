@@ -0,0 +1,148 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.model.Category;
+import com.simplesdental.product.repository.CategoryRepository;
+import com.simplesdental.product.repository.ProductExportRepository;
+import com.simplesdental.product.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CatalogSnapshotServiceTest {
+
+    private ProductExportRepository productExportRepository;
+    private ProductRepository productRepository;
+    private CategoryRepository categoryRepository;
+    private CatalogGenerationService catalogGenerationService;
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        productExportRepository = mock(ProductExportRepository.class);
+        productRepository = mock(ProductRepository.class);
+        categoryRepository = mock(CategoryRepository.class);
+        catalogGenerationService = mock(CatalogGenerationService.class);
+        catalogSnapshotService = new CatalogSnapshotService(productExportRepository, productRepository, categoryRepository,
+                catalogGenerationService, new DataSourceProperties(), new SimpleMeterRegistry(), false, Duration.ofMillis(500));
+
+        when(categoryRepository.findAll()).thenReturn(List.of(category(1L, "Ortodontia", 0L)));
+        doAnswer(invocation -> {
+            Consumer<ProductReadModel> consumer = invocation.getArgument(0);
+            consumer.accept(product(1L, "Alicate", "Ortodontia", 0L));
+            consumer.accept(product(2L, "Broca", "Ortodontia", 0L));
+            return 2L;
+        }).when(productExportRepository).forEach(any(Consumer.class));
+        when(catalogGenerationService.current()).thenReturn(5L);
+        catalogSnapshotService.reload();
+    }
+
+    @Test
+    void shouldApplyUpsertsAndDeletesFromOneBatch() {
+        when(productRepository.findReadModelsByIdIn(Set.of(1L, 2L, 3L)))
+                .thenReturn(List.of(product(1L, "Alicate curvo", "Ortodontia", 0L), product(3L, "Resina", "Ortodontia", 0L)));
+
+        catalogSnapshotService.apply(List.of(
+                "products:UPDATE:1:1700000000000",
+                "products:DELETE:2:1700000000000",
+                "products:INSERT:3:1700000000000",
+                "products:UPDATE:1:1700000000001"), 6L);
+
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        assertEquals(2, snapshot.productCount());
+        assertEquals("Alicate curvo", snapshot.findById(1L).orElseThrow().name());
+        assertTrue(snapshot.findById(2L).isEmpty());
+        assertTrue(snapshot.findById(3L).isPresent());
+        verify(productRepository, times(1)).findReadModelsByIdIn(any());
+    }
+
+    @Test
+    void shouldApplyEveryIdOfAStatementNotification() {
+        when(productRepository.findReadModelsByIdIn(Set.of(1L, 2L)))
+                .thenReturn(List.of(product(1L, "Alicate curvo", "Ortodontia", 1L), product(2L, "Broca fina", "Ortodontia", 1L)));
+
+        catalogSnapshotService.apply(List.of("products:UPDATE:1,2:1700000000000"), 6L);
+
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        assertEquals("Alicate curvo", snapshot.findById(1L).orElseThrow().name());
+        assertEquals("Broca fina", snapshot.findById(2L).orElseThrow().name());
+    }
+
+    @Test
+    void shouldApplyCategoryChangeToEveryProductOfIt() {
+        when(categoryRepository.findAllById(Set.of(1L))).thenReturn(List.of(category(1L, "Ortodontia Avançada", 1L)));
+
+        catalogSnapshotService.apply(List.of("categories:UPDATE:1:1700000000000"), 6L);
+
+        ProductReadModel product = catalogSnapshotService.current().findById(2L).orElseThrow();
+        assertEquals("Ortodontia Avançada", product.categoryName());
+        assertEquals(1L, product.categoryVersion());
+        verify(productRepository, never()).findReadModelsByIdIn(any());
+    }
+
+    @Test
+    void shouldSkipMalformedPayloads() {
+        catalogSnapshotService.apply(List.of("products:UPDATE:1", "products:UPDATE:abc:1700000000000", "nonsense"), 6L);
+
+        assertEquals(2, catalogSnapshotService.current().productCount());
+        verify(productRepository, never()).findReadModelsByIdIn(any());
+    }
+
+    @Test
+    void shouldParseNotificationPayload() {
+        CatalogSnapshotService.Notification notification =
+                CatalogSnapshotService.Notification.parse("products:DELETE:42:1700000000000");
+
+        assertEquals(new CatalogSnapshotService.Notification("products", List.of(42L), 1700000000000L), notification);
+        assertEquals(new CatalogSnapshotService.Notification("products", List.of(1L, 2L, 3L), 1700000000000L),
+                CatalogSnapshotService.Notification.parse("products:UPDATE:1,2,3:1700000000000"));
+        assertNull(CatalogSnapshotService.Notification.parse(null));
+        assertNull(CatalogSnapshotService.Notification.parse("products:DELETE:x:1700000000000"));
+        assertNull(CatalogSnapshotService.Notification.parse("products:DELETE:1,,2:1700000000000"));
+    }
+
+    @Test
+    void shouldWithholdSnapshotWhileBehindSharedGeneration() {
+        assertNotNull(catalogSnapshotService.currentIfCaughtUp());
+
+        // A writer committed and bumped; its notification has not been applied yet
+        when(catalogGenerationService.current()).thenReturn(6L);
+        assertNull(catalogSnapshotService.currentIfCaughtUp());
+        assertNotNull(catalogSnapshotService.current());
+
+        catalogSnapshotService.apply(List.of("products:UPDATE:1:1700000000000"), 6L);
+        assertNotNull(catalogSnapshotService.currentIfCaughtUp());
+    }
+
+    @Test
+    void shouldServeSnapshotWhenGenerationIsUnavailable() {
+        when(catalogGenerationService.current()).thenReturn(-1L);
+
+        assertNotNull(catalogSnapshotService.currentIfCaughtUp());
+    }
+
+    private static Category category(Long id, String name, Long version) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        category.setVersion(version);
+        return category;
+    }
+
+    private static ProductReadModel product(Long id, String name, String categoryName, Long categoryVersion) {
+        return new ProductReadModel(id, name, null, new BigDecimal("10.00"), true, id.intValue(), 1L, categoryName, 0L,
+                categoryVersion);
+    }
+}
@@ -0,0 +1,142 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.repository.CountMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotTest {
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = CatalogSnapshot.builder()
+                .addCategory(new CatalogSnapshot.CategoryEntry(1L, "Ortodontia", 0L))
+                .addProduct(product(3L, "Escova", "12.50", 1L, "Ortodontia"))
+                .addProduct(product(1L, "Alicate", "99.90", 1L, "Ortodontia"))
+                .addProduct(product(2L, "Broca", "12.50", null, null))
+                .build();
+    }
+
+    @Test
+    void shouldRoundTripReadModels() {
+        ProductReadModel found = snapshot.findById(1L).orElseThrow();
+
+        assertEquals(product(1L, "Alicate", "99.90", 1L, "Ortodontia"), found);
+        assertTrue(snapshot.findById(2L).orElseThrow().categoryId() == null);
+        assertTrue(snapshot.findById(42L).isEmpty());
+        assertEquals(Set.of(1L, 3L), snapshot.findAllByIds(List.of(1L, 3L, 42L)).keySet());
+    }
+
+    @Test
+    void shouldPageInRequestedOrder() {
+        Slice<ProductReadModel> byPrice = snapshot.findAll(PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "price")), CountMode.EXACT);
+
+        assertEquals(List.of(1L, 3L), byPrice.getContent().stream().map(ProductReadModel::id).toList());
+        assertEquals(3, ((Page<ProductReadModel>) byPrice).getTotalElements());
+        assertNull(snapshot.findAll(PageRequest.of(0, 2, Sort.by("description")), CountMode.NONE));
+    }
+
+    @Test
+    void shouldLeaveNameOrderToDatabase() {
+        // Mixed case and accents: String.compareTo puts "Zinco" before "alicate" and "ácido" last, unlike the collation
+        CatalogSnapshot mixed = CatalogSnapshot.builder()
+                .addProduct(product(1L, "alicate", "10.00", 1L, "Ortodontia"))
+                .addProduct(product(2L, "Zinco", "10.00", 1L, "Ortodontia"))
+                .addProduct(product(3L, "ácido", "10.00", 1L, "Ortodontia"))
+                .build();
+
+        assertNull(mixed.findAll(PageRequest.of(0, 10, Sort.by("name")), CountMode.NONE));
+        assertNull(mixed.findAfter("name", Sort.Direction.ASC, "Zinco", 2L, 10));
+    }
+
+    @Test
+    void shouldContinueAfterKeysetCursorWithIdTieBreak() {
+        List<ProductReadModel> rows = snapshot.findAfter("price", Sort.Direction.ASC, new BigDecimal("12.50"), 2L, 10);
+
+        assertEquals(List.of(3L, 1L), rows.stream().map(ProductReadModel::id).toList());
+    }
+
+    @Test
+    void shouldApplyDeltaWithoutTouchingPreviousSnapshot() {
+        CatalogSnapshot updated = snapshot.apply(
+                List.of(product(4L, "Resina", "30.00", 1L, "Ortodontia")),
+                List.of(2L),
+                List.of(new CatalogSnapshot.CategoryEntry(1L, "Ortodontia Avançada", 1L)),
+                List.of());
+
+        Map<Long, ProductReadModel> products = updated.findAllByIds(List.of(1L, 2L, 3L, 4L));
+        assertEquals(Set.of(1L, 3L, 4L), products.keySet());
+        assertEquals("Ortodontia Avançada", products.get(3L).categoryName());
+        assertEquals(1L, products.get(3L).categoryVersion());
+        assertEquals(3, snapshot.productCount());
+        assertEquals("Ortodontia", snapshot.findById(3L).orElseThrow().categoryName());
+    }
+
+    @Test
+    void shouldMergeDeltaIntoSameOrderingsAsFullBuild() {
+        Random random = new Random(42);
+        Map<Long, ProductReadModel> catalog = new TreeMap<>();
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder();
+        for (long id = 1; id <= 500; id++) {
+            ProductReadModel product = randomProduct(random, id);
+            catalog.put(id, product);
+            builder.addProduct(product);
+        }
+        CatalogSnapshot base = builder.build();
+
+        List<ProductReadModel> upserts = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            long id = 1 + random.nextInt(520);
+            if (catalog.containsKey(id) && random.nextBoolean() && !upserts.stream().anyMatch(p -> p.id() == id)) {
+                catalog.remove(id);
+                deletes.add(id);
+            } else if (!deletes.contains(id) && upserts.stream().noneMatch(p -> p.id() == id)) {
+                ProductReadModel product = randomProduct(random, id);
+                catalog.put(id, product);
+                upserts.add(product);
+            }
+        }
+        CatalogSnapshot merged = base.apply(upserts, deletes, List.of(), List.of());
+
+        CatalogSnapshot.Builder expectedBuilder = CatalogSnapshot.builder();
+        catalog.values().forEach(expectedBuilder::addProduct);
+        CatalogSnapshot expected = expectedBuilder.build();
+
+        assertEquals(expected.productCount(), merged.productCount());
+        for (String property : List.of("id", "price")) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                Pageable all = PageRequest.of(0, 1000, Sort.by(direction, property));
+                assertEquals(expected.findAll(all, CountMode.NONE).getContent(), merged.findAll(all, CountMode.NONE).getContent(),
+                        property + " " + direction);
+            }
+        }
+    }
+
+    private static ProductReadModel randomProduct(Random random, long id) {
+        // Few distinct names and prices, so ties are broken by id
+        return product(id, "Produto " + random.nextInt(30), random.nextInt(50) + ".90", 1L, "Ortodontia");
+    }
+
+    private static ProductReadModel product(Long id, String name, String price, Long categoryId, String categoryName) {
+        return new ProductReadModel(id, name, "Descrição " + name, new BigDecimal(price), true, id.intValue(),
+                categoryId, categoryName, 0L, categoryId != null ? 0L : null);
+    }
+}
@@ -0,0 +1,30 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.repository.CategoryRepository;
+import com.simplesdental.product.repository.CategoryRepositoryCustom.CountRepair;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class CategoryCountRepairServiceTest {
+
+    @Test
+    void shouldWalkEveryChunkInIdOrder() {
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.repairProductCounts(0L, 2)).thenReturn(new CountRepair(7L, 2, 1));
+        when(categoryRepository.repairProductCounts(7L, 2)).thenReturn(new CountRepair(9L, 1, 0));
+        when(categoryRepository.repairProductCounts(9L, 2)).thenReturn(new CountRepair(null, 0, 0));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        CategoryCountRepairService service = new CategoryCountRepairService(categoryRepository, meterRegistry,
+                Duration.ZERO, 2);
+
+        assertEquals(1, service.repairAll());
+        verify(categoryRepository, times(3)).repairProductCounts(anyLong(), eq(2));
+        assertEquals(1.0, meterRegistry.counter("category.product_count.repaired").count());
+    }
+}
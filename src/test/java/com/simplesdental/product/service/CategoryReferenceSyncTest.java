@@ -0,0 +1,82 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.repository.CategoryReferenceCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CategoryReferenceSyncTest {
+
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+
+    private CategoryReferenceCache categoryReferenceCache;
+    private RedisTemplate<String, Object> redisTemplate;
+    private CatalogGenerationService catalogGenerationService;
+    private CategoryReferenceSync categoryReferenceSync;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        categoryReferenceCache = mock(CategoryReferenceCache.class);
+        redisTemplate = mock(RedisTemplate.class);
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        catalogGenerationService = mock(CatalogGenerationService.class);
+        categoryReferenceSync = new CategoryReferenceSync(categoryReferenceCache, redisTemplate, catalogGenerationService);
+    }
+
+    @Test
+    void shouldBumpGenerationThenReloadAndAnnounceChange() {
+        categoryReferenceSync.categoriesChanged();
+
+        InOrder inOrder = inOrder(catalogGenerationService, categoryReferenceCache, redisTemplate);
+        inOrder.verify(catalogGenerationService).bumpCategories();
+        inOrder.verify(categoryReferenceCache).reload();
+        inOrder.verify(redisTemplate).convertAndSend(eq(CategoryReferenceSync.CHANNEL), any(String.class));
+    }
+
+    @Test
+    void shouldFeedCategoryGenerationToCache() {
+        verify(categoryReferenceCache).setGenerationSource(any());
+    }
+
+    @Test
+    void shouldReloadOnChangeFromAnotherNode() {
+        categoryReferenceSync.onMessage(message("another-node"), null);
+
+        verify(categoryReferenceCache).reload();
+    }
+
+    @Test
+    void shouldIgnoreItsOwnAnnouncement() {
+        categoryReferenceSync.categoriesChanged();
+        ArgumentCaptor<Object> sender = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).convertAndSend(eq(CategoryReferenceSync.CHANNEL), sender.capture());
+        clearInvocations(categoryReferenceCache);
+
+        categoryReferenceSync.onMessage(message(sender.getValue()), null);
+
+        verifyNoInteractions(categoryReferenceCache);
+    }
+
+    @Test
+    void shouldNotFailWriteWhenRedisIsDown() {
+        when(redisTemplate.convertAndSend(any(), any())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(categoryReferenceSync::categoriesChanged);
+        verify(categoryReferenceCache).reload();
+    }
+
+    private DefaultMessage message(Object sender) {
+        return new DefaultMessage(CategoryReferenceSync.CHANNEL.getBytes(), serializer.serialize(sender));
+    }
+}
@@ -1,6 +1,10 @@
 package com.simplesdental.product.service;
 
+import com.simplesdental.product.dto.CategoryResponseDTO;
+import com.simplesdental.product.dto.CategoryTreeDTO;
+import com.simplesdental.product.exception.PreconditionFailedException;
 import com.simplesdental.product.model.Category;
+import com.simplesdental.product.repository.CountMode;
 import com.simplesdental.product.repository.CategoryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,14 +12,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,6 +36,18 @@ public class CategoryServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ProductCacheService productCacheService;
+
+    @Mock
+    private CatalogGenerationService catalogGenerationService;
+
+    @Mock
+    private CategoryReferenceSync categoryReferenceSync;
+
+    @Mock
+    private ProductCodeIndex productCodeIndex;
+
     @InjectMocks
     private CategoryServiceImpl categoryService;
 
@@ -83,6 +104,33 @@ public class CategoryServiceImplTest {
         verify(categoryRepository).findAllWithProducts(pageable);
     }
 
+    @Test
+    void shouldFindCategorySummariesWithProductCount() {
+        Pageable pageable = PageRequest.of(0, 10);
+        CategoryResponseDTO summary = new CategoryResponseDTO(1L, "Test Category", null, 3);
+        when(categoryRepository.findAllSummaries(pageable, CountMode.WINDOW))
+                .thenReturn(new PageImpl<>(List.of(summary), pageable, 1));
+
+        Slice<CategoryResponseDTO> result = categoryService.findAllSummaries(pageable, CountMode.WINDOW);
+
+        assertEquals(1, result.getNumberOfElements());
+        assertEquals(3, result.getContent().get(0).getProductCount());
+        verify(categoryRepository).findAllSummaries(pageable, CountMode.WINDOW);
+        verify(categoryRepository, never()).findAllWithProducts(pageable);
+    }
+
+    @Test
+    void shouldFindCategorySummaryById() {
+        when(categoryRepository.findSummaryById(1L))
+                .thenReturn(Optional.of(new CategoryResponseDTO(1L, "Test Category", null, 0)));
+
+        Optional<CategoryResponseDTO> result = categoryService.findSummaryById(1L);
+
+        assertTrue(result.isPresent());
+        assertEquals(0, result.get().getProductCount());
+        verify(categoryRepository, never()).findByIdWithProducts(1L);
+    }
+
     @Test
     void shouldFindCategoryById() {
         when(categoryRepository.findById(1L)).thenReturn(Optional.of(testCategory));
@@ -126,12 +174,92 @@ public class CategoryServiceImplTest {
         assertEquals(testCategory.getId(), result.getId());
         assertEquals(testCategory.getName(), result.getName());
         verify(categoryRepository).save(testCategory);
+        verify(categoryReferenceSync).categoriesChanged();
+        verify(productCacheService).evictAll();
+        verify(catalogGenerationService).bump();
+        verify(productCodeIndex).recordWrite(null, 0L);
     }
 
     @Test
     void shouldDeleteCategoryById() {
-        categoryService.deleteById(1L);
+        when(categoryRepository.deleteDirectlyById(1L)).thenReturn(1);
 
-        verify(categoryRepository).deleteById(1L);
+        assertTrue(categoryService.deleteById(1L));
+
+        verify(categoryRepository, never()).findById(any());
+        verify(categoryReferenceSync).categoriesChanged();
+        verify(productCacheService).evictAll();
+        verify(catalogGenerationService).bump();
+    }
+
+    @Test
+    void shouldReportMissingCategoryOnDelete() {
+        when(categoryRepository.deleteDirectlyById(99L)).thenReturn(0);
+
+        assertFalse(categoryService.deleteById(99L));
+
+        verifyNoInteractions(productCacheService, catalogGenerationService, categoryReferenceSync);
+    }
+
+    @Test
+    void shouldNestSubtreeRowsUnderTheirParents() {
+        when(categoryRepository.findTreeRows(1L, null)).thenReturn(List.of(
+                new CategoryTreeDTO(1L, "Consumíveis", null, null, 0, 0, 7),
+                new CategoryTreeDTO(2L, "Instrumentos", null, 1L, 1, 2, 7),
+                new CategoryTreeDTO(3L, "Brocas", null, 2L, 2, 5, 5)));
+
+        CategoryTreeDTO root = categoryService.findSubtree(1L, null).orElseThrow();
+
+        assertEquals(1L, root.id());
+        CategoryTreeDTO instruments = root.children().get(0);
+        assertEquals(2L, instruments.id());
+        assertEquals(List.of(3L), instruments.children().stream().map(CategoryTreeDTO::id).toList());
+    }
+
+    @Test
+    void shouldReportUnknownParentFromTrigger() {
+        testCategory.setParentId(42L);
+        when(categoryRepository.save(testCategory)).thenThrow(new DataIntegrityViolationException("fk",
+                new PSQLException("Categoria pai 42 não encontrada", PSQLState.FOREIGN_KEY_VIOLATION)));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> categoryService.save(testCategory));
+        assertEquals("Categoria pai não encontrada", e.getMessage());
+        verifyNoInteractions(productCacheService, catalogGenerationService);
+    }
+
+    @Test
+    void shouldUpdateWithOneConditionalStatement() {
+        testCategory.setVersion(4L);
+        when(categoryRepository.update(1L, testCategory, Set.of(3L))).thenReturn(Optional.of(testCategory));
+
+        assertEquals(Optional.of(testCategory), categoryService.update(1L, testCategory, Set.of(3L)));
+
+        verify(categoryRepository, never()).findById(any());
+        verify(categoryRepository, never()).existsById(any());
+        verify(categoryReferenceSync).categoriesChanged();
+        verify(productCacheService).evictAll();
+        verify(catalogGenerationService).bump();
+    }
+
+    @Test
+    void shouldTellStaleVersionFromMissingCategoryOnUpdate() {
+        when(categoryRepository.update(1L, testCategory, Set.of(3L))).thenReturn(Optional.empty());
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        when(categoryRepository.update(99L, testCategory, Set.of(3L))).thenReturn(Optional.empty());
+
+        assertThrows(PreconditionFailedException.class, () -> categoryService.update(1L, testCategory, Set.of(3L)));
+        assertEquals(Optional.empty(), categoryService.update(99L, testCategory, Set.of(3L)));
+        verifyNoInteractions(productCacheService, catalogGenerationService, categoryReferenceSync);
+    }
+
+    @Test
+    void shouldReportCycleFromTriggerOnUpdate() {
+        testCategory.setParentId(3L);
+        when(categoryRepository.update(1L, testCategory, null)).thenThrow(new DataIntegrityViolationException("check",
+                new PSQLException("Ciclo", PSQLState.CHECK_VIOLATION)));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> categoryService.update(1L, testCategory, null));
+        assertEquals("Categoria não pode ficar abaixo de si mesma ou de uma subcategoria", e.getMessage());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.repository.CountMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListingResponseCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ListingResponseCache listingResponseCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listingResponseCache = new ListingResponseCache(new MappingJackson2HttpMessageConverter(), meterRegistry,
+                1024 * 1024, Duration.ofMinutes(5), 2);
+    }
+
+    @Test
+    void shouldRenderOnceAndServeEncodedBytesAfterwards() throws IOException {
+        String key = listingResponseCache.key("v2", "W/\"7\"", PageRequest.of(0, 20, Sort.by("id")), CountMode.EXACT);
+        AtomicInteger renders = new AtomicInteger();
+
+        byte[] first = listingResponseCache.get(key, () -> {
+            renders.incrementAndGet();
+            return Map.of("content", List.of(1, 2, 3));
+        });
+        byte[] second = listingResponseCache.get(key, () -> {
+            renders.incrementAndGet();
+            return Map.of("content", List.of());
+        });
+
+        assertEquals(1, renders.get());
+        assertSame(first, second);
+        assertEquals(1.0, meterRegistry.counter("listing.cache.requests", "result", "hit").count());
+        assertEquals(1.0, meterRegistry.counter("listing.cache.requests", "result", "miss").count());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        listingResponseCache.write(second, response);
+
+        assertEquals("{\"content\":[1,2,3]}", response.getContentAsString());
+        assertEquals("application/json", response.getContentType());
+        assertEquals(second.length, meterRegistry.counter("listing.cache.bytes.served").count());
+    }
+
+    @Test
+    void shouldKeyOnGenerationAndSkipColdPages() {
+        PageRequest firstPage = PageRequest.of(0, 20, Sort.by("id"));
+
+        assertNotEquals(listingResponseCache.key("v1", "W/\"7\"", firstPage, CountMode.EXACT),
+                listingResponseCache.key("v1", "W/\"8\"", firstPage, CountMode.EXACT));
+        assertNotEquals(listingResponseCache.key("v1", "W/\"7\"", firstPage, CountMode.EXACT),
+                listingResponseCache.key("v2", "W/\"7\"", firstPage, CountMode.EXACT));
+        assertNull(listingResponseCache.key("v1", "W/\"7\"", PageRequest.of(2, 20), CountMode.EXACT));
+        assertNull(listingResponseCache.key("v1", null, firstPage, CountMode.EXACT));
+    }
+}
@@ -0,0 +1,101 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.dto.ProductBulkResponseDTO;
+import com.simplesdental.product.dto.ProductCreateRequestV2;
+import com.simplesdental.product.model.Category;
+import com.simplesdental.product.repository.CategoryReferenceCache;
+import com.simplesdental.product.repository.ProductBulkRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class ProductBulkServiceTest {
+
+    private ProductBulkRepository productBulkRepository;
+    private CategoryReferenceCache categoryReferenceCache;
+    private ProductCacheService productCacheService;
+    private CatalogGenerationService catalogGenerationService;
+    private ProductCodeIndex productCodeIndex;
+    private ProductSuggestService productSuggestService;
+    private ProductBulkService productBulkService;
+
+    @BeforeEach
+    void setUp() {
+        productBulkRepository = mock(ProductBulkRepository.class);
+        categoryReferenceCache = mock(CategoryReferenceCache.class);
+        productCacheService = mock(ProductCacheService.class);
+        catalogGenerationService = mock(CatalogGenerationService.class);
+        productCodeIndex = mock(ProductCodeIndex.class);
+        productSuggestService = mock(ProductSuggestService.class);
+        productBulkService = new ProductBulkService(productBulkRepository, categoryReferenceCache,
+                Validation.buildDefaultValidatorFactory().getValidator(), productCacheService, catalogGenerationService,
+                productCodeIndex, productSuggestService, 3, 2);
+
+        when(categoryReferenceCache.contains(1L)).thenReturn(true);
+    }
+
+    @Test
+    void shouldUpsertValidBatchAndInvalidateOnce() {
+        List<ProductCreateRequestV2> products = List.of(product(10, 1L), product(11, 1L));
+        when(productBulkRepository.upsertByCode(products, 2)).thenReturn(List.of(
+                new ProductBulkRepository.UpsertResult(100L, true),
+                new ProductBulkRepository.UpsertResult(7L, false)));
+        when(catalogGenerationService.bump()).thenReturn(9L);
+
+        ProductBulkResponseDTO result = productBulkService.upsert(products);
+
+        assertEquals(1, result.created());
+        assertEquals(1, result.updated());
+        assertEquals(ProductBulkResponseDTO.Outcome.CREATED, result.items().get(0).outcome());
+        assertEquals(7L, result.items().get(1).id());
+        verify(productCacheService).evictAll();
+        verify(productCodeIndex).recordWrites(List.of(10, 11), 9L);
+        verify(productSuggestService).invalidate();
+    }
+
+    @Test
+    void shouldRejectWholeBatchWhenAnyItemIsInvalid() {
+        ProductCreateRequestV2 missingName = product(12, 1L);
+        missingName.setName(" ");
+        List<ProductCreateRequestV2> products = List.of(product(10, 1L), product(10, 1L), missingName);
+
+        ProductBulkResponseDTO result = productBulkService.upsert(products);
+
+        assertEquals(2, result.invalid());
+        assertNull(result.items().get(0).outcome());
+        assertEquals("code", result.items().get(1).errors().get(0).getField());
+        assertEquals("name", result.items().get(2).errors().get(0).getField());
+        verify(productBulkRepository, never()).upsertByCode(any(), anyInt());
+        verifyNoInteractions(catalogGenerationService);
+    }
+
+    @Test
+    void shouldRejectUnknownCategories() {
+        ProductBulkResponseDTO result = productBulkService.upsert(List.of(product(10, 99L)));
+
+        assertEquals(1, result.invalid());
+        assertEquals("Categoria não encontrada", result.items().get(0).errors().get(0).getMessage());
+    }
+
+    @Test
+    void shouldRejectBatchesAboveLimit() {
+        List<ProductCreateRequestV2> products = List.of(product(1, 1L), product(2, 1L), product(3, 1L), product(4, 1L));
+
+        assertThrows(IllegalArgumentException.class, () -> productBulkService.upsert(products));
+        assertThrows(IllegalArgumentException.class, () -> productBulkService.upsert(List.of()));
+    }
+
+    private ProductCreateRequestV2 product(int code, Long categoryId) {
+        Category ref = new Category();
+        ref.setId(categoryId);
+        return new ProductCreateRequestV2("Produto " + code, "Descrição", new BigDecimal("10.00"), true, code, ref);
+    }
+}
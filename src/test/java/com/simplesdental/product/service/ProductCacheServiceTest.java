@@ -0,0 +1,248 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.model.Category;
+import com.simplesdental.product.model.Product;
+import com.simplesdental.product.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductCacheServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache redisCache;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductCacheService productCacheService;
+    private Product testProduct;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Test Category");
+
+        testProduct = new Product();
+        testProduct.setId(1L);
+        testProduct.setName("Test Product");
+        testProduct.setPrice(new BigDecimal("19.99"));
+        testProduct.setStatus(true);
+        testProduct.setCode(123);
+        testProduct.setCategory(category);
+
+        lenient().when(cacheManager.getCache(ProductCacheService.CACHE_NAME)).thenReturn(redisCache);
+        meterRegistry = new SimpleMeterRegistry();
+        productCacheService = new ProductCacheService(productRepository, cacheManager, redisTemplate, meterRegistry, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void shouldLoadFromDatabaseOnceAndServeFromLocalTier() {
+        when(productRepository.findReadModelById(1L)).thenReturn(Optional.of(ProductReadModel.from(testProduct)));
+
+        Optional<ProductReadModel> first = productCacheService.findById(1L);
+        Optional<ProductReadModel> second = productCacheService.findById(1L);
+
+        assertTrue(first.isPresent());
+        assertEquals(first, second);
+        verify(productRepository, times(1)).findReadModelById(1L);
+        verify(redisCache).put(1L, first.get());
+        assertEquals(0.5, meterRegistry.get("product.cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void shouldResolveCodeThroughIdTiersAfterFirstLoad() {
+        ProductReadModel readModel = ProductReadModel.from(testProduct);
+        when(productRepository.findReadModelByCode(123)).thenReturn(Optional.of(readModel));
+
+        assertEquals(Optional.of(readModel), productCacheService.findByCode(123));
+        assertEquals(Optional.of(readModel), productCacheService.findByCode(123));
+
+        verify(productRepository, times(1)).findReadModelByCode(123);
+        verify(productRepository, never()).findReadModelById(any());
+    }
+
+    @Test
+    void shouldDropCodeMappingWhenProductCodeChanged() {
+        ProductReadModel original = ProductReadModel.from(testProduct);
+        when(productRepository.findReadModelByCode(123)).thenReturn(Optional.of(original), Optional.empty());
+        productCacheService.findByCode(123);
+
+        testProduct.setCode(456);
+        productCacheService.evict(1L);
+        when(productRepository.findReadModelById(1L)).thenReturn(Optional.of(ProductReadModel.from(testProduct)));
+
+        assertTrue(productCacheService.findByCode(123).isEmpty());
+        verify(productRepository, times(2)).findReadModelByCode(123);
+    }
+
+    @Test
+    void shouldServeFromRedisWhenLocalTierMisses() {
+        ProductReadModel cached = ProductReadModel.from(testProduct);
+        when(redisCache.get(1L, ProductReadModel.class)).thenReturn(cached);
+
+        Optional<ProductReadModel> result = productCacheService.findById(1L);
+
+        assertEquals(Optional.of(cached), result);
+        verify(productRepository, never()).findReadModelById(any());
+    }
+
+    @Test
+    void shouldFallBackToDatabaseWhenRedisFails() {
+        when(redisCache.get(1L, ProductReadModel.class)).thenThrow(new IllegalStateException("redis down"));
+        when(productRepository.findReadModelById(1L)).thenReturn(Optional.of(ProductReadModel.from(testProduct)));
+
+        Optional<ProductReadModel> result = productCacheService.findById(1L);
+
+        assertTrue(result.isPresent());
+    }
+
+    @Test
+    void shouldReloadAfterEviction() {
+        when(productRepository.findReadModelById(1L)).thenReturn(Optional.of(ProductReadModel.from(testProduct)));
+
+        productCacheService.findById(1L);
+        productCacheService.evict(1L);
+        productCacheService.findById(1L);
+
+        verify(redisCache).evict(1L);
+        verify(productRepository, times(2)).findReadModelById(1L);
+    }
+
+    @Test
+    void shouldResolveManyIdsWithOneRedisMultiGetAndOneInQuery() {
+        Product other = new Product();
+        other.setId(2L);
+        other.setName("Other Product");
+        other.setCategory(testProduct.getCategory());
+        ProductReadModel cachedOther = ProductReadModel.from(other);
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of("products::1", "products::2", "products::3")))
+                .thenReturn(Arrays.asList(null, cachedOther, null));
+        when(productRepository.findReadModelsByIdIn(List.of(1L, 3L))).thenReturn(List.of(ProductReadModel.from(testProduct)));
+
+        Map<Long, ProductReadModel> result = productCacheService.findAllByIds(List.of(1L, 2L, 3L));
+
+        assertEquals(2, result.size());
+        assertEquals("Test Product", result.get(1L).name());
+        assertEquals(cachedOther, result.get(2L));
+        assertFalse(result.containsKey(3L));
+        verify(redisCache).put(1L, result.get(1L));
+    }
+
+    @Test
+    void shouldEvictManyIdsWithOneRedisDelete() {
+        when(productRepository.findReadModelById(1L)).thenReturn(Optional.of(ProductReadModel.from(testProduct)));
+        productCacheService.findById(1L);
+
+        productCacheService.evict(List.of(1L, 2L));
+        productCacheService.findById(1L);
+
+        verify(redisTemplate).delete(List.of("products::1", "products::2"));
+        verify(productRepository, times(2)).findReadModelById(1L);
+    }
+
+    @Test
+    void shouldAnnounceEvictionsToOtherNodes() {
+        productCacheService.evict(1L);
+        productCacheService.evict(List.of(2L, 3L));
+        productCacheService.evictAll();
+
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate, times(3)).convertAndSend(eq(ProductCacheService.CHANNEL), payloads.capture());
+        assertTrue(payloads.getAllValues().get(0).toString().endsWith("|1"));
+        assertTrue(payloads.getAllValues().get(1).toString().endsWith("|2,3"));
+        assertTrue(payloads.getAllValues().get(2).toString().endsWith("|*"));
+    }
+
+    @Test
+    void shouldDropLocalEntriesEvictedByAnotherNode() {
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        when(productRepository.findReadModelById(1L)).thenReturn(Optional.of(ProductReadModel.from(testProduct)));
+        productCacheService.findById(1L);
+
+        productCacheService.onMessage(message("another-node|1,2"), null);
+        productCacheService.findById(1L);
+
+        verify(productRepository, times(2)).findReadModelById(1L);
+    }
+
+    @Test
+    void shouldDropWholeLocalTierOnFullEvictionFromAnotherNode() {
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        when(productRepository.findReadModelById(1L)).thenReturn(Optional.of(ProductReadModel.from(testProduct)));
+        productCacheService.findById(1L);
+
+        productCacheService.onMessage(message("another-node|*"), null);
+        productCacheService.findById(1L);
+
+        verify(productRepository, times(2)).findReadModelById(1L);
+    }
+
+    @Test
+    void shouldIgnoreItsOwnEvictionAnnouncement() {
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        when(productRepository.findReadModelById(1L)).thenReturn(Optional.of(ProductReadModel.from(testProduct)));
+        productCacheService.evict(2L);
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).convertAndSend(eq(ProductCacheService.CHANNEL), payload.capture());
+        productCacheService.findById(1L);
+        String ownPrefix = payload.getValue().toString().substring(0, payload.getValue().toString().indexOf('|'));
+
+        productCacheService.onMessage(message(ownPrefix + "|1"), null);
+        productCacheService.findById(1L);
+
+        verify(productRepository, times(1)).findReadModelById(1L);
+    }
+
+    @Test
+    void shouldNotFailEvictionWhenPublishFails() {
+        when(redisTemplate.convertAndSend(any(), any())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(() -> productCacheService.evict(1L));
+        verify(redisCache).evict(1L);
+    }
+
+    private DefaultMessage message(String payload) {
+        return new DefaultMessage(ProductCacheService.CHANNEL.getBytes(), serializer.serialize(payload));
+    }
+}
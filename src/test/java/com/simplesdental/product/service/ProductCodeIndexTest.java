@@ -0,0 +1,182 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ProductCodeIndexTest {
+
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+
+    private ProductRepository productRepository;
+    private CatalogGenerationService catalogGenerationService;
+    private RedisTemplate<String, Object> redisTemplate;
+    private ProductCodeIndex productCodeIndex;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        catalogGenerationService = mock(CatalogGenerationService.class);
+        redisTemplate = mock(RedisTemplate.class);
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        productCodeIndex = new ProductCodeIndex(productRepository, catalogGenerationService, redisTemplate,
+                new SimpleMeterRegistry(), 0.01, Duration.ZERO);
+
+        when(catalogGenerationService.current()).thenReturn(5L);
+        when(productRepository.findAllCodes()).thenReturn(IntStream.rangeClosed(1, 500).boxed().toList());
+        productCodeIndex.rebuild();
+    }
+
+    @Test
+    void shouldNeverRejectExistingCodes() {
+        assertTrue(IntStream.rangeClosed(1, 500).allMatch(productCodeIndex::mightExist));
+    }
+
+    @Test
+    void shouldRejectMostUnknownCodesWhileInSync() {
+        long falsePositives = IntStream.rangeClosed(10_001, 20_000).filter(productCodeIndex::mightExist).count();
+
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        verify(productRepository, times(1)).findAllCodes();
+    }
+
+    @Test
+    void shouldTrackLocalWritesWithoutRebuilding() {
+        productCodeIndex.recordWrite(9_999, 6L);
+        when(catalogGenerationService.current()).thenReturn(6L);
+
+        assertTrue(productCodeIndex.mightExist(9_999));
+        assertFalse(IntStream.rangeClosed(10_001, 10_100).allMatch(productCodeIndex::mightExist));
+        verify(productRepository, times(1)).findAllCodes();
+    }
+
+    @Test
+    void shouldNotTrustNegativesAfterWritesElsewhere() {
+        when(catalogGenerationService.current()).thenReturn(7L);
+        when(productRepository.findAllCodes()).thenReturn(List.of(7_777));
+
+        // Not in the filter built at generation 5: answered conservatively while the filter is rebuilt in the background
+        assertTrue(productCodeIndex.mightExist(7_777));
+        verify(productRepository, timeout(2000).times(2)).findAllCodes();
+        awaitNegative(42);
+        assertTrue(productCodeIndex.mightExist(7_777));
+    }
+
+    @Test
+    void shouldKeepWritesMadeDuringRebuild() throws Exception {
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(catalogGenerationService.current()).thenReturn(7L);
+        when(productRepository.findAllCodes()).thenAnswer(invocation -> {
+            scanning.countDown();
+            release.await();
+            return List.of(1);
+        });
+
+        Thread rebuild = new Thread(productCodeIndex::rebuild);
+        rebuild.start();
+        assertTrue(scanning.await(2, TimeUnit.SECONDS));
+        // Not blocked behind the scan
+        productCodeIndex.recordWrite(8_888, 8L);
+        release.countDown();
+        rebuild.join(2000);
+
+        assertTrue(productCodeIndex.mightExist(8_888));
+    }
+
+    @Test
+    void shouldAnnounceLocalWrites() {
+        productCodeIndex.recordWrites(List.of(9_998, 9_999), 6L);
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).convertAndSend(eq(ProductCodeIndex.CHANNEL), payload.capture());
+        assertTrue(payload.getValue().toString().endsWith("|6|9998,9999"));
+    }
+
+    @Test
+    void shouldTrackWritesAnnouncedByOtherNodesWithoutRebuilding() {
+        productCodeIndex.onMessage(message("another-node|6|9999"), null);
+        productCodeIndex.onMessage(message("another-node|7|"), null);
+        when(catalogGenerationService.current()).thenReturn(7L);
+
+        assertTrue(productCodeIndex.mightExist(9_999));
+        assertFalse(IntStream.rangeClosed(10_001, 10_100).allMatch(productCodeIndex::mightExist));
+        verify(productRepository, times(1)).findAllCodes();
+    }
+
+    @Test
+    void shouldChainGenerationsAnnouncedOutOfOrder() {
+        ProductCodeIndex limited = rateLimitedIndex();
+        try {
+            limited.onMessage(message("another-node|7|9997"), null);
+            limited.recordWrite(9_998, 8L);
+            when(catalogGenerationService.current()).thenReturn(8L);
+
+            // Generation 6 is still missing: negatives are not trusted yet
+            assertTrue(IntStream.rangeClosed(10_001, 10_100).allMatch(limited::mightExist));
+
+            limited.onMessage(message("another-node|6|9996"), null);
+            assertFalse(IntStream.rangeClosed(10_001, 10_100).allMatch(limited::mightExist));
+            assertTrue(IntStream.of(9_996, 9_997, 9_998).allMatch(limited::mightExist));
+            verify(productRepository, times(2)).findAllCodes();
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRebuildAtMostOncePerMinimumInterval() {
+        ProductCodeIndex limited = rateLimitedIndex();
+        try {
+            when(catalogGenerationService.current()).thenReturn(9L);
+
+            // Stale after a write elsewhere that was never announced: the lookups go to the database meanwhile
+            assertTrue(IntStream.rangeClosed(10_001, 10_100).allMatch(limited::mightExist));
+            verify(productRepository, after(200).times(2)).findAllCodes();
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        productCodeIndex.shutdown();
+    }
+
+    private void awaitNegative(int code) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (productCodeIndex.mightExist(code)) {
+            assertTrue(System.currentTimeMillis() < deadline, "filter was not rebuilt");
+            Thread.onSpinWait();
+        }
+    }
+
+    // Built at generation 5 like the shared index, but without rebuilding again for five minutes
+    private ProductCodeIndex rateLimitedIndex() {
+        ProductCodeIndex limited = new ProductCodeIndex(productRepository, catalogGenerationService, redisTemplate,
+                new SimpleMeterRegistry(), 0.01, Duration.ofMinutes(5));
+        limited.rebuild();
+        return limited;
+    }
+
+    private DefaultMessage message(String payload) {
+        return new DefaultMessage(ProductCodeIndex.CHANNEL.getBytes(), serializer.serialize(payload));
+    }
+}
@@ -0,0 +1,95 @@
+package com.simplesdental.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.mapper.ProductMapperV2;
+import com.simplesdental.product.repository.ProductExportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductExportServiceTest {
+
+    @Mock
+    private ProductExportRepository productExportRepository;
+
+    private ProductExportService productExportService;
+
+    private final List<ProductReadModel> catalog = List.of(
+            new ProductReadModel(1L, "Notebook", "Tela 15\", \"ultra\" fino", new BigDecimal("3500.00"), true, 10, 1L, "Eletrônicos", 0L, 0L),
+            new ProductReadModel(2L, "Cadeira", null, new BigDecimal("899.90"), false, 11, 2L, "Móveis, Escritório", 0L, 0L));
+
+    @BeforeEach
+    void setUp() {
+        productExportService = new ProductExportService(productExportRepository, new ProductMapperV2(), new ObjectMapper());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubCatalog() {
+        when(productExportRepository.forEach(any())).thenAnswer(invocation -> {
+            Consumer<ProductReadModel> consumer = invocation.getArgument(0);
+            catalog.forEach(consumer);
+            return (long) catalog.size();
+        });
+    }
+
+    @Test
+    void shouldExportOneJsonObjectPerLine() throws IOException {
+        stubCatalog();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = productExportService.export(ProductExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[1].contains("\"categoryName\":\"Móveis, Escritório\""));
+    }
+
+    @Test
+    void shouldExportCsvWithHeaderAndQuotedFields() throws IOException {
+        stubCatalog();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        productExportService.export(ProductExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("id,name,description,price,status,code,categoryId,categoryName", lines[0]);
+        assertEquals("1,Notebook,\"Tela 15\"\", \"\"ultra\"\" fino\",3500.00,true,10,1,Eletrônicos", lines[1]);
+        assertEquals("2,Cadeira,,899.90,false,11,2,\"Móveis, Escritório\"", lines[2]);
+    }
+
+    @Test
+    void shouldPropagateClientDisconnectAsIOException() {
+        stubCatalog();
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> productExportService.export(ProductExportService.Format.NDJSON, disconnected));
+    }
+
+    @Test
+    void shouldRejectUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> ProductExportService.Format.fromParam("xml"));
+    }
+}
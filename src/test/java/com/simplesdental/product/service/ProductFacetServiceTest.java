@@ -0,0 +1,76 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.dto.ProductFacetsDTO;
+import com.simplesdental.product.repository.ProductFilter;
+import com.simplesdental.product.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductFacetServiceTest {
+
+    private static final List<BigDecimal> DEFAULT_BOUNDS = List.of(new BigDecimal("100"), new BigDecimal("500"));
+
+    private ProductRepository productRepository;
+    private CatalogGenerationService catalogGenerationService;
+    private ProductFacetService productFacetService;
+
+    private final ProductFacetsDTO facets = new ProductFacetsDTO(0, List.of(), new ProductFacetsDTO.StatusFacet(0, 0), List.of());
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        catalogGenerationService = mock(CatalogGenerationService.class);
+        productFacetService = new ProductFacetService(productRepository, catalogGenerationService, new SimpleMeterRegistry(),
+                DEFAULT_BOUNDS, 100, Duration.ofMinutes(5));
+        when(productRepository.facets(any(), any())).thenReturn(facets);
+    }
+
+    @Test
+    void shouldCacheFacetsPerFilterWithinGeneration() {
+        ProductFilter filter = new ProductFilter(true, null, null, null, null, null);
+        when(catalogGenerationService.current()).thenReturn(3L);
+
+        productFacetService.facets(filter, null);
+        productFacetService.facets(new ProductFilter(true, null, null, null, null, null), List.of(new BigDecimal("100.00"), new BigDecimal("500")));
+        productFacetService.facets(ProductFilter.NONE, null);
+
+        verify(productRepository, times(1)).facets(filter, List.of(new BigDecimal("100.00"), new BigDecimal("500.00")));
+        verify(productRepository, times(1)).facets(eq(ProductFilter.NONE), any());
+    }
+
+    @Test
+    void shouldRecomputeAfterCatalogWrite() {
+        when(catalogGenerationService.current()).thenReturn(3L, 4L);
+
+        productFacetService.facets(ProductFilter.NONE, null);
+        productFacetService.facets(ProductFilter.NONE, null);
+
+        verify(productRepository, times(2)).facets(any(), any());
+    }
+
+    @Test
+    void shouldBypassCacheWhenGenerationUnavailable() {
+        when(catalogGenerationService.current()).thenReturn(-1L);
+
+        productFacetService.facets(ProductFilter.NONE, null);
+        productFacetService.facets(ProductFilter.NONE, null);
+
+        verify(productRepository, times(2)).facets(any(), any());
+    }
+
+    @Test
+    void shouldRejectUnorderedPriceBounds() {
+        assertThrows(IllegalArgumentException.class,
+                () -> productFacetService.facets(ProductFilter.NONE, List.of(new BigDecimal("500"), new BigDecimal("100"))));
+        verifyNoInteractions(productRepository);
+    }
+}
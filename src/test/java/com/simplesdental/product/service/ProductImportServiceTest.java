@@ -0,0 +1,175 @@
+package com.simplesdental.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplesdental.product.dto.ProductImportStatusDTO;
+import com.simplesdental.product.model.ProductImport;
+import com.simplesdental.product.repository.ProductImportRepository;
+import com.simplesdental.product.repository.ProductStagingRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ProductImportServiceTest {
+
+    private ProductImportRepository productImportRepository;
+    private ProductStagingRepository productStagingRepository;
+    private ProductCacheService productCacheService;
+    private ProductCodeIndex productCodeIndex;
+    private ProductImportService productImportService;
+
+    private ProductImport job;
+    private final List<ProductStagingRepository.StagedRow> staged = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        productImportRepository = mock(ProductImportRepository.class);
+        productStagingRepository = mock(ProductStagingRepository.class);
+        productCacheService = mock(ProductCacheService.class);
+        productCodeIndex = mock(ProductCodeIndex.class);
+        productImportService = new ProductImportService(productImportRepository, productStagingRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), productCacheService,
+                mock(CatalogGenerationService.class), productCodeIndex, mock(ProductSuggestService.class), 1, 1024, 50,
+                Duration.ofSeconds(30), Duration.ofMinutes(5));
+
+        job = new ProductImport();
+        job.setId(1L);
+        job.setFormat("CSV");
+        job.setStatus(ProductImport.Status.QUEUED);
+        job.setBytesTotal(100L);
+        when(productImportRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(productImportRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Drains the parser into a list instead of a COPY; the merge creates everything that was staged
+        when(productStagingRepository.stageAndMerge(any(), any(), anyInt())).thenAnswer(invocation -> {
+            ProductStagingRepository.RowSource source = invocation.getArgument(0);
+            source.writeTo(staged::add);
+            invocation.<Runnable>getArgument(1).run();
+            return new ProductStagingRepository.MergeResult(staged.size(), staged.size(), 0, 0, List.of());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        productImportService.shutdown();
+    }
+
+    @Test
+    void shouldStageValidCsvRowsAndRejectInvalidOnes() throws Exception {
+        Path file = write("id,name,description,price,status,code,categoryId,categoryName\n" +
+                "1,\"Mouse, sem fio\",\"Com \"\"dongle\"\"\nUSB\",99.90,true,150,1,Periféricos\n" +
+                "2,Teclado,,abc,true,151,1,Periféricos\n" +
+                "\n" +
+                "3,Monitor,,-5,false,152,1,Periféricos\n" +
+                "4,Cabo,,10,talvez,153,,Periféricos\n");
+
+        productImportService.run(1L, file, ProductExportService.Format.CSV);
+
+        assertEquals(1, staged.size());
+        ProductStagingRepository.StagedRow row = staged.get(0);
+        assertEquals(2, row.line());
+        assertEquals("Mouse, sem fio", row.name());
+        assertEquals("Com \"dongle\"\nUSB", row.description());
+        assertEquals(new BigDecimal("99.90"), row.price());
+        assertEquals(150, row.code());
+
+        assertEquals(ProductImport.Status.COMPLETED, job.getStatus());
+        assertEquals(4L, job.getRowsRead());
+        assertEquals(3L, job.getRowsRejected());
+        assertEquals(1L, job.getRowsCreated());
+        String[] rejections = job.getRejections().split("\n");
+        assertEquals(3, rejections.length);
+        assertTrue(rejections[0].startsWith("Linha 4: price: valor inválido"), rejections[0]);
+        assertTrue(rejections[1].startsWith("Linha 6: price:"), rejections[1]);
+        assertTrue(rejections[2].contains("status: valor inválido") && rejections[2].contains("categoryId:"), rejections[2]);
+        verify(productCacheService).evictAll();
+        verify(productCodeIndex).rebuild();
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void shouldAcceptBothNdjsonLayouts() throws Exception {
+        Path file = write("{\"name\":\"Mouse\",\"price\":10.5,\"status\":true,\"code\":150,\"categoryId\":1}\n" +
+                "{\"name\":\"Teclado\",\"price\":\"20\",\"status\":false,\"code\":151,\"category\":{\"id\":2}}\n" +
+                "not json\n");
+
+        productImportService.run(1L, file, ProductExportService.Format.NDJSON);
+
+        assertEquals(List.of(1L, 2L), staged.stream().map(ProductStagingRepository.StagedRow::categoryId).toList());
+        assertEquals(3L, job.getRowsRead());
+        assertEquals("Linha 3: JSON inválido", job.getRejections());
+    }
+
+    @Test
+    void shouldFailJobWhenCsvHeaderLacksRequiredColumns() throws Exception {
+        Path file = write("name,price\nMouse,10\n");
+
+        productImportService.run(1L, file, ProductExportService.Format.CSV);
+
+        assertEquals(ProductImport.Status.FAILED, job.getStatus());
+        assertTrue(job.getError().contains("status, code, categoryid"), job.getError());
+        verifyNoInteractions(productCacheService);
+    }
+
+    @Test
+    void shouldRejectEmptyAndOversizedUploadsWithoutCreatingJobs() {
+        assertThrows(IllegalArgumentException.class, () -> productImportService.submit(ProductExportService.Format.CSV,
+                new ByteArrayInputStream(new byte[0])));
+        assertThrows(IllegalArgumentException.class, () -> productImportService.submit(ProductExportService.Format.CSV,
+                new ByteArrayInputStream(new byte[2048])));
+        verify(productImportRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldReportRateAndProgressOfFinishedJob() {
+        job.setStatus(ProductImport.Status.COMPLETED);
+        job.setRowsRead(5000L);
+        job.setStartedAt(LocalDateTime.of(2024, 1, 1, 10, 0, 0));
+        job.setFinishedAt(LocalDateTime.of(2024, 1, 1, 10, 0, 2));
+
+        ProductImportStatusDTO status = productImportService.findStatus(1L).orElseThrow();
+
+        assertEquals(1.0, status.progress());
+        assertEquals(2500.0, status.rowsPerSecond());
+        assertEquals(List.of(), status.rejections());
+    }
+
+    @Test
+    void shouldFailUnfinishedJobsWithoutRecentHeartbeat() {
+        when(productImportRepository.failStale(any(), any(), any(), any(), any())).thenReturn(2);
+        LocalDateTime before = LocalDateTime.now();
+
+        assertEquals(2, productImportService.failStaleJobs());
+
+        ArgumentCaptor<LocalDateTime> staleBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(productImportRepository).failStale(
+                eq(List.of(ProductImport.Status.QUEUED, ProductImport.Status.RUNNING, ProductImport.Status.MERGING)),
+                staleBefore.capture(), eq(ProductImport.Status.FAILED), any(), any());
+        assertFalse(staleBefore.getValue().isBefore(before.minusMinutes(5)));
+        assertFalse(staleBefore.getValue().isAfter(LocalDateTime.now().minusMinutes(5)));
+    }
+
+    private Path write(String content) throws Exception {
+        Path file = Files.createTempFile("product-import-test-", ".tmp");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
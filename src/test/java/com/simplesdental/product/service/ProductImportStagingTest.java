@@ -0,0 +1,117 @@
+package com.simplesdental.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simplesdental.product.model.ProductImport;
+import com.simplesdental.product.repository.CategoryReferenceCache;
+import com.simplesdental.product.repository.PagedQueryExecutor;
+import com.simplesdental.product.repository.ProductImportRepository;
+import com.simplesdental.product.repository.ProductStagingRepository;
+import com.simplesdental.product.repository.TableRowEstimator;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs imports through the real {@link ProductStagingRepository} on PostgreSQL. Progress is written while the
+ * staging transaction's connection is in a COPY, so it must commit on a connection of its own; a job whose
+ * progress joined the staging transaction would block forever on its own connection.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "spring.datasource.url=jdbc:tc:postgresql:16-alpine:///produto")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductStagingRepository.class, PagedQueryExecutor.class, TableRowEstimator.class, CategoryReferenceCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductImportStagingTest {
+
+    private static final int FIRST_CODE = 950_000;
+    private static final int ROWS = 2_000;
+
+    @Autowired
+    private ProductImportRepository productImportRepository;
+
+    @Autowired
+    private ProductStagingRepository productStagingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ProductImportService productImportService;
+    private Long jobId;
+
+    @BeforeEach
+    void setUp() {
+        productImportService = new ProductImportService(productImportRepository, productStagingRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), mock(ProductCacheService.class),
+                mock(CatalogGenerationService.class), mock(ProductCodeIndex.class), mock(ProductSuggestService.class),
+                1, 1 << 20, 50, Duration.ofSeconds(30), Duration.ofMinutes(5));
+
+        ProductImport job = new ProductImport();
+        job.setFormat("CSV");
+        job.setStatus(ProductImport.Status.QUEUED);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setHeartbeatAt(job.getCreatedAt());
+        jobId = productImportRepository.save(job).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productImportService.shutdown();
+        jdbcTemplate.update("DELETE FROM products WHERE code BETWEEN ? AND ?", FIRST_CODE, FIRST_CODE + ROWS);
+        productImportRepository.deleteById(jobId);
+    }
+
+    @Test
+    void shouldCompleteImportThroughCopyAndMerge() throws Exception {
+        StringBuilder csv = new StringBuilder("name,price,status,code,categoryId\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("Produto importado ").append(i).append(",10.50,true,").append(FIRST_CODE + i).append(",1\n");
+        }
+        Path file = Files.createTempFile("product-import-staging-test-", ".csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(60),
+                () -> productImportService.run(jobId, file, ProductExportService.Format.CSV));
+
+        ProductImport job = productImportRepository.findById(jobId).orElseThrow();
+        assertEquals(ProductImport.Status.COMPLETED, job.getStatus(), job.getError());
+        assertEquals((long) ROWS, job.getRowsCreated());
+        assertEquals((long) ROWS, jdbcTemplate.queryForObject("SELECT count(*) FROM products WHERE code BETWEEN ? AND ?",
+                Long.class, FIRST_CODE, FIRST_CODE + ROWS));
+    }
+
+    @Test
+    void shouldCommitProgressWhileCopyIsOpen() {
+        long[] seenByOtherConnection = {-1};
+
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> productStagingRepository.stageAndMerge(writer -> {
+            writer.write(new ProductStagingRepository.StagedRow(1, "Produto em andamento", null,
+                    new BigDecimal("10.00"), true, FIRST_CODE, 1L));
+            productImportRepository.updateProgress(jobId, ProductImport.Status.RUNNING, 10, 1, 0);
+            // Read from another thread, so on another pooled connection, while the COPY is still open
+            seenByOtherConnection[0] = CompletableFuture.supplyAsync(() -> jdbcTemplate.queryForObject(
+                    "SELECT rows_read FROM product_imports WHERE id = ?", Long.class, jobId)).join();
+        }, () -> { }, 50));
+
+        assertEquals(1, seenByOtherConnection[0]);
+    }
+}
@@ -1,7 +1,14 @@
 package com.simplesdental.product.service;
 
+import com.simplesdental.product.dto.KeysetPageResponse;
+import com.simplesdental.product.dto.ProductReadModel;
+import com.simplesdental.product.exception.PreconditionFailedException;
 import com.simplesdental.product.model.Category;
 import com.simplesdental.product.model.Product;
+import com.simplesdental.product.repository.CountMode;
+import com.simplesdental.product.repository.ProductFilter;
+import com.simplesdental.product.repository.ProductFilterPolicy;
+import com.simplesdental.product.repository.ProductPatch;
 import com.simplesdental.product.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,18 +16,29 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +47,21 @@ public class ProductServiceImplTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductCacheService productCacheService;
+
+    @Mock
+    private CatalogGenerationService catalogGenerationService;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private ProductSuggestService productSuggestService;
+
+    @Mock
+    private ProductCodeIndex productCodeIndex;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -61,6 +94,46 @@ public class ProductServiceImplTest {
         assertEquals(testProduct.getName(), savedProduct.getName());
         assertEquals(testProduct.getCode(), savedProduct.getCode());
         verify(productRepository).save(testProduct);
+        verify(productCacheService).evict(1L);
+        verify(catalogGenerationService).bump();
+        verify(productCodeIndex).recordWrite(123, 0L);
+    }
+
+    @Test
+    void shouldKeepSuggestionsWhenNameIsUnchanged() {
+        when(productCacheService.findById(1L)).thenReturn(Optional.of(ProductReadModel.from(testProduct)));
+        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+
+        testProduct.setPrice(new BigDecimal("29.99"));
+        productService.save(testProduct);
+        verify(productSuggestService, never()).invalidate();
+
+        testProduct.setName("Renamed Product");
+        productService.save(testProduct);
+        verify(productSuggestService).invalidate();
+    }
+
+    @Test
+    void shouldAnswerUnknownCodeWithoutCacheOrDatabase() {
+        when(productCodeIndex.mightExist(999)).thenReturn(false);
+
+        assertTrue(productService.findReadModelByCode(999).isEmpty());
+        verifyNoInteractions(productCacheService, productRepository);
+    }
+
+    @Test
+    void shouldRejectMissingCode() {
+        assertThrows(IllegalArgumentException.class, () -> productService.findReadModelByCode(null));
+        verifyNoInteractions(productCodeIndex, productCacheService, productRepository);
+    }
+
+    @Test
+    void shouldResolvePossiblyExistingCodeThroughCache() {
+        ProductReadModel readModel = ProductReadModel.from(testProduct);
+        when(productCodeIndex.mightExist(123)).thenReturn(true);
+        when(productCacheService.findByCode(123)).thenReturn(Optional.of(readModel));
+
+        assertEquals(Optional.of(readModel), productService.findReadModelByCode(123));
     }
 
     @Test
@@ -88,6 +161,19 @@ public class ProductServiceImplTest {
         verify(productRepository).findAllWithCategory(pageable);
     }
 
+    @Test
+    void shouldFindReadModelsWithCountMode() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(productRepository.findAllReadModels(pageable, CountMode.NONE))
+                .thenReturn(new SliceImpl<>(List.of(ProductReadModel.from(testProduct)), pageable, false));
+
+        Slice<ProductReadModel> result = productService.findAllReadModels(pageable, CountMode.NONE);
+
+        assertFalse(result.hasNext());
+        assertEquals("Test Category", result.getContent().get(0).categoryName());
+        verify(productRepository, never()).findAllWithCategory(pageable);
+    }
+
     @Test
     void shouldFindProductById() {
         when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
@@ -136,9 +222,59 @@ public class ProductServiceImplTest {
 
     @Test
     void shouldDeleteProductById() {
-        productService.deleteById(1L);
+        when(productRepository.deleteByIds(List.of(1L))).thenReturn(List.of(1L));
+
+        assertTrue(productService.deleteById(1L));
 
-        verify(productRepository).deleteById(1L);
+        verify(productRepository, never()).findById(any());
+        verify(productCacheService).evict(List.of(1L));
+        verify(catalogGenerationService).bump();
+        verify(productSuggestService).invalidate();
+    }
+
+    @Test
+    void shouldDeleteOnlyAtExpectedVersion() {
+        when(productRepository.deleteIfVersion(1L, Set.of(3L))).thenReturn(true);
+        when(productRepository.deleteIfVersion(2L, Set.of(3L))).thenReturn(false);
+        when(productRepository.existsById(2L)).thenReturn(true);
+
+        assertTrue(productService.deleteById(1L, Set.of(3L)));
+        verify(productCacheService).evict(List.of(1L));
+        assertThrows(PreconditionFailedException.class, () -> productService.deleteById(2L, Set.of(3L)));
+        verify(productRepository, never()).existsById(1L);
+    }
+
+    @Test
+    void shouldNotInvalidateWhenDeleteMatchesNothing() {
+        when(productRepository.deleteByIds(List.of(99L))).thenReturn(List.of());
+
+        assertFalse(productService.deleteById(99L));
+
+        verifyNoInteractions(productCacheService, catalogGenerationService, productSuggestService);
+    }
+
+    @Test
+    void shouldDeleteMatchingProductsWithOneBatchInvalidation() {
+        ProductFilter inactive = new ProductFilter(false, List.of(1L), null, null, null, null);
+        when(productRepository.deleteMatching(inactive)).thenReturn(List.of(4L, 5L, 6L));
+
+        assertEquals(List.of(4L, 5L, 6L), productService.deleteMatching(inactive));
+
+        verify(productCacheService).evict(List.of(4L, 5L, 6L));
+        verify(catalogGenerationService, times(1)).bump();
+        assertThrows(IllegalArgumentException.class, () -> productService.deleteMatching(ProductFilter.NONE));
+    }
+
+    @Test
+    void shouldReadProductThroughCache() {
+        ProductReadModel readModel = ProductReadModel.from(testProduct);
+        when(productCacheService.findById(1L)).thenReturn(Optional.of(readModel));
+
+        Optional<ProductReadModel> result = productService.findReadModelById(1L);
+
+        assertTrue(result.isPresent());
+        assertEquals("Test Category", result.get().categoryName());
+        verify(productRepository, never()).findByIdWithCategory(1L);
     }
 
     @Test
@@ -150,4 +286,243 @@ public class ProductServiceImplTest {
         assertFalse(result.isPresent());
         verify(productRepository).findByIdWithCategory(999L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnNextCursorWhenMoreRowsExist() {
+        ProductReadModel first = ProductReadModel.from(testProduct);
+        ProductReadModel second = new ProductReadModel(2L, "Zeta Product", null, new BigDecimal("29.99"), true, 124, 1L, "Test Category", 0L, 0L);
+        when(productRepository.findReadModelsAfter(eq(ProductFilter.NONE), eq("name"), eq(Sort.Direction.ASC), isNull(), isNull(), eq(2)))
+                .thenReturn(Arrays.asList(first, second));
+
+        KeysetPageResponse<ProductReadModel> firstPage = productService.findReadModelsAfter(ProductFilter.NONE, "name", Sort.Direction.ASC, null, 1);
+
+        assertEquals(1, firstPage.content().size());
+        assertTrue(firstPage.hasNext());
+        assertNotNull(firstPage.nextCursor());
+
+        when(productRepository.findReadModelsAfter(ProductFilter.NONE, "name", Sort.Direction.ASC, "Test Product", 1L, 2))
+                .thenReturn(List.of(second));
+
+        KeysetPageResponse<ProductReadModel> secondPage = productService.findReadModelsAfter(ProductFilter.NONE, "name", Sort.Direction.ASC, firstPage.nextCursor(), 1);
+
+        assertEquals("Zeta Product", secondPage.content().get(0).name());
+        assertFalse(secondPage.hasNext());
+        assertNull(secondPage.nextCursor());
+    }
+
+    @Test
+    void shouldRejectCursorFromDifferentSort() {
+        ProductReadModel readModel = ProductReadModel.from(testProduct);
+        when(productRepository.findReadModelsAfter(eq(ProductFilter.NONE), eq("price"), eq(Sort.Direction.ASC), isNull(), isNull(), eq(2)))
+                .thenReturn(Arrays.asList(readModel, readModel));
+        String cursor = productService.findReadModelsAfter(ProductFilter.NONE, "price", Sort.Direction.ASC, null, 1).nextCursor();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.findReadModelsAfter(ProductFilter.NONE, "name", Sort.Direction.ASC, cursor, 1));
+    }
+
+    @Test
+    void shouldSearchWithTrimmedText() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(productRepository.search("notebook", 1L, true, pageable, CountMode.NONE))
+                .thenReturn(new SliceImpl<>(List.of(ProductReadModel.from(testProduct)), pageable, false));
+
+        Slice<ProductReadModel> result = productService.search("  notebook ", 1L, true, pageable, CountMode.NONE);
+
+        assertEquals(1, result.getNumberOfElements());
+    }
+
+    @Test
+    void shouldRejectBlankSearchText() {
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.search("   ", null, null, PageRequest.of(0, 10), CountMode.NONE));
+        verify(productRepository, never()).search(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldServeReadModelsFromSnapshotWhenLoaded() {
+        CatalogSnapshot snapshot = CatalogSnapshot.builder().addProduct(ProductReadModel.from(testProduct)).build();
+        when(catalogSnapshotService.currentIfCaughtUp()).thenReturn(snapshot);
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("price"));
+
+        Slice<ProductReadModel> page = productService.findAllReadModels(pageable, CountMode.NONE);
+        Optional<ProductReadModel> byId = productService.findReadModelById(1L);
+
+        assertEquals(1, page.getNumberOfElements());
+        assertTrue(byId.isPresent());
+        verifyNoInteractions(productRepository, productCacheService);
+    }
+
+    @Test
+    void shouldListByNameFromDatabaseEvenWithSnapshot() {
+        CatalogSnapshot snapshot = CatalogSnapshot.builder().addProduct(ProductReadModel.from(testProduct)).build();
+        when(catalogSnapshotService.currentIfCaughtUp()).thenReturn(snapshot);
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("name"));
+        when(productRepository.findAllReadModels(pageable, CountMode.NONE))
+                .thenReturn(new SliceImpl<>(List.of(ProductReadModel.from(testProduct)), pageable, false));
+
+        productService.findAllReadModels(pageable, CountMode.NONE);
+
+        verify(productRepository).findAllReadModels(pageable, CountMode.NONE);
+    }
+
+    @Test
+    void shouldReadOwnWriteByIdWhileSnapshotIsBehind() {
+        ProductReadModel written = ProductReadModel.from(testProduct);
+        when(catalogSnapshotService.currentIfCaughtUp()).thenReturn(null);
+        when(productCacheService.findById(1L)).thenReturn(Optional.of(written));
+        when(productCacheService.findAllByIds(List.of(1L))).thenReturn(Map.of(1L, written));
+
+        assertEquals(Optional.of(written), productService.findReadModelById(1L));
+        assertEquals(Map.of(1L, written), productService.findReadModelsByIds(List.of(1L)));
+        verify(catalogSnapshotService, never()).current();
+    }
+
+    @Test
+    void shouldListFromDatabaseWhileSnapshotIsBehind() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("name"));
+        when(catalogSnapshotService.currentIfCaughtUp()).thenReturn(null);
+        when(productRepository.findAllReadModels(pageable, CountMode.NONE))
+                .thenReturn(new SliceImpl<>(List.of(ProductReadModel.from(testProduct)), pageable, false));
+
+        Slice<ProductReadModel> page = productService.findAllReadModels(pageable, CountMode.NONE);
+
+        assertEquals(1, page.getNumberOfElements());
+        verify(productRepository).findAllReadModels(pageable, CountMode.NONE);
+    }
+
+    @Test
+    void shouldFindFilteredReadModels() {
+        ProductFilter filter = new ProductFilter(true, List.of(1L, 2L), new BigDecimal("10"), new BigDecimal("50"), null, null);
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("price"));
+        when(productRepository.findReadModels(filter, pageable, CountMode.EXACT))
+                .thenReturn(new SliceImpl<>(List.of(ProductReadModel.from(testProduct)), pageable, false));
+
+        Slice<ProductReadModel> result = productService.findReadModels(filter, pageable, CountMode.EXACT);
+
+        assertEquals(1, result.getNumberOfElements());
+    }
+
+    @Test
+    void shouldRejectFilteredListingSortedByUnindexedColumn() {
+        ProductFilter filter = new ProductFilter(null, List.of(1L), null, null, null, null);
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("description"));
+
+        assertThrows(IllegalArgumentException.class, () -> productService.findReadModels(filter, pageable, CountMode.EXACT));
+        verify(productRepository, never()).findReadModels(any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectInvertedPriceRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ProductFilter(null, null, new BigDecimal("50"), new BigDecimal("10"), null, null));
+    }
+
+    @Test
+    void shouldWarnOnStatusOnlyFilter() {
+        ProductFilter statusOnly = new ProductFilter(true, null, null, null, null, null);
+        ProductFilter statusAndCategory = new ProductFilter(true, List.of(1L), null, null, null, null);
+
+        assertEquals(1, ProductFilterPolicy.check(statusOnly, Sort.by("id")).size());
+        assertTrue(ProductFilterPolicy.check(statusAndCategory, Sort.by("id")).isEmpty());
+    }
+
+    @Test
+    void shouldWarnOnCategoryFilterWithoutIndexedOrder() {
+        ProductFilter oneCategory = new ProductFilter(null, List.of(1L), null, null, null, null);
+        ProductFilter twoCategories = new ProductFilter(null, List.of(1L, 2L), null, null, null, null);
+
+        assertEquals(1, ProductFilterPolicy.check(oneCategory, Sort.by("name")).size());
+        assertEquals(1, ProductFilterPolicy.check(oneCategory, Sort.by("price")).size());
+        assertTrue(ProductFilterPolicy.check(oneCategory, Sort.by("id")).isEmpty());
+        assertEquals(1, ProductFilterPolicy.check(twoCategories, Sort.by("id")).size());
+    }
+
+    @Test
+    void shouldPatchInOneStatementAndInvalidate() {
+        ProductPatch patch = new ProductPatch(Map.of(ProductPatch.Field.PRICE, new BigDecimal("9.90")));
+        ProductReadModel patched = new ProductReadModel(1L, "Test Product", null, new BigDecimal("9.90"), true, 123,
+                1L, "Test Category", 2L, 0L);
+        when(productRepository.patch(1L, patch, null)).thenReturn(Optional.of(patched));
+        when(catalogGenerationService.bump()).thenReturn(8L);
+
+        assertEquals(Optional.of(patched), productService.patch(1L, patch, null));
+
+        verify(productRepository, never()).findById(any());
+        verify(productCacheService).evict(1L);
+        verify(productCodeIndex).recordWrite(123, 8L);
+        // Price-only change: suggestions stay valid
+        verifyNoInteractions(productSuggestService);
+    }
+
+    @Test
+    void shouldInvalidateSuggestionsOnlyWhenPatchedNameDiffers() {
+        ProductReadModel current = ProductReadModel.from(testProduct);
+        ProductPatch put = new ProductPatch(Map.of(ProductPatch.Field.NAME, testProduct.getName(),
+                ProductPatch.Field.PRICE, new BigDecimal("9.90")));
+        ProductReadModel patched = new ProductReadModel(1L, testProduct.getName(), null, new BigDecimal("9.90"), true, 123,
+                1L, "Test Category", 2L, 0L);
+        when(productCacheService.findById(1L)).thenReturn(Optional.of(current));
+        when(productRepository.patch(1L, put, null)).thenReturn(Optional.of(patched));
+
+        productService.patch(1L, put, null);
+        verifyNoInteractions(productSuggestService);
+
+        ProductPatch rename = new ProductPatch(Map.of(ProductPatch.Field.NAME, "Renamed"));
+        ProductReadModel renamed = new ProductReadModel(1L, "Renamed", null, new BigDecimal("9.90"), true, 123,
+                1L, "Test Category", 3L, 0L);
+        when(productRepository.patch(1L, rename, null)).thenReturn(Optional.of(renamed));
+
+        productService.patch(1L, rename, null);
+        verify(productSuggestService).invalidate();
+    }
+
+    @Test
+    void shouldNotInvalidateWhenPatchedProductDoesNotExist() {
+        ProductPatch patch = new ProductPatch(Map.of(ProductPatch.Field.NAME, "Novo nome"));
+        when(productRepository.patch(99L, patch, null)).thenReturn(Optional.empty());
+
+        assertTrue(productService.patch(99L, patch, null).isEmpty());
+        // The cached name is read up front for the suggestion check; nothing is evicted
+        verify(productCacheService, never()).evict(any(Long.class));
+        verifyNoInteractions(catalogGenerationService, productSuggestService);
+    }
+
+    @Test
+    void shouldRejectPatchWithStaleVersion() {
+        ProductPatch patch = new ProductPatch(Map.of(ProductPatch.Field.NAME, "Novo nome"));
+        when(productRepository.patch(1L, patch, Set.of(3L))).thenReturn(Optional.empty());
+        when(productRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> productService.patch(1L, patch, Set.of(3L)));
+        verify(productCacheService, never()).evict(any(Long.class));
+        verifyNoInteractions(catalogGenerationService, productSuggestService);
+    }
+
+    @Test
+    void shouldNotRunStatementWhenNoTagCanMatch() {
+        ProductPatch patch = new ProductPatch(Map.of(ProductPatch.Field.NAME, "Novo nome"));
+        when(productRepository.existsById(99L)).thenReturn(false);
+
+        // A weak If-Match never matches, but a missing product is still reported as missing
+        assertTrue(productService.patch(99L, patch, Set.of()).isEmpty());
+        verify(productRepository, never()).patch(any(), any(), any());
+    }
+
+    @Test
+    void shouldReportUnknownCategoryFromForeignKey() {
+        ProductPatch patch = new ProductPatch(Map.of(ProductPatch.Field.CATEGORY_ID, 42L));
+        when(productRepository.patch(1L, patch, null)).thenThrow(new DataIntegrityViolationException("fk",
+                new PSQLException("violates foreign key constraint", PSQLState.FOREIGN_KEY_VIOLATION)));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> productService.patch(1L, patch, null));
+        assertEquals("Categoria não encontrada", e.getMessage());
+    }
+
+    @Test
+    void shouldRejectRemovingRequiredFields() {
+        Map<ProductPatch.Field, Object> changes = new HashMap<>();
+        changes.put(ProductPatch.Field.PRICE, null);
+        assertThrows(IllegalArgumentException.class, () -> new ProductPatch(changes));
+    }
+}
@@ -0,0 +1,82 @@
+package com.simplesdental.product.service;
+
+import com.simplesdental.product.dto.ProductSuggestionDTO;
+import com.simplesdental.product.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ProductSuggestServiceTest {
+
+    private ProductRepository productRepository;
+    private ValueOperations<String, String> valueOperations;
+    private ProductSuggestService productSuggestService;
+
+    private final List<ProductSuggestionDTO> top = LongStream.rangeClosed(1, ProductSuggestService.MAX_LIMIT)
+            .mapToObj(id -> new ProductSuggestionDTO(id, "Notebook " + id))
+            .toList();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(ProductSuggestService.NAME_GENERATION_KEY)).thenReturn("1");
+        productSuggestService = new ProductSuggestService(productRepository, redisTemplate, new SimpleMeterRegistry(),
+                3, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void shouldServeShortPrefixesFromCacheForAnyLimit() {
+        when(productRepository.suggest("not", ProductSuggestService.MAX_LIMIT)).thenReturn(top);
+
+        List<ProductSuggestionDTO> first = productSuggestService.suggest("Not", 10);
+        List<ProductSuggestionDTO> second = productSuggestService.suggest("not ", 5);
+
+        assertEquals(10, first.size());
+        assertEquals(top.subList(0, 5), second);
+        verify(productRepository, times(1)).suggest(anyString(), anyInt());
+    }
+
+    @Test
+    void shouldQueryLongPrefixesDirectly() {
+        when(productRepository.suggest("notebook", 10)).thenReturn(top.subList(0, 10));
+
+        productSuggestService.suggest("notebook", 10);
+        productSuggestService.suggest("notebook", 10);
+
+        verify(productRepository, times(2)).suggest("notebook", 10);
+    }
+
+    @Test
+    void shouldReloadAfterNameGenerationChanges() {
+        when(productRepository.suggest("not", ProductSuggestService.MAX_LIMIT)).thenReturn(top);
+
+        productSuggestService.suggest("not", 10);
+        when(valueOperations.get(ProductSuggestService.NAME_GENERATION_KEY)).thenReturn("2");
+        productSuggestService.suggest("not", 10);
+
+        verify(productRepository, times(2)).suggest("not", ProductSuggestService.MAX_LIMIT);
+    }
+
+    @Test
+    void shouldRejectInvalidRequests() {
+        assertThrows(IllegalArgumentException.class, () -> productSuggestService.suggest(" ", 10));
+        assertThrows(IllegalArgumentException.class, () -> productSuggestService.suggest("not", 0));
+        assertThrows(IllegalArgumentException.class, () -> productSuggestService.suggest("not", ProductSuggestService.MAX_LIMIT + 1));
+        verifyNoInteractions(productRepository);
+    }
+}
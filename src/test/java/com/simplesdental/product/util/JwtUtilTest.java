@@ -0,0 +1,42 @@
+package com.simplesdental.product.util;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "mySecretKey356890sdhkjfkjweksjdhfks";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000L);
+
+    @Test
+    void shouldReadEveryClaimFromOneParse() {
+        String token = jwtUtil.generateToken(7L, "user@example.com", "admin");
+
+        JwtPrincipal principal = jwtUtil.parseToken(token);
+
+        assertEquals(7L, principal.userId());
+        assertEquals("user@example.com", principal.username());
+        assertEquals("admin", principal.role());
+        assertNotNull(principal.expiration());
+    }
+
+    @Test
+    void shouldRejectTokenSignedWithAnotherKey() {
+        String token = new JwtUtil("anotherSecretKey356890sdhkjfkjweksjdh", 60_000L)
+                .generateToken(7L, "user@example.com", "admin");
+
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(token));
+    }
+
+    @Test
+    void shouldRejectExpiredToken() {
+        String token = new JwtUtil(SECRET, -1_000L).generateToken(7L, "user@example.com", "admin");
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseToken(token));
+        assertFalse(jwtUtil.isTokenValid(token));
+    }
+}